@@ -0,0 +1,59 @@
+package com.drevotiuk.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.bson.types.ObjectId;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderEmailDetails;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderPriceQuote;
+import com.drevotiuk.model.OrderStatus;
+
+/**
+ * Factory of realistic order data shared by the JMH benchmarks.
+ * The benchmarks run in forked JVMs and write their results as JSON to
+ * {@code target/jmh-result.json}:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@jmh
+ * </pre>
+ */
+final class BenchmarkData {
+
+  private BenchmarkData() {
+  }
+
+  static List<OrderItem> orderItems(int items) {
+    return IntStream.range(0, items)
+        .mapToObj(i -> new OrderItem(ObjectId.get().toHexString(), ThreadLocalRandom.current().nextInt(1, 10)))
+        .collect(Collectors.toList());
+  }
+
+  static Order order(int items) {
+    return new Order(
+        ObjectId.get(),
+        OrderStatus.ORDERED,
+        ObjectId.get(),
+        orderItems(items),
+        LocalDateTime.now(),
+        BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(100, 100_000), 2));
+  }
+
+  static OrderEmailDetails emailDetails() {
+    return new OrderEmailDetails(ObjectId.get().toHexString(), LocalDate.now().toString(), BigDecimal.valueOf(12345, 2));
+  }
+
+  static OrderPriceQuote priceQuote(int items) {
+    List<BigDecimal> itemPrices = IntStream.range(0, items)
+        .mapToObj(i -> BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(100, 10_000), 2))
+        .collect(Collectors.toList());
+    return new OrderPriceQuote(itemPrices, itemPrices.stream().reduce(BigDecimal.ZERO, BigDecimal::add));
+  }
+}
@@ -0,0 +1,216 @@
+package com.drevotiuk.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+
+import com.drevotiuk.service.OrderService.CheckoutMode;
+
+/**
+ * Load driver that places concurrent checkouts against a running Order
+ * Service and reports throughput and latency percentiles.
+ * Run it once against an instance started with
+ * {@code ORDER_VIRTUAL_THREADS_ENABLED=false} and once with {@code true} to
+ * compare platform and virtual request threads, or against an instance with
+ * the {@code reactive} profile to compare the servlet and reactive stacks.
+ * Raising {@code concurrency} until checkouts fail or latency degrades gives
+ * the number of concurrent connections a single node sustains.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java@load \
+ *     -Dexec.args="url=http://localhost:9092/api/v1/orders header=... products=id1,id2 concurrency=1000"
+ * </pre>
+ *
+ * Arguments are {@code key=value} pairs:
+ * <ul>
+ * <li>{@code url} - the orders endpoint (required)</li>
+ * <li>{@code products} - comma separated product IDs to order (required)</li>
+ * <li>{@code header} - the user ID header configured as
+ * {@code security.header.id} (required)</li>
+ * <li>{@code concurrency} - checkouts in flight, 1000 by default</li>
+ * <li>{@code requests} - measured checkouts, 20000 by default</li>
+ * <li>{@code warmup} - unmeasured checkouts sent first, 2000 by default</li>
+ * <li>{@code items} - items per order, 3 by default</li>
+ * <li>{@code mode} - the checkout mode of the instance, as configured with
+ * {@code order.checkout.mode}; checkouts count as successful if answered with
+ * 200 OK in {@code SYNC} mode, the default, and 202 Accepted in {@code ASYNC}
+ * mode</li>
+ * <li>{@code metrics} - the actuator metrics endpoint of the instance; if set,
+ * heap usage is sampled to estimate the memory held per in-flight checkout</li>
+ * </ul>
+ */
+public class CheckoutLoadBenchmark {
+  private static final Pattern HEAP_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(10))
+      .build();
+  private final URI url;
+  private final String header;
+  private final List<String> products;
+  private final int concurrency;
+  private final int items;
+  private final int expectedStatus;
+  private final URI metrics;
+
+  private CheckoutLoadBenchmark(Map<String, String> args) {
+    this.url = URI.create(required(args, "url"));
+    this.header = required(args, "header");
+    this.products = Arrays.asList(required(args, "products").split(","));
+    this.concurrency = Integer.parseInt(args.getOrDefault("concurrency", "1000"));
+    this.items = Integer.parseInt(args.getOrDefault("items", "3"));
+    this.expectedStatus = CheckoutMode.valueOf(args.getOrDefault("mode", "SYNC")) == CheckoutMode.ASYNC ? 202 : 200;
+    this.metrics = args.containsKey("metrics") ? URI.create(args.get("metrics") + "/jvm.memory.used?tag=area:heap") : null;
+  }
+
+  public static void main(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      String[] option = arg.split("=", 2);
+      options.put(option[0], option.length > 1 ? option[1] : "");
+    }
+
+    CheckoutLoadBenchmark benchmark = new CheckoutLoadBenchmark(options);
+    benchmark.run(Integer.parseInt(options.getOrDefault("warmup", "2000")));
+    Result result = benchmark.run(Integer.parseInt(options.getOrDefault("requests", "20000")));
+    System.out.println(result);
+  }
+
+  /**
+   * Sends the given number of checkouts, keeping {@code concurrency} of them in
+   * flight at any time.
+   *
+   * @param requests the number of checkouts
+   * @return the measured {@link Result}
+   */
+  private Result run(int requests) {
+    long[] latencies = new long[requests];
+    AtomicInteger failures = new AtomicInteger();
+    Semaphore inFlight = new Semaphore(concurrency);
+    CompletableFuture<?>[] checkouts = new CompletableFuture<?>[requests];
+    long baselineHeap = heapUsed();
+    AtomicLong peakHeap = new AtomicLong(baselineHeap);
+    ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+    if (metrics != null)
+      sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(heapUsed(), Math::max), 0, 200, TimeUnit.MILLISECONDS);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      inFlight.acquireUninterruptibly();
+      int index = i;
+      long sent = System.nanoTime();
+      checkouts[i] = client.sendAsync(checkout(), HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, e) -> {
+            latencies[index] = System.nanoTime() - sent;
+            if (e != null || response.statusCode() != expectedStatus)
+              failures.incrementAndGet();
+            inFlight.release();
+          });
+    }
+    CompletableFuture.allOf(checkouts).exceptionally(e -> null).join();
+    long elapsed = System.nanoTime() - start;
+    sampler.shutdownNow();
+
+    Arrays.sort(latencies);
+    long heapPerRequest = metrics == null ? -1 : (peakHeap.get() - baselineHeap) / concurrency;
+    return new Result(requests, failures.get(), elapsed, latencies, heapPerRequest);
+  }
+
+  /**
+   * Builds a checkout of random products for a random user.
+   *
+   * @return the checkout request
+   */
+  private HttpRequest checkout() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String body = random.ints(items, 0, products.size())
+        .mapToObj(i -> String.format("{\"productId\":\"%s\",\"qty\":%d}", products.get(i), random.nextInt(1, 5)))
+        .collect(Collectors.joining(",", "[", "]"));
+    return HttpRequest.newBuilder(url)
+        .timeout(Duration.ofSeconds(60))
+        .header("Content-Type", "application/json")
+        .header(header, ObjectId.get().toHexString())
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+
+  /**
+   * Reads the heap usage of the instance from its actuator metrics endpoint.
+   *
+   * @return the used heap in bytes, or -1 if no metrics endpoint is set or it
+   *         cannot be read
+   */
+  private long heapUsed() {
+    if (metrics == null)
+      return -1;
+
+    try {
+      String body = client.send(HttpRequest.newBuilder(metrics).build(), HttpResponse.BodyHandlers.ofString()).body();
+      Matcher value = HEAP_VALUE.matcher(body);
+      return value.find() ? (long) Double.parseDouble(value.group(1)) : -1;
+    } catch (IOException e) {
+      return -1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return -1;
+    }
+  }
+
+  private static String required(Map<String, String> args, String key) {
+    String value = args.get(key);
+    if (value == null || value.isEmpty())
+      throw new IllegalArgumentException("Missing argument: " + key);
+
+    return value;
+  }
+
+  /**
+   * Throughput and latency of a benchmark run.
+   */
+  private static final class Result {
+    private final int requests;
+    private final int failures;
+    private final long elapsed;
+    private final long[] latencies;
+    private final long heapPerRequest;
+
+    private Result(int requests, int failures, long elapsed, long[] latencies, long heapPerRequest) {
+      this.requests = requests;
+      this.failures = failures;
+      this.elapsed = elapsed;
+      this.latencies = latencies;
+      this.heapPerRequest = heapPerRequest;
+    }
+
+    private double percentile(double p) {
+      return latencies[(int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1)] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+      String result = String.format("requests: %d, failures: %d, throughput: %.1f req/s, p50: %.1f ms, p99: %.1f ms, max: %.1f ms",
+          requests, failures, requests / (elapsed / 1e9), percentile(0.5), percentile(0.99), percentile(1.0));
+      return heapPerRequest < 0 ? result : result + String.format(", heap per in-flight checkout: %.1f KiB", heapPerRequest / 1024.0);
+    }
+  }
+}
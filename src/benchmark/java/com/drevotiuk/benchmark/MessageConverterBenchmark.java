@@ -0,0 +1,81 @@
+package com.drevotiuk.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import com.drevotiuk.config.AppConfig;
+import com.drevotiuk.config.Jackson2CborMessageConverter;
+import com.drevotiuk.model.OrderEmailDetails;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderPriceQuote;
+
+/**
+ * Measures round trips through the message converter used for all RabbitMQ
+ * messages: converting a payload to a message and back, once for each message
+ * format. The size of the message body of every payload, in bytes on the wire,
+ * is printed when the benchmark sets up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageConverterBenchmark {
+  @Param({ MessageProperties.CONTENT_TYPE_JSON, Jackson2CborMessageConverter.CONTENT_TYPE })
+  private String contentType;
+
+  private MessageConverter messageConverter;
+  private List<OrderItem> orderItems;
+  private OrderEmailDetails emailDetails;
+  private OrderPriceQuote priceQuote;
+
+  @Setup
+  public void setUp() {
+    messageConverter = new AppConfig().messageConverter(contentType);
+    orderItems = BenchmarkData.orderItems(10);
+    emailDetails = BenchmarkData.emailDetails();
+    priceQuote = BenchmarkData.priceQuote(10);
+    System.out.printf("%n%s body sizes: orderItems=%d B, orderEmailDetails=%d B, priceQuote=%d B%n", contentType,
+        bodySize(orderItems), bodySize(emailDetails), bodySize(priceQuote));
+  }
+
+  @Benchmark
+  public Object orderItemsRoundTrip() {
+    return roundTrip(orderItems);
+  }
+
+  @Benchmark
+  public Object orderEmailDetailsRoundTrip() {
+    return roundTrip(emailDetails);
+  }
+
+  @Benchmark
+  public Object priceQuoteRoundTrip() {
+    return roundTrip(priceQuote);
+  }
+
+  private int bodySize(Object payload) {
+    return messageConverter.toMessage(payload, new MessageProperties()).getBody().length;
+  }
+
+  private Object roundTrip(Object payload) {
+    Message message = messageConverter.toMessage(payload, new MessageProperties());
+    return messageConverter.fromMessage(message);
+  }
+}
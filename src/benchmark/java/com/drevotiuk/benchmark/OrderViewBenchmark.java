@@ -0,0 +1,56 @@
+package com.drevotiuk.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderPage;
+import com.drevotiuk.model.OrderView;
+
+/**
+ * Measures mapping large lists of {@link Order}s to {@link OrderView}s, as
+ * done for order listings and pages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderViewBenchmark {
+  @Param({ "100", "10000", "100000" })
+  private int orders;
+
+  private List<Order> orderList;
+
+  @Setup
+  public void setUp() {
+    orderList = IntStream.range(0, orders)
+        .mapToObj(i -> BenchmarkData.order(3))
+        .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public List<OrderView> mapToViews() {
+    return orderList.stream().map(OrderView::new).collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public OrderPage buildPage() {
+    return OrderPage.of(orderList, orders - 1);
+  }
+}
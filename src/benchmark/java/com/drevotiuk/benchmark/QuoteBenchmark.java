@@ -0,0 +1,102 @@
+package com.drevotiuk.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.service.OrderServiceUtils;
+import com.drevotiuk.service.ProductPriceClient;
+import com.drevotiuk.service.ProductPriceCache;
+import com.drevotiuk.service.QuoteCircuitBreaker;
+import com.drevotiuk.service.StubPriceResponder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures {@link OrderServiceUtils#calculateTotalPrice(List)} against a
+ * stubbed product service that replies without a broker, so that only the
+ * quoting, validation and caching overhead of each
+ * {@link OrderServiceUtils.QuoteMode} is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuoteBenchmark {
+  @Param({ "SEQUENTIAL", "PARALLEL", "BATCH" })
+  private OrderServiceUtils.QuoteMode mode;
+  @Param({ "1", "10", "100" })
+  private int items;
+  @Param({ "false", "true" })
+  private boolean cached;
+
+  private ExecutorService quoteExecutor;
+  private OrderServiceUtils serviceUtils;
+  private List<OrderItem> orderItems;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    StubPriceResponder responder = new StubPriceResponder(0);
+    orderItems = IntStream.range(0, items)
+        .mapToObj(i -> new OrderItem(ObjectId.get().toHexString(), i % 5 + 1))
+        .collect(Collectors.toList());
+    orderItems.forEach(item -> responder.withUnitPrice(item.getProductId(), BigDecimal.valueOf(19.99)));
+
+    quoteExecutor = Executors.newFixedThreadPool(32);
+    ProductPriceCache priceCache = new ProductPriceCache(cached, 10_000, 60_000, new SimpleMeterRegistry());
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ProductPriceClient priceClient = new ProductPriceClient(stubTemplate(responder),
+        new QuoteCircuitBreaker(5, 10_000, 20_000, meterRegistry), 64, 500, meterRegistry);
+    serviceUtils = new OrderServiceUtils(null, priceClient, quoteExecutor, priceCache, null, null, null, null);
+    ReflectionTestUtils.setField(serviceUtils, "quoteMode", mode);
+    ReflectionTestUtils.setField(serviceUtils, "quoteDeadline", 5_000L);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    quoteExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public BigDecimal calculateTotalPrice() {
+    return serviceUtils.calculateTotalPrice(orderItems);
+  }
+
+  private static RabbitTemplate stubTemplate(StubPriceResponder responder) {
+    return new RabbitTemplate() {
+      @Override
+      public Object convertSendAndReceive(String exchange, String routingKey, Object message) {
+        try {
+          return responder.reply(message);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,69 @@
+package com.drevotiuk.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.drevotiuk.model.OrderEmailDetails;
+import com.drevotiuk.model.OrderView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+/**
+ * Measures Jackson serialization of the payloads the service writes to
+ * clients and to the notification service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+  private ObjectMapper objectMapper;
+  private OrderView orderView;
+  private List<OrderView> orderViews;
+  private OrderEmailDetails emailDetails;
+
+  @Setup
+  public void setUp() {
+    objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .registerModule(new SimpleModule().addSerializer(ObjectId.class, ToStringSerializer.instance));
+    orderView = new OrderView(BenchmarkData.order(3));
+    orderViews = IntStream.range(0, 50)
+        .mapToObj(i -> new OrderView(BenchmarkData.order(3)))
+        .collect(Collectors.toList());
+    emailDetails = BenchmarkData.emailDetails();
+  }
+
+  @Benchmark
+  public byte[] serializeOrderView() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(orderView);
+  }
+
+  @Benchmark
+  public byte[] serializeOrderViewList() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(orderViews);
+  }
+
+  @Benchmark
+  public byte[] serializeOrderEmailDetails() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(emailDetails);
+  }
+}
@@ -4,25 +4,33 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.client.HttpClientErrorException;
 
 import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.IdempotencyConflictException;
 import com.drevotiuk.model.exception.InvalidOrderItemException;
+import com.drevotiuk.model.exception.InvalidStatusTransitionException;
+import com.drevotiuk.model.exception.OrderConflictException;
 import com.drevotiuk.model.exception.OrderNotFoundException;
+import com.drevotiuk.model.exception.PriceQuoteException;
 
+import io.micrometer.core.annotation.Counted;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Global exception handler that intercepts and handles exceptions globally in
  * the application.
  * Provides specific handling for various exceptions and returns consistent
- * error responses.
+ * error responses. Rejected orders and forbidden accesses are counted as
+ * {@code order.rejections}, tagged with the reason.
  */
 @RestControllerAdvice
 @Slf4j
@@ -50,6 +58,24 @@ public class GlobalExceptionHandler {
     return ResponseEntity.badRequest().body(errors);
   }
 
+  /**
+   * Handles validation exceptions of the reactive API such as
+   * {@link WebExchangeBindException}.
+   * 
+   * @param e the {@link WebExchangeBindException} thrown due to validation
+   *          failure
+   * @return a ResponseEntity containing a map of validation errors with field
+   *         names as keys and error messages as values
+   */
+  @ExceptionHandler(WebExchangeBindException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ResponseEntity<Map<String, String>> handleWebExchangeBindException(WebExchangeBindException e) {
+    Map<String, String> errors = new HashMap<>();
+    e.getFieldErrors().forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
+    logException(e);
+    return ResponseEntity.badRequest().body(errors);
+  }
+
   /**
    * Handles HTTP client errors such as {@link HttpClientErrorException}.
    * 
@@ -77,6 +103,7 @@ public class GlobalExceptionHandler {
 
   @ExceptionHandler(ForbiddenException.class)
   @ResponseStatus(HttpStatus.FORBIDDEN)
+  @Counted(value = "order.rejections", extraTags = { "reason", "forbidden" })
   public ResponseEntity<Map<String, String>> handleForbiddenException(ForbiddenException e) {
     return buildErrorResponse(e, HttpStatus.FORBIDDEN);
   }
@@ -90,10 +117,77 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(InvalidOrderItemException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
+  @Counted(value = "order.rejections", extraTags = { "reason", "invalid-item" })
   public ResponseEntity<Map<String, String>> handleIllegalDetailsException(InvalidOrderItemException e) {
     return buildErrorResponse(e, HttpStatus.BAD_REQUEST);
   }
 
+  /**
+   * Handles the {@link PriceQuoteException}.
+   * 
+   * @param e the {@link PriceQuoteException} thrown when product prices could
+   *          not be quoted
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(PriceQuoteException.class)
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public ResponseEntity<Map<String, String>> handlePriceQuoteException(PriceQuoteException e) {
+    return buildErrorResponse(e, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  /**
+   * Handles the {@link TaskRejectedException}.
+   * 
+   * @param e the {@link TaskRejectedException} thrown when a bounded executor,
+   *          such as the one of the order export, is saturated
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(TaskRejectedException.class)
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public ResponseEntity<Map<String, String>> handleTaskRejectedException(TaskRejectedException e) {
+    return buildErrorResponse(e, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  /**
+   * Handles the {@link IdempotencyConflictException}.
+   * 
+   * @param e the {@link IdempotencyConflictException} thrown when an order
+   *          cannot be created under the given idempotency key
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(IdempotencyConflictException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ResponseEntity<Map<String, String>> handleIdempotencyConflictException(IdempotencyConflictException e) {
+    return buildErrorResponse(e, HttpStatus.CONFLICT);
+  }
+
+  /**
+   * Handles the {@link InvalidStatusTransitionException}.
+   * 
+   * @param e the {@link InvalidStatusTransitionException} thrown when an order
+   *          cannot be moved to the requested status
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(InvalidStatusTransitionException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ResponseEntity<Map<String, String>> handleInvalidStatusTransitionException(
+      InvalidStatusTransitionException e) {
+    return buildErrorResponse(e, HttpStatus.CONFLICT);
+  }
+
+  /**
+   * Handles the {@link OrderConflictException}.
+   * 
+   * @param e the {@link OrderConflictException} thrown when orders could not
+   *          be changed because of concurrent changes
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(OrderConflictException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public ResponseEntity<Map<String, String>> handleOrderConflictException(OrderConflictException e) {
+    return buildErrorResponse(e, HttpStatus.CONFLICT);
+  }
+
   /**
    * Handles the {@link IllegalArgumentException}.
    * 
@@ -1,47 +1,156 @@
 package com.drevotiuk.config;
 
-import org.springframework.amqp.core.AmqpTemplate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 
 /**
  * Configuration class for application-specific beans.
  * Configures messaging-related beans such as message converters and AMQP
- * templates.
+ * templates, as well as the executors used for parallel price quoting and
+ * asynchronous checkout and JSON serialization of MongoDB identifiers.
  */
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
   /**
-   * Creates a {@link MessageConverter} bean that converts messages to and from
-   * JSON format using Jackson. This is used to serialize and deserialize messages
-   * sent over RabbitMQ.
+   * Creates a {@link MessageConverter} bean that negotiates the message format
+   * by content type. Incoming messages are read as JSON or as CBOR, the compact
+   * binary form of JSON, according to their content type. Outgoing messages are
+   * written in the configured format, so that CBOR can be enabled once every
+   * consumer reads it.
    *
-   * @return a {@link Jackson2JsonMessageConverter} for JSON message conversion
+   * @param contentType the content type of outgoing messages, either
+   *                    {@code application/json} or {@code application/cbor}
+   * @return a {@link ContentTypeDelegatingMessageConverter} over the JSON and
+   *         CBOR converters
    */
   @Bean
-  public MessageConverter messageConverter() {
-    return new Jackson2JsonMessageConverter();
+  public MessageConverter messageConverter(@Value("${rabbitmq.content-type}") String contentType) {
+    Map<String, MessageConverter> converters = new LinkedHashMap<>();
+    converters.put(MessageProperties.CONTENT_TYPE_JSON, new Jackson2JsonMessageConverter());
+    converters.put(Jackson2CborMessageConverter.CONTENT_TYPE, new Jackson2CborMessageConverter());
+    MessageConverter outbound = converters.get(contentType);
+    if (outbound == null)
+      throw new IllegalArgumentException("Unsupported message content type: " + contentType);
+
+    ContentTypeDelegatingMessageConverter messageConverter = new ContentTypeDelegatingMessageConverter(outbound);
+    converters.forEach(messageConverter::addDelegate);
+    return messageConverter;
   }
 
   /**
-   * Creates an {@link AmqpTemplate} bean for RabbitMQ communication.
+   * Creates a {@link RabbitTemplate} bean for RabbitMQ communication.
    * It uses the provided {@link ConnectionFactory} and configures it with the
-   * custom {@link MessageConverter} for JSON message conversion.
+   * custom {@link MessageConverter} for message conversion. It is the primary
+   * template; outbox messages are published with
+   * {@link #publisherRabbitTemplate} and price quote requests with the one
+   * created by {@link QuoteRpcConfig}.
    *
    * @param connectionFactory the RabbitMQ {@link ConnectionFactory} used to
    *                          create the {@link RabbitTemplate}
+   * @param messageConverter  the {@link MessageConverter} for message payloads
    * @return a configured {@link RabbitTemplate} for sending and receiving
    *         messages
    */
   @Bean
-  public AmqpTemplate amqpTemplate(ConnectionFactory connectionFactory) {
+  @Primary
+  public RabbitTemplate amqpTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
+    RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+    rabbitTemplate.setMessageConverter(messageConverter);
+    return rabbitTemplate;
+  }
+
+  /**
+   * Creates the {@link RabbitTemplate} used by the
+   * {@link com.drevotiuk.service.ConfirmingPublisher} to relay outbox
+   * messages. Messages are published as mandatory, so that unroutable
+   * messages are returned and reported through publisher confirms; the
+   * publisher installs its confirm and return callbacks on this template
+   * only.
+   *
+   * @param connectionFactory the RabbitMQ {@link ConnectionFactory} used to
+   *                          create the {@link RabbitTemplate}
+   * @param messageConverter  the {@link MessageConverter} for message payloads
+   * @return a {@link RabbitTemplate} for publishing outbox messages
+   */
+  @Bean
+  public RabbitTemplate publisherRabbitTemplate(ConnectionFactory connectionFactory,
+      MessageConverter messageConverter) {
     RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-    rabbitTemplate.setMessageConverter(messageConverter());
+    rabbitTemplate.setMessageConverter(messageConverter);
+    rabbitTemplate.setMandatory(true);
     return rabbitTemplate;
   }
+
+  /**
+   * Creates the executor used to send price quote requests for all items of an
+   * order concurrently when quoting runs in parallel mode. Replaced by
+   * {@link VirtualThreadConfig#quoteExecutor()} when virtual threads are
+   * enabled.
+   *
+   * @param poolSize the maximum number of price quote requests in flight
+   * @return a {@link ThreadPoolTaskExecutor} for price quote requests
+   */
+  @Bean
+  @ConditionalOnProperty(name = "order.virtual-threads.enabled", havingValue = "false", matchIfMissing = true)
+  public ThreadPoolTaskExecutor quoteExecutor(@Value("${order.quote.pool-size}") int poolSize) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setThreadNamePrefix("quote-");
+    return executor;
+  }
+
+  /**
+   * Creates the executor that prices orders accepted in asynchronous checkout
+   * mode. Its queue is bounded; orders it rejects are priced by the next sweep
+   * of the {@link com.drevotiuk.service.CheckoutWorker}.
+   *
+   * @param poolSize      the number of orders priced concurrently
+   * @param queueCapacity the number of orders waiting to be priced
+   * @return a {@link ThreadPoolTaskExecutor} for pricing accepted orders
+   */
+  @Bean
+  public ThreadPoolTaskExecutor checkoutExecutor(@Value("${order.checkout.pool-size}") int poolSize,
+      @Value("${order.checkout.queue-capacity}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("checkout-");
+    return executor;
+  }
+
+  /**
+   * Creates a Jackson module that serializes {@link ObjectId}s as their
+   * hexadecimal string form in HTTP responses.
+   *
+   * @return a {@link SimpleModule} registered with the application's
+   *         {@link com.fasterxml.jackson.databind.ObjectMapper}
+   */
+  @Bean
+  public SimpleModule objectIdModule() {
+    SimpleModule module = new SimpleModule("ObjectIdModule");
+    module.addSerializer(ObjectId.class, ToStringSerializer.instance);
+    return module;
+  }
 }
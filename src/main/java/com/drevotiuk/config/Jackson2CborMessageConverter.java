@@ -0,0 +1,79 @@
+package com.drevotiuk.config;
+
+import java.io.IOException;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractMessageConverter;
+import org.springframework.amqp.support.converter.DefaultJackson2JavaTypeMapper;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Message converter that writes payloads as CBOR, the binary JSON data model,
+ * using Jackson. Payloads are mapped exactly as by the
+ * {@link org.springframework.amqp.support.converter.Jackson2JsonMessageConverter},
+ * and the same type headers are written and read, so that a consumer can
+ * switch between the two formats by content type alone. Like the JSON
+ * converter, a message without type headers is read as the type of the
+ * listener argument it is converted for.
+ */
+public class Jackson2CborMessageConverter extends AbstractMessageConverter {
+  /** The content type of messages written by this converter. */
+  public static final String CONTENT_TYPE = "application/cbor";
+
+  private final ObjectMapper objectMapper = new ObjectMapper(new CBORFactory())
+      .findAndRegisterModules()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  private final DefaultJackson2JavaTypeMapper typeMapper = new DefaultJackson2JavaTypeMapper();
+
+  /**
+   * Creates a converter that, like the JSON converter, resolves type headers
+   * in all packages.
+   */
+  public Jackson2CborMessageConverter() {
+    this("*");
+  }
+
+  /**
+   * Creates a converter that resolves type headers in the given packages, in
+   * addition to {@code java.util} and {@code java.lang}.
+   *
+   * @param trustedPackages the packages of the types that may be read
+   */
+  public Jackson2CborMessageConverter(String... trustedPackages) {
+    typeMapper.setTrustedPackages(trustedPackages);
+  }
+
+  @Override
+  protected Message createMessage(Object object, MessageProperties messageProperties) {
+    byte[] body;
+    try {
+      body = objectMapper.writeValueAsBytes(object);
+    } catch (IOException e) {
+      throw new MessageConversionException("Failed to convert payload to CBOR", e);
+    }
+    messageProperties.setContentType(CONTENT_TYPE);
+    messageProperties.setContentLength(body.length);
+    typeMapper.fromJavaType(objectMapper.constructType(object.getClass()), messageProperties);
+    return new Message(body, messageProperties);
+  }
+
+  @Override
+  public Object fromMessage(Message message) {
+    MessageProperties properties = message.getMessageProperties();
+    JavaType targetType = properties.getHeader(typeMapper.getClassIdFieldName()) == null
+        && properties.getInferredArgumentType() != null
+            ? objectMapper.constructType(properties.getInferredArgumentType())
+            : typeMapper.toJavaType(properties);
+    try {
+      return objectMapper.readValue(message.getBody(), targetType);
+    } catch (IOException e) {
+      throw new MessageConversionException("Failed to convert CBOR message body", e);
+    }
+  }
+}
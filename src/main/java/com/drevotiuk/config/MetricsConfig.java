@@ -0,0 +1,42 @@
+package com.drevotiuk.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.CountedAspect;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Configuration class for Micrometer instrumentation.
+ * Enables the {@link io.micrometer.core.annotation.Timed} and
+ * {@link io.micrometer.core.annotation.Counted} annotations on beans, which
+ * record the order operation metrics exposed through the Prometheus endpoint.
+ */
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * Creates the aspect that times methods annotated with
+   * {@link io.micrometer.core.annotation.Timed}.
+   *
+   * @param meterRegistry the {@link MeterRegistry} to record timers in
+   * @return a {@link TimedAspect}
+   */
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+    return new TimedAspect(meterRegistry);
+  }
+
+  /**
+   * Creates the aspect that counts invocations of methods annotated with
+   * {@link io.micrometer.core.annotation.Counted}.
+   *
+   * @param meterRegistry the {@link MeterRegistry} to record counters in
+   * @return a {@link CountedAspect}
+   */
+  @Bean
+  public CountedAspect countedAspect(MeterRegistry meterRegistry) {
+    return new CountedAspect(meterRegistry);
+  }
+}
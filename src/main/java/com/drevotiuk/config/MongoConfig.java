@@ -0,0 +1,31 @@
+package com.drevotiuk.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Configuration class for MongoDB-specific beans.
+ * Enables multi-document transactions, which require MongoDB to run as a
+ * replica set.
+ */
+@Configuration
+public class MongoConfig {
+
+  /**
+   * Creates a {@link MongoTransactionManager} so that methods annotated with
+   * {@link org.springframework.transaction.annotation.Transactional} write
+   * orders and their outbox messages atomically. It is the primary transaction
+   * manager, as the reactive profile adds a reactive one.
+   *
+   * @param databaseFactory the {@link MongoDatabaseFactory} to bind sessions to
+   * @return a {@link MongoTransactionManager}
+   */
+  @Bean
+  @Primary
+  public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+    return new MongoTransactionManager(databaseFactory);
+  }
+}
@@ -0,0 +1,164 @@
+package com.drevotiuk.config;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the indexes declared on MongoDB documents at startup and verifies
+ * that every repository query method is backed by an index.
+ * Index creation is idempotent, so it is safe to run on every start of every
+ * instance.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexInitializer {
+  private static final Pattern PLACEHOLDER = Pattern.compile("\\?\\d+");
+
+  @Value("${order.indexes.verification}")
+  private Verification verification;
+
+  private final ApplicationContext applicationContext;
+  private final MongoTemplate mongoTemplate;
+  private final MongoMappingContext mappingContext;
+
+  /**
+   * How to react to repository query methods that would run without an index.
+   */
+  public enum Verification {
+    /** Query methods are not verified. */
+    NONE,
+
+    /** Unindexed query methods are logged. */
+    WARN,
+
+    /** Unindexed query methods fail the application startup. */
+    FAIL
+  }
+
+  /**
+   * Ensures the indexes of all documents and verifies the query methods of all
+   * repositories once the application context is ready.
+   *
+   * @throws IllegalStateException if verification is set to
+   *                               {@link Verification#FAIL} and a query method
+   *                               is not backed by an index
+   */
+  @EventListener(ContextRefreshedEvent.class)
+  public void initIndexes() {
+    IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+    for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+      if (!entity.isAnnotationPresent(Document.class))
+        continue;
+
+      IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+      resolver.resolveIndexFor(entity.getType()).forEach(index -> {
+        log.info("Ensuring index {} on collection {}", index.getIndexKeys(), entity.getCollection());
+        indexOps.ensureIndex(index);
+      });
+    }
+
+    if (verification != Verification.NONE)
+      verifyQueryMethods();
+  }
+
+  /**
+   * Verifies that the query methods of all repositories are backed by an
+   * index.
+   */
+  private void verifyQueryMethods() {
+    Repositories repositories = new Repositories(applicationContext);
+    List<String> unindexed = new ArrayList<>();
+    for (Class<?> domainType : repositories) {
+      RepositoryInformation information = repositories.getRepositoryInformationFor(domainType).orElse(null);
+      if (information == null)
+        continue;
+
+      List<IndexInfo> indexes = mongoTemplate.indexOps(domainType).getIndexInfo();
+      information.getQueryMethods()
+          .filter(method -> !isIndexed(domainType, method, indexes))
+          .forEach(method -> unindexed.add(information.getRepositoryInterface().getSimpleName()
+              + "." + method.getName()));
+    }
+
+    if (unindexed.isEmpty())
+      return;
+
+    if (verification == Verification.FAIL)
+      throw new IllegalStateException("Query methods would run without an index: " + unindexed);
+
+    log.warn("Query methods would run without an index: {}", unindexed);
+  }
+
+  /**
+   * Checks whether a query method filters on the leading field of at least
+   * one index. The filter fields are taken from the top level of a declared
+   * {@link Query}, or derived from the method name otherwise. Methods without
+   * any criteria, which scan the whole collection by design, are considered
+   * indexed.
+   *
+   * @param domainType the document type the method queries
+   * @param method     the repository query method
+   * @param indexes    the existing indexes of the document's collection
+   * @return {@code true} if the method can use an index
+   */
+  boolean isIndexed(Class<?> domainType, Method method, List<IndexInfo> indexes) {
+    List<String> fields = new ArrayList<>();
+    Query query = method.getAnnotation(Query.class);
+    if (query != null) {
+      org.bson.Document filter = org.bson.Document.parse(PLACEHOLDER.matcher(query.value()).replaceAll("null"));
+      filter.keySet().stream()
+          .filter(key -> !key.startsWith("$"))
+          .forEach(fields::add);
+    } else {
+      PartTree tree = new PartTree(method.getName(), domainType);
+      for (Part part : tree.getParts())
+        fields.add(toFieldName(domainType, part.getProperty()));
+    }
+
+    if (fields.isEmpty())
+      return true;
+
+    return indexes.stream()
+        .map(index -> index.getIndexFields().get(0).getKey())
+        .anyMatch(fields::contains);
+  }
+
+  /**
+   * Resolves the name of the document field a property path points to.
+   *
+   * @param domainType the document type
+   * @param path       the property path
+   * @return the name of the field as stored in MongoDB
+   */
+  private String toFieldName(Class<?> domainType, PropertyPath path) {
+    return mappingContext.getPersistentPropertyPath(path.toDotPath(), domainType)
+        .toDotPath(MongoPersistentProperty::getFieldName);
+  }
+}
@@ -0,0 +1,75 @@
+package com.drevotiuk.config;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.amqp.RabbitMetrics;
+import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Configuration class for price quote requests to the product service.
+ * Quote requests are sent over their own connection, so that they neither
+ * contend for channels with outbox publishing and listeners nor go through
+ * publisher confirms. Replies are received through direct reply-to by a pool
+ * of reply consumers on the same connection.
+ * The connection is deliberately not exposed as a
+ * {@link org.springframework.amqp.rabbit.connection.ConnectionFactory} bean,
+ * which would replace the auto-configured one.
+ */
+@Configuration
+public class QuoteRpcConfig {
+  private CachingConnectionFactory quoteConnectionFactory;
+
+  /**
+   * Creates the {@link RabbitTemplate} used for price quote requests. It
+   * connects to the broker configured under {@code spring.rabbitmq}, caches up
+   * to the given number of channels, and waits at most the given time for each
+   * reply.
+   *
+   * @param properties       the {@link RabbitProperties} of the broker
+   * @param messageConverter the {@link MessageConverter} of the application
+   * @param meterRegistry    the {@link MeterRegistry} to publish connection
+   *                         metrics to
+   * @param channelCacheSize the number of channels kept open for requests
+   * @param replyTimeout     the time to wait for each reply in milliseconds
+   * @return a {@link RabbitTemplate} for price quote requests
+   */
+  @Bean
+  public RabbitTemplate quoteRabbitTemplate(RabbitProperties properties, MessageConverter messageConverter,
+      MeterRegistry meterRegistry,
+      @Value("${order.quote.rpc.channel-cache-size}") int channelCacheSize,
+      @Value("${order.quote.rpc.reply-timeout}") long replyTimeout) {
+    quoteConnectionFactory = new CachingConnectionFactory();
+    quoteConnectionFactory.setAddresses(properties.determineAddresses());
+    quoteConnectionFactory.setUsername(properties.determineUsername());
+    quoteConnectionFactory.setPassword(properties.determinePassword());
+    quoteConnectionFactory.setVirtualHost(properties.determineVirtualHost());
+    quoteConnectionFactory.setChannelCacheSize(channelCacheSize);
+    quoteConnectionFactory.setConnectionNameStrategy(connectionFactory -> "order-service-quote-rpc");
+    new RabbitMetrics(quoteConnectionFactory.getRabbitConnectionFactory(), Tags.of("name", "quoteRpc"))
+        .bindTo(meterRegistry);
+
+    RabbitTemplate rabbitTemplate = new RabbitTemplate(quoteConnectionFactory);
+    rabbitTemplate.setMessageConverter(messageConverter);
+    rabbitTemplate.setUseDirectReplyToContainer(true);
+    rabbitTemplate.setReplyTimeout(replyTimeout);
+    return rabbitTemplate;
+  }
+
+  /**
+   * Closes the connection used for price quote requests.
+   */
+  @PreDestroy
+  public void closeQuoteConnection() {
+    if (quoteConnectionFactory != null)
+      quoteConnectionFactory.destroy();
+  }
+}
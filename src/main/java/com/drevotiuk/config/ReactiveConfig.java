@@ -0,0 +1,76 @@
+package com.drevotiuk.config;
+
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Configuration class for the reactive order API, active with the
+ * {@code reactive} profile.
+ * Serves requests from Netty event loops, sends price quote requests without
+ * blocking for replies, and runs reactive MongoDB transactions.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+  /**
+   * Creates the Netty server factory, so that the reactive API runs on Netty
+   * even though Tomcat is on the classpath for the servlet stack.
+   *
+   * @return a {@link NettyReactiveWebServerFactory}
+   */
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  /**
+   * Creates an {@link AsyncRabbitTemplate} that completes price quote requests
+   * when their replies arrive on the direct reply-to queue.
+   *
+   * @param rabbitTemplate the {@link RabbitTemplate} for price quote requests
+   *                       to send requests with
+   * @param quoteDeadline  the time to wait for a reply in milliseconds
+   * @return an {@link AsyncRabbitTemplate}
+   */
+  @Bean
+  public AsyncRabbitTemplate asyncRabbitTemplate(@Qualifier("quoteRabbitTemplate") RabbitTemplate rabbitTemplate,
+      @Value("${order.quote.deadline}") long quoteDeadline) {
+    AsyncRabbitTemplate asyncRabbitTemplate = new AsyncRabbitTemplate(rabbitTemplate);
+    asyncRabbitTemplate.setReceiveTimeout(quoteDeadline);
+    return asyncRabbitTemplate;
+  }
+
+  /**
+   * Creates the transaction manager for reactive MongoDB transactions.
+   *
+   * @param databaseFactory the {@link ReactiveMongoDatabaseFactory} to bind
+   *                        sessions to
+   * @return a {@link ReactiveMongoTransactionManager}
+   */
+  @Bean
+  public ReactiveMongoTransactionManager reactiveTransactionManager(ReactiveMongoDatabaseFactory databaseFactory) {
+    return new ReactiveMongoTransactionManager(databaseFactory);
+  }
+
+  /**
+   * Creates the operator that runs reactive pipelines in a MongoDB
+   * transaction.
+   *
+   * @param reactiveTransactionManager the reactive transaction manager
+   * @return a {@link TransactionalOperator}
+   */
+  @Bean
+  public TransactionalOperator transactionalOperator(ReactiveMongoTransactionManager reactiveTransactionManager) {
+    return TransactionalOperator.create(reactiveTransactionManager);
+  }
+}
@@ -0,0 +1,66 @@
+package com.drevotiuk.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration class that runs blocking work on virtual threads when
+ * {@code order.virtual-threads.enabled} is set.
+ * Tomcat handles each request on a new virtual thread and price quote requests
+ * in parallel mode are sent from virtual threads, so requests blocked on
+ * MongoDB or on RabbitMQ replies no longer hold on to platform threads.
+ * Requires a Java runtime with virtual threads (Java 21 or newer).
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.virtual-threads.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+  /**
+   * Replaces Tomcat's request thread pool with a virtual thread per request.
+   *
+   * @return a {@link TomcatProtocolHandlerCustomizer} setting the executor
+   */
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    log.info("Handling requests on virtual threads");
+    return protocolHandler -> protocolHandler.setExecutor(executor);
+  }
+
+  /**
+   * Sends price quote requests from virtual threads instead of the bounded
+   * platform thread pool.
+   *
+   * @return the executor used for parallel price quoting
+   */
+  @Bean
+  public ExecutorService quoteExecutor() {
+    return newVirtualThreadPerTaskExecutor();
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for each task. The
+   * factory method is looked up reflectively, so that the service still
+   * compiles for and runs on older Java versions with the mode disabled.
+   *
+   * @return a virtual thread per task {@link ExecutorService}
+   * @throws IllegalStateException if the Java runtime does not support virtual
+   *                               threads
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      throw new IllegalStateException("Virtual threads are not supported by Java " + Runtime.version(), e);
+    }
+  }
+}
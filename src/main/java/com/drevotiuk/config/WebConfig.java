@@ -0,0 +1,39 @@
+package com.drevotiuk.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration class for Spring MVC.
+ * Configures the executor of the order export, which is used by the export
+ * endpoint only; other asynchronous requests keep the default executor and
+ * timeout.
+ */
+@Configuration
+@Profile("!reactive")
+public class WebConfig {
+  @Value("${order.export.pool-size}")
+  private int exportPoolSize;
+  @Value("${order.export.queue-capacity}")
+  private int exportQueueCapacity;
+
+  /**
+   * Creates the executor that writes order exports, so that long exports do
+   * not hold on to request threads. Its queue is bounded; exports it rejects
+   * are answered with 503 Service Unavailable.
+   *
+   * @return a {@link ThreadPoolTaskExecutor} for order exports
+   */
+  @Bean
+  public ThreadPoolTaskExecutor exportExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(exportPoolSize);
+    executor.setMaxPoolSize(exportPoolSize);
+    executor.setQueueCapacity(exportQueueCapacity);
+    executor.setThreadNamePrefix("export-");
+    return executor;
+  }
+}
@@ -1,16 +1,22 @@
 package com.drevotiuk.controller;
 
+import com.drevotiuk.model.BulkOrderResult;
 import com.drevotiuk.model.OrderItem;
 import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.UserOrders;
 import com.drevotiuk.service.OrderService;
+import com.drevotiuk.service.OrderService.CheckoutMode;
 
 import lombok.RequiredArgsConstructor;
 
+import java.net.URI;
 import java.util.List;
 
 import javax.validation.Valid;
 
 import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -19,7 +25,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import static org.springframework.util.Assert.isTrue;
 import static org.springframework.util.Assert.notNull;
 
 /**
@@ -30,26 +39,40 @@ import static org.springframework.util.Assert.notNull;
  * request header.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/${api.version}/orders")
 @RequiredArgsConstructor
 public class OrderController {
+  @Value("${order.checkout.mode}")
+  private CheckoutMode checkoutMode;
+
   private final OrderService service;
 
   /**
    * Retrieves all orders for the user specified by the {@code userId} in the
    * request header.
    *
-   * @param userId the ID of the user whose orders are to be retrieved, passed in
-   *               the request header
+   * The response carries an {@code ETag} of the order list; a request whose
+   * {@code If-None-Match} header matches it is answered with
+   * {@code 304 Not Modified} and no body.
+   *
+   * @param userId  the ID of the user whose orders are to be retrieved, passed
+   *                in the request header
+   * @param request the current request, used to check {@code If-None-Match}
    * @return a {@link ResponseEntity} containing a list of {@link OrderView}
-   *         objects representing the user's orders
+   *         objects representing the user's orders, or {@code null} if the
+   *         list has not been modified
    * @throws IllegalArgumentException if {@code userId} is not provided
    */
   @GetMapping
-  public ResponseEntity<List<OrderView>> findAll(@RequestHeader("${security.header.id}") ObjectId userId) {
+  public ResponseEntity<List<OrderView>> findAll(@RequestHeader("${security.header.id}") ObjectId userId,
+      WebRequest request) {
     notNull(userId, "No userID provided");
-    List<OrderView> allOrders = service.findAll(userId);
-    return ResponseEntity.ok(allOrders);
+    UserOrders allOrders = service.findAll(userId);
+    if (request.checkNotModified(allOrders.getEtag()))
+      return null;
+
+    return ResponseEntity.ok().eTag(allOrders.getEtag()).body(allOrders.getOrders());
   }
 
   /**
@@ -74,18 +97,57 @@ public class OrderController {
   /**
    * Creates a new order for the user specified by the {@code userId}, using the
    * provided list of {@link OrderItem}s.
+   * In asynchronous checkout mode, the order is only accepted and the response
+   * is {@code 202 Accepted} without a body, with the URL to poll the status of
+   * the order in the {@code Location} header.
    *
-   * @param orderItems the list of {@link OrderItem} objects to create the order
-   * @param userId     the ID of the user, passed in the request header
+   * @param orderItems     the list of {@link OrderItem} objects to create the
+   *                       order
+   * @param userId         the ID of the user, passed in the request header
+   * @param idempotencyKey the optional key, passed in the
+   *                       {@code Idempotency-Key} header, under which retries
+   *                       of the request return the same order
    * @return a {@link ResponseEntity} containing the created {@link OrderView}
-   *         object
-   * @throws IllegalArgumentException if {@code userId} is not provided
+   *         object, or the location of the accepted order
+   * @throws IllegalArgumentException if {@code userId} is not provided, or the
+   *                                  idempotency key is too long
    */
   @PostMapping
   public ResponseEntity<OrderView> create(@Valid @RequestBody List<OrderItem> orderItems,
-      @RequestHeader("${security.header.id}") ObjectId userId) {
+      @RequestHeader("${security.header.id}") ObjectId userId,
+      @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
     notNull(userId, "No userID provided");
-    OrderView createdOrder = service.create(orderItems, userId);
+    isTrue(idempotencyKey == null || idempotencyKey.length() <= 255, "Idempotency key is too long");
+    if (checkoutMode == CheckoutMode.ASYNC) {
+      ObjectId orderId = service.submit(orderItems, userId, idempotencyKey);
+      URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+          .path("/{orderId}")
+          .buildAndExpand(orderId.toHexString())
+          .toUri();
+      return ResponseEntity.accepted().location(location).build();
+    }
+
+    OrderView createdOrder = service.create(orderItems, userId, idempotencyKey);
     return ResponseEntity.ok(createdOrder);
   }
+
+  /**
+   * Creates many orders at once for the user specified by the {@code userId}.
+   * Each order is reported individually, so invalid orders do not fail the
+   * others.
+   *
+   * @param orders the list of orders, each a list of {@link OrderItem} objects
+   * @param userId the ID of the user, passed in the request header
+   * @return a {@link ResponseEntity} containing a {@link BulkOrderResult} for
+   *         every order, in the order of the request
+   * @throws IllegalArgumentException if {@code userId} is not provided, or
+   *                                  there are more orders than allowed
+   */
+  @PostMapping("/bulk")
+  public ResponseEntity<List<BulkOrderResult>> createAll(@Valid @RequestBody List<List<OrderItem>> orders,
+      @RequestHeader("${security.header.id}") ObjectId userId) {
+    notNull(userId, "No userID provided");
+    List<BulkOrderResult> results = service.createAll(orders, userId);
+    return ResponseEntity.ok(results);
+  }
 }
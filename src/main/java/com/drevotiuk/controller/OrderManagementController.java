@@ -1,18 +1,40 @@
 package com.drevotiuk.controller;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import com.drevotiuk.model.BulkDeleteResult;
+import com.drevotiuk.model.BulkStatusUpdateResult;
+import com.drevotiuk.model.DailyRevenue;
+import com.drevotiuk.model.OrderPage;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderStatusSummary;
+import com.drevotiuk.model.OrderStatusUpdate;
 import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.ProductSales;
 import com.drevotiuk.service.OrderManagementService;
 
 import lombok.RequiredArgsConstructor;
@@ -22,29 +44,41 @@ import static org.springframework.util.Assert.isTrue;
 /**
  * REST controller for managing orders through administrative actions.
  * Provides endpoints to retrieve all orders, retrieve specific orders,
- * retrieve all orders of a specific user, and delete orders.
+ * retrieve all orders of a specific user, aggregate order analytics, move
+ * orders through their statuses, and delete orders.
  * Access to these endpoints is restricted to users with the "ADMIN" role.
  */
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/${api.version}/management/orders")
 @RequiredArgsConstructor
 public class OrderManagementController {
+  @Value("${order.export.timeout}")
+  private long exportTimeout;
+
   private final OrderManagementService managementService;
+  @Qualifier("exportExecutor")
+  private final AsyncTaskExecutor exportExecutor;
 
   /**
-   * Retrieves all orders.
+   * Retrieves a page of orders, newest first.
    * Access is restricted to users with the "ADMIN" role.
    *
-   * @param role the role of the user, retrieved from the request header
-   * @return a {@link ResponseEntity} containing a list of {@link OrderView}
-   *         objects
-   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   * @param cursor the continuation token of the previous page, if any
+   * @param size   the requested page size, capped at the configured maximum
+   * @param role   the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing an {@link OrderPage} of
+   *         {@link OrderView} objects
+   * @throws IllegalArgumentException if {@code role} is not provided or
+   *                                  invalid, or the cursor is malformed
    */
   @GetMapping
-  public ResponseEntity<List<OrderView>> findAll(@RequestHeader("${security.header.role}") String role) {
+  public ResponseEntity<OrderPage> findAll(@RequestParam(name = "cursor", required = false) String cursor,
+      @RequestParam(name = "size", defaultValue = "${order.pagination.default-size}") int size,
+      @RequestHeader("${security.header.role}") String role) {
     isTrue("ADMIN".equals(role), "Access denied");
-    List<OrderView> allOrders = managementService.findAll();
-    return ResponseEntity.ok(allOrders);
+    OrderPage page = managementService.findAll(cursor, size);
+    return ResponseEntity.ok(page);
   }
 
   /**
@@ -66,21 +100,125 @@ public class OrderManagementController {
   }
 
   /**
-   * Retrieves all orders for a specific user.
+   * Retrieves a page of orders of a specific user, newest first.
    * Access is restricted to users with the "ADMIN" role.
    *
    * @param userId the ID of the user whose orders are to be retrieved
+   * @param cursor the continuation token of the previous page, if any
+   * @param size   the requested page size, capped at the configured maximum
    * @param role   the role of the user, retrieved from the request header
-   * @return a {@link ResponseEntity} containing a list of {@link OrderView}
-   *         objects for the user
-   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   * @return a {@link ResponseEntity} containing an {@link OrderPage} of
+   *         {@link OrderView} objects for the user
+   * @throws IllegalArgumentException if {@code role} is not provided or
+   *                                  invalid, or the cursor is malformed
    */
   @GetMapping(params = "user")
-  public ResponseEntity<List<OrderView>> findAllOfUser(@RequestParam("user") ObjectId userId,
+  public ResponseEntity<OrderPage> findAllOfUser(@RequestParam("user") ObjectId userId,
+      @RequestParam(name = "cursor", required = false) String cursor,
+      @RequestParam(name = "size", defaultValue = "${order.pagination.default-size}") int size,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    OrderPage page = managementService.findAllOfUser(userId, cursor, size);
+    return ResponseEntity.ok(page);
+  }
+
+  /**
+   * Exports all orders as newline-delimited JSON, streamed directly from the
+   * database without collecting them in memory.
+   * The export is written by the export executor with the export timeout; if
+   * the executor is saturated, the request is rejected with 503 Service
+   * Unavailable.
+   * Access is restricted to users with the "ADMIN" role.
+   *
+   * @param role     the role of the user, retrieved from the request header
+   * @param response the response to stream one order per line to
+   * @return a {@link WebAsyncTask} writing the export
+   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public WebAsyncTask<Void> export(@RequestHeader("${security.header.role}") String role,
+      HttpServletResponse response) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    return new WebAsyncTask<>(exportTimeout, exportExecutor, () -> {
+      managementService.exportAll(response.getOutputStream());
+      return null;
+    });
+  }
+
+  /**
+   * Retrieves the number of orders and their revenue by status for a period.
+   * Access is restricted to users with the "ADMIN" role.
+   *
+   * @param from the start of the period, inclusive; defaults to the configured
+   *             number of days before its end
+   * @param to   the end of the period, exclusive; defaults to now
+   * @param role the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing a list of
+   *         {@link OrderStatusSummary} objects
+   * @throws IllegalArgumentException if {@code role} is not provided or
+   *                                  invalid, or the period is empty
+   */
+  @GetMapping("/analytics/status")
+  public ResponseEntity<List<OrderStatusSummary>> summarizeByStatus(
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    List<OrderStatusSummary> summaries = managementService.summarizeByStatus(from, to);
+    return ResponseEntity.ok(summaries);
+  }
+
+  /**
+   * Retrieves the number of orders and their revenue per day for a period.
+   * Only orders that hold stock are counted.
+   * Access is restricted to users with the "ADMIN" role.
+   *
+   * @param from the start of the period, inclusive; defaults to the configured
+   *             number of days before its end
+   * @param to   the end of the period, exclusive; defaults to now
+   * @param role the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing a list of {@link DailyRevenue}
+   *         objects, oldest day first
+   * @throws IllegalArgumentException if {@code role} is not provided or
+   *                                  invalid, or the period is empty
+   */
+  @GetMapping("/analytics/revenue")
+  public ResponseEntity<List<DailyRevenue>> findRevenuePerDay(
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
       @RequestHeader("${security.header.role}") String role) {
     isTrue("ADMIN".equals(role), "Access denied");
-    List<OrderView> orders = managementService.findAllOfUser(userId);
-    return ResponseEntity.ok(orders);
+    List<DailyRevenue> revenue = managementService.findRevenuePerDay(from, to);
+    return ResponseEntity.ok(revenue);
+  }
+
+  /**
+   * Retrieves the products ordered in the largest quantities for a period.
+   * Only orders that hold stock are counted.
+   * Access is restricted to users with the "ADMIN" role.
+   *
+   * @param from  the start of the period, inclusive; defaults to the
+   *              configured number of days before its end
+   * @param to    the end of the period, exclusive; defaults to now
+   * @param limit the requested number of products, capped at the configured
+   *              maximum
+   * @param role  the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing a list of
+   *         {@link ProductSales} objects, largest quantity first
+   * @throws IllegalArgumentException if {@code role} is not provided or
+   *                                  invalid, the period is empty, or the
+   *                                  limit is not positive
+   */
+  @GetMapping("/analytics/top-products")
+  public ResponseEntity<List<ProductSales>> findTopProducts(
+      @RequestParam(name = "from", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(name = "to", required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(name = "limit", defaultValue = "10") int limit,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    List<ProductSales> products = managementService.findTopProducts(from, to, limit);
+    return ResponseEntity.ok(products);
   }
 
   /**
@@ -100,4 +238,64 @@ public class OrderManagementController {
     managementService.delete(orderId);
     return ResponseEntity.noContent().build();
   }
+
+  /**
+   * Deletes many orders at once. Orders that are not found or have been
+   * delivered are skipped and reported instead of failing the request.
+   * Access is restricted to users with the "ADMIN" role.
+   *
+   * @param orderIds the IDs of the orders to delete
+   * @param role     the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing the {@link BulkDeleteResult}
+   * @throws IllegalArgumentException if {@code role} is not provided or
+   *                                  invalid, or there are more orders than
+   *                                  allowed
+   */
+  @PostMapping("/bulk-delete")
+  public ResponseEntity<BulkDeleteResult> deleteAll(@RequestBody List<ObjectId> orderIds,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    BulkDeleteResult result = managementService.deleteAll(orderIds);
+    return ResponseEntity.ok(result);
+  }
+
+  /**
+   * Moves an order to the next status. An order can only be shipped once
+   * ordered and delivered once shipped.
+   * Access is restricted to users with the "ADMIN" role.
+   *
+   * @param orderId the ID of the order
+   * @param status  the status to move the order to
+   * @param role    the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing the {@link OrderView} of the
+   *         updated order
+   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   */
+  @PutMapping("/{orderId}/status")
+  public ResponseEntity<OrderView> updateStatus(@PathVariable ObjectId orderId,
+      @RequestParam("status") OrderStatus status,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    OrderView order = managementService.updateStatus(orderId, status);
+    return ResponseEntity.ok(order);
+  }
+
+  /**
+   * Applies many status updates at once, as sent by carrier feeds. Updates
+   * that do not apply to the current status of an order are skipped.
+   * Access is restricted to users with the "ADMIN" role.
+   *
+   * @param updates the list of {@link OrderStatusUpdate}
+   * @param role    the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing the
+   *         {@link BulkStatusUpdateResult}
+   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   */
+  @PostMapping("/status")
+  public ResponseEntity<BulkStatusUpdateResult> updateStatuses(@RequestBody List<OrderStatusUpdate> updates,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    BulkStatusUpdateResult result = managementService.updateStatuses(updates);
+    return ResponseEntity.ok(result);
+  }
 }
@@ -0,0 +1,98 @@
+package com.drevotiuk.controller;
+
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.service.ReactiveOrderService;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import javax.validation.Valid;
+
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.util.Assert.isTrue;
+import static org.springframework.util.Assert.notNull;
+
+/**
+ * Reactive counterpart of {@link OrderController}, active with the
+ * {@code reactive} profile.
+ * Serves the same endpoints for user orders without blocking the event loop.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/${api.version}/orders")
+@RequiredArgsConstructor
+public class ReactiveOrderController {
+  private final ReactiveOrderService service;
+
+  /**
+   * Retrieves all orders for the user specified by the {@code userId} in the
+   * request header.
+   *
+   * @param userId the ID of the user whose orders are to be retrieved, passed in
+   *               the request header
+   * @return a {@link ResponseEntity} containing a {@link Flux} of
+   *         {@link OrderView} objects representing the user's orders
+   * @throws IllegalArgumentException if {@code userId} is not provided
+   */
+  @GetMapping
+  public ResponseEntity<Flux<OrderView>> findAll(@RequestHeader("${security.header.id}") ObjectId userId) {
+    notNull(userId, "No userID provided");
+    return ResponseEntity.ok(service.findAll(userId));
+  }
+
+  /**
+   * Retrieves a specific order by its ID, ensuring it belongs to the user
+   * specified by the {@code userId}.
+   *
+   * @param orderId the ID of the order to retrieve
+   * @param userId  the ID of the user, passed in the request header, to ensure
+   *                the order belongs to the user
+   * @return a {@link ResponseEntity} containing the {@link OrderView} of the
+   *         specified order
+   * @throws IllegalArgumentException if {@code userId} is not provided
+   */
+  @GetMapping("/{orderId}")
+  public Mono<ResponseEntity<OrderView>> find(@PathVariable ObjectId orderId,
+      @RequestHeader("${security.header.id}") ObjectId userId) {
+    notNull(userId, "No userID provided");
+    return service.find(orderId, userId).map(ResponseEntity::ok);
+  }
+
+  /**
+   * Creates a new order for the user specified by the {@code userId}, using the
+   * provided list of {@link OrderItem}s.
+   *
+   * @param orderItems     the list of {@link OrderItem} objects to create the
+   *                       order
+   * @param userId         the ID of the user, passed in the request header
+   * @param idempotencyKey the optional key, passed in the
+   *                       {@code Idempotency-Key} header, under which retries
+   *                       of the request return the same order
+   * @return a {@link ResponseEntity} containing the created {@link OrderView}
+   *         object
+   * @throws IllegalArgumentException if {@code userId} is not provided, or the
+   *                                  idempotency key is too long
+   */
+  @PostMapping
+  public Mono<ResponseEntity<OrderView>> create(@Valid @RequestBody List<OrderItem> orderItems,
+      @RequestHeader("${security.header.id}") ObjectId userId,
+      @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+    notNull(userId, "No userID provided");
+    isTrue(idempotencyKey == null || idempotencyKey.length() <= 255, "Idempotency key is too long");
+    return service.create(orderItems, userId, idempotencyKey).map(ResponseEntity::ok);
+  }
+}
@@ -0,0 +1,118 @@
+package com.drevotiuk.controller;
+
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderPage;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.service.ReactiveOrderManagementService;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Reactive counterpart of {@link OrderManagementController}, active with the
+ * {@code reactive} profile.
+ * Access to these endpoints is restricted to users with the "ADMIN" role.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/${api.version}/management/orders")
+@RequiredArgsConstructor
+public class ReactiveOrderManagementController {
+  private final ReactiveOrderManagementService managementService;
+
+  /**
+   * Retrieves a page of orders, newest first.
+   *
+   * @param cursor the continuation token of the previous page, if any
+   * @param size   the requested page size, capped at the configured maximum
+   * @param role   the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing an {@link OrderPage} of
+   *         {@link OrderView} objects
+   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   */
+  @GetMapping
+  public Mono<ResponseEntity<OrderPage>> findAll(@RequestParam(name = "cursor", required = false) String cursor,
+      @RequestParam(name = "size", defaultValue = "${order.pagination.default-size}") int size,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    return managementService.findAll(cursor, size).map(ResponseEntity::ok);
+  }
+
+  /**
+   * Retrieves a specific order by its ID.
+   *
+   * @param orderId the ID of the order to retrieve
+   * @param role    the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing the {@link OrderView} of the
+   *         specified order
+   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   */
+  @GetMapping("/{orderId}")
+  public Mono<ResponseEntity<OrderView>> find(@PathVariable ObjectId orderId,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    return managementService.find(orderId).map(ResponseEntity::ok);
+  }
+
+  /**
+   * Retrieves a page of orders of a specific user, newest first.
+   *
+   * @param userId the ID of the user whose orders are to be retrieved
+   * @param cursor the continuation token of the previous page, if any
+   * @param size   the requested page size, capped at the configured maximum
+   * @param role   the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} containing an {@link OrderPage} of
+   *         {@link OrderView} objects for the user
+   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   */
+  @GetMapping(params = "user")
+  public Mono<ResponseEntity<OrderPage>> findAllOfUser(@RequestParam("user") ObjectId userId,
+      @RequestParam(name = "cursor", required = false) String cursor,
+      @RequestParam(name = "size", defaultValue = "${order.pagination.default-size}") int size,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    return managementService.findAllOfUser(userId, cursor, size).map(ResponseEntity::ok);
+  }
+
+  /**
+   * Exports all orders as newline-delimited JSON, streamed with backpressure
+   * from the database cursor.
+   *
+   * @param role the role of the user, retrieved from the request header
+   * @return a {@link Flux} of all {@link Order} objects, one per line
+   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<Order> export(@RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    return managementService.exportAll();
+  }
+
+  /**
+   * Deletes an order by its ID.
+   *
+   * @param orderId the ID of the order to delete
+   * @param role    the role of the user, retrieved from the request header
+   * @return a {@link ResponseEntity} with no content
+   * @throws IllegalArgumentException if {@code role} is not provided or invalid
+   */
+  @DeleteMapping("/{orderId}")
+  public Mono<ResponseEntity<Void>> delete(@PathVariable ObjectId orderId,
+      @RequestHeader("${security.header.role}") String role) {
+    isTrue("ADMIN".equals(role), "Access denied");
+    return managementService.delete(orderId).thenReturn(ResponseEntity.noContent().build());
+  }
+}
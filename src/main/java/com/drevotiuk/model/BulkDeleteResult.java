@@ -0,0 +1,26 @@
+package com.drevotiuk.model;
+
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of a bulk order deletion, telling the deleted orders from the
+ * ones that were not found or had already been delivered.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class BulkDeleteResult {
+  /** The IDs of the deleted orders. */
+  private List<ObjectId> deleted;
+
+  /** The IDs of the orders that were not found or have been delivered. */
+  private List<ObjectId> skipped;
+}
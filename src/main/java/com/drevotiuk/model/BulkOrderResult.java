@@ -0,0 +1,33 @@
+package com.drevotiuk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of a single order of a bulk order request. Either the created
+ * order or the reason why it was rejected is present.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class BulkOrderResult {
+  /** The position of the order in the bulk request. */
+  private int index;
+
+  /** The created order; null if the order was rejected. */
+  private OrderView order;
+
+  /** The reason why the order was rejected; null if it was created. */
+  private String error;
+
+  public static BulkOrderResult created(int index, OrderView order) {
+    return new BulkOrderResult(index, order, null);
+  }
+
+  public static BulkOrderResult rejected(int index, String error) {
+    return new BulkOrderResult(index, null, error);
+  }
+}
@@ -0,0 +1,21 @@
+package com.drevotiuk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of a bulk order status update.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class BulkStatusUpdateResult {
+  /** The number of requested status updates. */
+  private int requested;
+
+  /** The number of orders moved to the requested status. */
+  private long updated;
+}
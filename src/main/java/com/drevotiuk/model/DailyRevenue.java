@@ -0,0 +1,28 @@
+package com.drevotiuk.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The number of orders placed on a day and their revenue.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class DailyRevenue {
+  /** The day, as an ISO-8601 date in UTC. */
+  private String day;
+
+  /** The number of orders placed on the day. */
+  private long orders;
+
+  /** The sum of the total prices of the orders. */
+  private BigDecimal revenue;
+}
@@ -0,0 +1,45 @@
+package com.drevotiuk.model;
+
+import java.time.Instant;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents an order creation request made with an idempotency key. This
+ * class is mapped to the "idempotency_keys" collection in MongoDB.
+ * The record is identified by the user ID and the key, so the unique
+ * {@code _id} index allows a single order per key and user. Records expire 24
+ * hours after they were created.
+ */
+@Document("idempotency_keys")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class IdempotencyRecord {
+  /** The user ID and the idempotency key, joined by a colon. */
+  @Id
+  private String id;
+
+  /** The fingerprint of the order items of the original request. */
+  private String fingerprint;
+
+  /** The ID of the created order; null while the order is being created. */
+  private ObjectId orderId;
+
+  /** The response of the original request; null while it is in progress. */
+  private OrderView response;
+
+  /** The time the request was last reserved for processing. */
+  private Instant reservedAt;
+
+  /** The time the record was created. */
+  @Indexed(expireAfterSeconds = 86400)
+  private Instant createdAt;
+}
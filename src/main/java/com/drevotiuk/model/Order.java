@@ -6,6 +6,8 @@ import java.util.List;
 
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -19,8 +21,15 @@ import lombok.NoArgsConstructor;
  * It contains details about the order, such as its status, the user who placed
  * the order,the items in the order, the total price, and the time the order was
  * placed.
+ * Indexes support the per-user listing, the keyset pagination order and
+ * lookups by status.
  */
 @Document("orders")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_order_time", def = "{'userId': 1, 'orderTime': -1, '_id': -1}"),
+    @CompoundIndex(name = "order_time", def = "{'orderTime': -1, '_id': -1}"),
+    @CompoundIndex(name = "status_order_time", def = "{'status': 1, 'orderTime': 1}")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
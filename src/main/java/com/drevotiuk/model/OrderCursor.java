@@ -0,0 +1,75 @@
+package com.drevotiuk.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import org.bson.types.ObjectId;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Represents the position of the last order of a page in the keyset order
+ * used for pagination: order time descending, then ID descending.
+ * Clients receive it as an opaque continuation token.
+ */
+@AllArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class OrderCursor {
+  private static final String SEPARATOR = "|";
+
+  /** The time when the last order of the page was placed. */
+  private final LocalDateTime orderTime;
+
+  /** The ID of the last order of the page. */
+  private final ObjectId id;
+
+  /**
+   * Creates a cursor positioned at the given order.
+   *
+   * @param order the last {@link Order} of a page
+   * @return the {@link OrderCursor} positioned at the order
+   */
+  public static OrderCursor of(Order order) {
+    return new OrderCursor(order.getOrderTime(), order.getId());
+  }
+
+  /**
+   * Encodes this cursor as an opaque, URL-safe continuation token.
+   *
+   * @return the continuation token
+   */
+  public String encode() {
+    String raw = orderTime + SEPARATOR + id.toHexString();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a continuation token produced by {@link #encode()}.
+   *
+   * @param token the continuation token, may be {@code null}
+   * @return the decoded {@link OrderCursor}, or {@code null} if no token was
+   *         given
+   * @throws IllegalArgumentException if the token is malformed
+   */
+  public static OrderCursor decode(String token) {
+    if (token == null || token.isEmpty())
+      return null;
+
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = raw.indexOf(SEPARATOR);
+      return new OrderCursor(
+          LocalDateTime.parse(raw.substring(0, separator)),
+          new ObjectId(raw.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Invalid continuation token", e);
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.drevotiuk.model;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Projection of an {@link Order} that carries only what is needed for
+ * ownership checks: the order ID and the ID of the user who placed it.
+ */
+public interface OrderOwner {
+  /** The unique identifier for the order. */
+  ObjectId getId();
+
+  /** The ID of the user who placed the order. */
+  ObjectId getUserId();
+}
@@ -0,0 +1,42 @@
+package com.drevotiuk.model;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single page of {@link OrderView}s together with the continuation token
+ * of the next page.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@EqualsAndHashCode
+public class OrderPage {
+  /** The orders of this page, newest first. */
+  private List<OrderView> orders;
+
+  /** The token to request the next page with, or {@code null} on the last page. */
+  private String next;
+
+  /**
+   * Builds a page from orders fetched with one extra element, which only
+   * signals that a next page exists.
+   *
+   * @param orders the fetched {@link Order}s, at most {@code limit + 1}
+   * @param limit  the number of orders in the page
+   * @return the {@link OrderPage}
+   */
+  public static OrderPage of(List<Order> orders, int limit) {
+    boolean hasNext = orders.size() > limit;
+    List<Order> pageOrders = hasNext ? orders.subList(0, limit) : orders;
+    String next = hasNext ? OrderCursor.of(pageOrders.get(limit - 1)).encode() : null;
+    return new OrderPage(
+        pageOrders.stream().map(OrderView::new).collect(Collectors.toList()),
+        next);
+  }
+}
@@ -0,0 +1,28 @@
+package com.drevotiuk.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Represents the product service reply to a batch price request that carries
+ * all items of an order at once.
+ * Item prices are listed in the same order as the requested order items.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class OrderPriceQuote {
+  /** The total price of each requested order item, in request order. */
+  private List<BigDecimal> itemPrices;
+
+  /** The total price of all requested order items. */
+  private BigDecimal totalPrice;
+}
@@ -5,6 +5,12 @@ package com.drevotiuk.model;
  * Each status indicates a different stage in the order's lifecycle.
  */
 public enum OrderStatus {
+  /**
+   * Indicates that the order has been accepted but its items are still being
+   * priced.
+   */
+  PENDING_PRICING,
+
   /** Indicates that the order has been placed but not yet processed. */
   ORDERED,
 
@@ -14,5 +20,36 @@ public enum OrderStatus {
   SHIPPED,
 
   /** Indicates that the order has been delivered to the customer. */
-  DELIVERED
+  DELIVERED,
+
+  /** Indicates that the order was rejected because an item is invalid. */
+  REJECTED;
+
+  /**
+   * Returns the status an order must have to be moved to this status.
+   *
+   * @return the preceding {@link OrderStatus}, or {@code null} if no order can
+   *         be moved to this status
+   */
+  public OrderStatus getPredecessor() {
+    switch (this) {
+      case SHIPPED:
+        return ORDERED;
+      case DELIVERED:
+        return SHIPPED;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Tells whether the product quantities of an order in this status have been
+   * fetched from the product service, and are to be restored if the order is
+   * deleted.
+   *
+   * @return {@code true} if the order holds product stock
+   */
+  public boolean holdsStock() {
+    return this == ORDERED || this == SHIPPED || this == DELIVERED;
+  }
 }
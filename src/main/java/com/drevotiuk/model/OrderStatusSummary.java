@@ -0,0 +1,29 @@
+package com.drevotiuk.model;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The number of orders with a given status placed within a period, and their
+ * revenue.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class OrderStatusSummary {
+  /** The status of the orders. */
+  private OrderStatus status;
+
+  /** The number of orders with the status. */
+  private long orders;
+
+  /** The sum of the total prices of the orders. */
+  private BigDecimal revenue;
+}
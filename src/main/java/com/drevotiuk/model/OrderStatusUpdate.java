@@ -0,0 +1,25 @@
+package com.drevotiuk.model;
+
+import org.bson.types.ObjectId;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * A request to move an order to a new status, as sent by logistics.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class OrderStatusUpdate {
+  /** The ID of the order. */
+  private ObjectId orderId;
+
+  /** The status to move the order to. */
+  private OrderStatus status;
+}
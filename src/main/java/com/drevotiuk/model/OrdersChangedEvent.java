@@ -0,0 +1,31 @@
+package com.drevotiuk.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Represents an event published by the order service whenever orders are
+ * created, deleted or change their status.
+ * Used to evict stale entries from the order caches of all service instances.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+public class OrdersChangedEvent {
+  /**
+   * The ID of the service instance that has already updated its own caches,
+   * or null if none has.
+   */
+  private String origin;
+
+  /** The hexadecimal IDs of the changed orders. */
+  private List<String> orderIds;
+
+  /** The hexadecimal IDs of the users whose orders have changed. */
+  private List<String> userIds;
+}
@@ -0,0 +1,62 @@
+package com.drevotiuk.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a message waiting to be published to RabbitMQ. This class is
+ * mapped to the "outbox" collection in MongoDB.
+ * Messages are written in the same transaction as the order change they
+ * announce and are published afterwards by a background relay. The payload is
+ * stored already converted, exactly as it will be sent.
+ * Messages that keep being returned as unroutable are moved to the
+ * "outbox_dead_letter" collection.
+ */
+@Document("outbox")
+@CompoundIndex(name = "available", def = "{'lockedUntil': 1, '_id': 1}")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class OutboxMessage {
+  /** The unique identifier for the message, also used as AMQP message ID. */
+  @Id
+  private ObjectId id;
+
+  /** The exchange to publish the message to. */
+  private String exchange;
+
+  /** The routing key to publish the message with. */
+  private String routingKey;
+
+  /** The converted message body. */
+  private byte[] body;
+
+  /** The content type of the message body. */
+  private String contentType;
+
+  /** The content encoding of the message body. */
+  private String contentEncoding;
+
+  /** The message headers set by the message converter. */
+  private Map<String, Object> headers;
+
+  /** The time until which a relay holds the message; null if never claimed. */
+  private Instant lockedUntil;
+
+  /** The claim of the relay currently holding the message. */
+  @Indexed(sparse = true)
+  private String claimedBy;
+
+  /** The number of times the message was returned by the broker as unroutable. */
+  private int attempts;
+}
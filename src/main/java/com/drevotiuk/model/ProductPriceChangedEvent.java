@@ -0,0 +1,20 @@
+package com.drevotiuk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Represents an event published by the product service whenever the price of
+ * a product changes.
+ * Used to evict stale entries from the local product price cache.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+public class ProductPriceChangedEvent {
+  /** The ID of the product whose price has changed. */
+  private String productId;
+}
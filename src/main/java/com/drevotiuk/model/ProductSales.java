@@ -0,0 +1,26 @@
+package com.drevotiuk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * The quantity of a product ordered within a period.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class ProductSales {
+  /** The ID of the product. */
+  private String productId;
+
+  /** The total quantity of the product ordered. */
+  private long quantity;
+
+  /** The number of orders that contain the product. */
+  private long orders;
+}
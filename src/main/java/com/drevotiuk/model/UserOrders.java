@@ -0,0 +1,20 @@
+package com.drevotiuk.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The views of all orders of a user together with an entity tag that changes
+ * whenever the orders do.
+ */
+@AllArgsConstructor
+@Getter
+public class UserOrders {
+  /** The views of the orders of the user. */
+  private final List<OrderView> orders;
+
+  /** The entity tag of the orders. */
+  private final String etag;
+}
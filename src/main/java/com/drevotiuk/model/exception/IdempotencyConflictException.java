@@ -0,0 +1,23 @@
+package com.drevotiuk.model.exception;
+
+/**
+ * Custom exception class that indicates that a request cannot be processed
+ * under the given idempotency key.
+ * This exception is typically thrown when the original request with the same
+ * key is still in progress, or when the key is reused for a different order.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+  private static final long serialVersionUID = -2840736418569812275L;
+
+  public IdempotencyConflictException(String message) {
+    super(message);
+  }
+
+  public IdempotencyConflictException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public IdempotencyConflictException(Throwable cause) {
+    super(cause);
+  }
+}
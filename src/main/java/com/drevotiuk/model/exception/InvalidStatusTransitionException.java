@@ -0,0 +1,23 @@
+package com.drevotiuk.model.exception;
+
+/**
+ * Custom exception class that indicates that an order cannot be moved to the
+ * requested status.
+ * This exception is typically thrown when the requested status does not
+ * directly follow the current status of the order.
+ */
+public class InvalidStatusTransitionException extends RuntimeException {
+  private static final long serialVersionUID = 5093127846213570918L;
+
+  public InvalidStatusTransitionException(String message) {
+    super(message);
+  }
+
+  public InvalidStatusTransitionException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public InvalidStatusTransitionException(Throwable cause) {
+    super(cause);
+  }
+}
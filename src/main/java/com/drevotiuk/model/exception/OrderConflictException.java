@@ -0,0 +1,23 @@
+package com.drevotiuk.model.exception;
+
+/**
+ * Custom exception class that indicates that orders could not be changed
+ * because they were changed concurrently.
+ * This exception is typically thrown when a transaction kept conflicting with
+ * concurrent writes to the same orders after it was retried.
+ */
+public class OrderConflictException extends RuntimeException {
+  private static final long serialVersionUID = 6305128472915337041L;
+
+  public OrderConflictException(String message) {
+    super(message);
+  }
+
+  public OrderConflictException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public OrderConflictException(Throwable cause) {
+    super(cause);
+  }
+}
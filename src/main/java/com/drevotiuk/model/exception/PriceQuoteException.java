@@ -0,0 +1,23 @@
+package com.drevotiuk.model.exception;
+
+/**
+ * Custom exception class that indicates that product prices could not be
+ * quoted.
+ * This exception is typically thrown when the product service does not answer
+ * price requests in time or cannot be reached at all.
+ */
+public class PriceQuoteException extends RuntimeException {
+  private static final long serialVersionUID = 3617845527736192482L;
+
+  public PriceQuoteException(String message) {
+    super(message);
+  }
+
+  public PriceQuoteException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public PriceQuoteException(Throwable cause) {
+    super(cause);
+  }
+}
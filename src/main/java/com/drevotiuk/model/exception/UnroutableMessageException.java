@@ -0,0 +1,25 @@
+package com.drevotiuk.model.exception;
+
+import org.springframework.amqp.AmqpException;
+
+/**
+ * Custom exception class that indicates that a published message was returned
+ * by the broker because no queue is bound for its routing key.
+ * Unlike a connection failure, this will not resolve by itself, so outbox
+ * messages failing this way are parked after a number of attempts.
+ */
+public class UnroutableMessageException extends AmqpException {
+  private static final long serialVersionUID = -4861530247793365815L;
+
+  public UnroutableMessageException(String message) {
+    super(message);
+  }
+
+  public UnroutableMessageException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public UnroutableMessageException(Throwable cause) {
+    super(cause);
+  }
+}
@@ -0,0 +1,14 @@
+package com.drevotiuk.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.drevotiuk.model.IdempotencyRecord;
+
+/**
+ * Repository interface for managing {@link IdempotencyRecord} entities in
+ * MongoDB.
+ */
+@Repository
+public interface IdempotencyRepository extends MongoRepository<IdempotencyRecord, String> {
+}
@@ -1,25 +1,92 @@
 package com.drevotiuk.repository;
 
 import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderOwner;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderView;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
  * Repository interface for managing {@link Order} entities in MongoDB.
- * Includes a custom method to find orders by user ID.
+ * Includes projection queries that fetch only the fields of an
+ * {@link OrderView} or an {@link OrderOwner}, and keyset pagination queries
+ * from {@link OrderRepositoryCustom}.
  */
 @Repository
-public interface OrderRepository extends MongoRepository<Order, ObjectId> {
+public interface OrderRepository extends MongoRepository<Order, ObjectId>, OrderRepositoryCustom {
+  /** The fields fetched for an {@link OrderView}. */
+  String VIEW_FIELDS = "{ '_id': 0, 'orderItems': 1, 'totalPrice': 1, 'status': 1 }";
+
+  /** The fields fetched for an order held in the order cache. */
+  String CACHED_FIELDS = "{ 'userId': 1, 'orderItems': 1, 'totalPrice': 1, 'status': 1 }";
 
   /**
-   * Retrieves a list of orders associated with a specific user ID.
+   * Retrieves all orders associated with a specific user ID for the user
+   * order list cache, fetching only their IDs, owner and the fields of an
+   * {@link OrderView}.
    *
    * @param userId the ID of the user whose orders are to be retrieved
    * @return a list of {@link Order} objects that belong to the specified user
    */
-  List<Order> findByUserId(ObjectId userId);
+  @Query(value = "{ 'userId': ?0 }", fields = CACHED_FIELDS)
+  List<Order> findCachedByUserId(ObjectId userId);
+
+  /**
+   * Retrieves an order for the order cache, fetching only its owner and the
+   * fields of an {@link OrderView}.
+   *
+   * @param id the ID of the order
+   * @return the {@link Order} with its user ID and view fields, if found
+   */
+  @Query(value = "{ '_id': ?0 }", fields = CACHED_FIELDS)
+  Optional<Order> findCachedById(ObjectId id);
+
+  /**
+   * Retrieves the owner of an order, fetching only its ID and user ID.
+   *
+   * @param id the ID of the order
+   * @return the {@link OrderOwner} projection of the order, if found
+   */
+  Optional<OrderOwner> findOwnerById(ObjectId id);
+
+  /**
+   * Retrieves the owners of orders, fetching only their IDs and user IDs.
+   *
+   * @param ids the IDs of the orders
+   * @return a list of {@link OrderOwner} projections of the found orders
+   */
+  List<OrderOwner> findOwnersByIdIn(Collection<ObjectId> ids);
+
+  /**
+   * Retrieves orders in the given status that were placed before the given
+   * time, served by the index on status and order time.
+   *
+   * @param status   the status of the orders
+   * @param before   the time the orders must have been placed before
+   * @param pageable the page and sort order of the orders to retrieve
+   * @return a list of the found {@link Order} objects
+   */
+  List<Order> findByStatusAndOrderTimeBefore(OrderStatus status, LocalDateTime before, Pageable pageable);
+
+  /**
+   * Streams all orders straight from a database cursor, fetching them in
+   * batches as the stream is consumed. The returned stream must be closed to
+   * release the cursor.
+   *
+   * @return a {@link Stream} of all {@link Order} objects
+   */
+  @Meta(cursorBatchSize = 1000)
+  Stream<Order> streamAllBy();
 }
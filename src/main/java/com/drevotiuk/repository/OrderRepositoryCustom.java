@@ -0,0 +1,143 @@
+package com.drevotiuk.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.types.ObjectId;
+
+import com.drevotiuk.model.DailyRevenue;
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderCursor;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderStatusSummary;
+import com.drevotiuk.model.ProductSales;
+
+/**
+ * Custom repository fragment for {@link Order} queries that cannot be
+ * expressed as derived query methods.
+ */
+public interface OrderRepositoryCustom {
+
+  /**
+   * Retrieves orders in keyset order (order time descending, then ID
+   * descending) that come after the given cursor. Only the view fields, the
+   * order time and the ID of each order are populated.
+   *
+   * @param after the position of the last order of the previous page, or
+   *              {@code null} for the first page
+   * @param limit the maximum number of orders to retrieve
+   * @return a list of {@link Order} objects
+   */
+  List<Order> findPage(OrderCursor after, int limit);
+
+  /**
+   * Retrieves orders of a specific user in keyset order (order time
+   * descending, then ID descending) that come after the given cursor. Only the
+   * view fields, the order time and the ID of each order are populated.
+   *
+   * @param userId the ID of the user whose orders are to be retrieved
+   * @param after  the position of the last order of the previous page, or
+   *               {@code null} for the first page
+   * @param limit  the maximum number of orders to retrieve
+   * @return a list of {@link Order} objects that belong to the specified user
+   */
+  List<Order> findPageByUserId(ObjectId userId, OrderCursor after, int limit);
+
+  /**
+   * Atomically deletes an order unless it has been delivered. Only the ID,
+   * user ID, items and status of the deleted order are populated.
+   *
+   * @param orderId the ID of the order to delete
+   * @return an {@link Optional} of the deleted {@link Order}, empty if the
+   *         order was not found or has been delivered
+   */
+  Optional<Order> deleteUndeliveredById(ObjectId orderId);
+
+  /**
+   * Deletes the orders with the given IDs that have not been delivered with a
+   * single bulk delete. Only the IDs, user IDs, items and statuses of the
+   * deleted orders are populated.
+   * The orders are read before they are deleted, so this must run in a
+   * transaction; otherwise an order delivered in between would be returned
+   * without being deleted. A concurrent change to one of the orders fails the
+   * transaction with a transient transaction error, after which it can be
+   * retried.
+   *
+   * @param orderIds the IDs of the orders to delete
+   * @return a list of the deleted {@link Order} objects
+   * @throws IllegalStateException if no transaction is active
+   */
+  List<Order> deleteUndeliveredByIds(Collection<ObjectId> orderIds);
+
+  /**
+   * Atomically moves an order from one status to another. Only the ID, user ID
+   * and view fields of the updated order are populated.
+   *
+   * @param orderId the ID of the order
+   * @param from    the status the order must have
+   * @param to      the status to move the order to
+   * @return an {@link Optional} of the updated {@link Order}, empty if the
+   *         order was not found or does not have the expected status
+   */
+  Optional<Order> updateStatus(ObjectId orderId, OrderStatus from, OrderStatus to);
+
+  /**
+   * Moves all orders with the given IDs that have one status to another with a
+   * single update.
+   *
+   * @param orderIds the IDs of the orders
+   * @param from     the status the orders must have
+   * @param to       the status to move the orders to
+   * @return the number of updated orders
+   */
+  long updateStatuses(Collection<ObjectId> orderIds, OrderStatus from, OrderStatus to);
+
+  /**
+   * Atomically sets the total price of an order awaiting pricing and moves it
+   * to {@link OrderStatus#ORDERED}. Only the ID, user ID and view fields of the
+   * updated order are populated.
+   *
+   * @param orderId    the ID of the order
+   * @param totalPrice the quoted total price of the order
+   * @return an {@link Optional} of the updated {@link Order}, empty if the
+   *         order was not found or is not awaiting pricing
+   */
+  Optional<Order> completePricing(ObjectId orderId, BigDecimal totalPrice);
+
+  /**
+   * Counts the orders placed within a period and sums their revenue, grouped
+   * by status, with a single aggregation on the server.
+   *
+   * @param from the start of the period, inclusive
+   * @param to   the end of the period, exclusive
+   * @return a list of {@link OrderStatusSummary} objects, one per status that
+   *         any order has
+   */
+  List<OrderStatusSummary> summarizeByStatus(LocalDateTime from, LocalDateTime to);
+
+  /**
+   * Counts the orders placed within a period and sums their revenue per day,
+   * with a single aggregation on the server. Only orders that hold stock are
+   * counted.
+   *
+   * @param from the start of the period, inclusive
+   * @param to   the end of the period, exclusive
+   * @return a list of {@link DailyRevenue} objects, oldest day first
+   */
+  List<DailyRevenue> findRevenuePerDay(LocalDateTime from, LocalDateTime to);
+
+  /**
+   * Finds the products ordered in the largest quantities within a period,
+   * with a single aggregation on the server. Only orders that hold stock are
+   * counted.
+   *
+   * @param from  the start of the period, inclusive
+   * @param to    the end of the period, exclusive
+   * @param limit the maximum number of products to retrieve
+   * @return a list of {@link ProductSales} objects, largest quantity first
+   */
+  List<ProductSales> findTopProducts(LocalDateTime from, LocalDateTime to, int limit);
+}
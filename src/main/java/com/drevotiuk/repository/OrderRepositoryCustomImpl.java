@@ -0,0 +1,283 @@
+package com.drevotiuk.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.drevotiuk.model.DailyRevenue;
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderCursor;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderStatusSummary;
+import com.drevotiuk.model.ProductSales;
+
+import lombok.RequiredArgsConstructor;
+
+import static org.springframework.util.Assert.state;
+
+/**
+ * {@link MongoTemplate} based implementation of {@link OrderRepositoryCustom}.
+ */
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+  @Value("${order.analytics.allow-disk-use}")
+  private boolean allowDiskUse;
+
+  private final MongoTemplate mongoTemplate;
+
+  @Override
+  public List<Order> findPage(OrderCursor after, int limit) {
+    return mongoTemplate.find(keysetQuery(new Criteria(), after, limit), Order.class);
+  }
+
+  @Override
+  public List<Order> findPageByUserId(ObjectId userId, OrderCursor after, int limit) {
+    return mongoTemplate.find(keysetQuery(Criteria.where("userId").is(userId), after, limit), Order.class);
+  }
+
+  @Override
+  public Optional<Order> deleteUndeliveredById(ObjectId orderId) {
+    return Optional.ofNullable(mongoTemplate.findAndRemove(undeliveredQuery(orderId), Order.class));
+  }
+
+  @Override
+  public List<Order> deleteUndeliveredByIds(Collection<ObjectId> orderIds) {
+    state(TransactionSynchronizationManager.isActualTransactionActive(),
+        "Deleting undelivered orders requires a transaction");
+    Query query = Query.query(Criteria.where("_id").in(orderIds).and("status").ne(OrderStatus.DELIVERED));
+    query.fields()
+        .include("userId")
+        .include("orderItems")
+        .include("status");
+    List<Order> orders = mongoTemplate.find(query, Order.class);
+    if (orders.isEmpty())
+      return orders;
+
+    List<ObjectId> undeliveredIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+    mongoTemplate.remove(
+        Query.query(Criteria.where("_id").in(undeliveredIds).and("status").ne(OrderStatus.DELIVERED)),
+        Order.class);
+    return orders;
+  }
+
+  @Override
+  public Optional<Order> updateStatus(ObjectId orderId, OrderStatus from, OrderStatus to) {
+    return modifyIfStatus(orderId, from, Update.update("status", to));
+  }
+
+  @Override
+  public long updateStatuses(Collection<ObjectId> orderIds, OrderStatus from, OrderStatus to) {
+    return mongoTemplate.updateMulti(
+        Query.query(Criteria.where("_id").in(orderIds).and("status").is(from)),
+        Update.update("status", to),
+        Order.class).getModifiedCount();
+  }
+
+  @Override
+  public Optional<Order> completePricing(ObjectId orderId, BigDecimal totalPrice) {
+    return modifyIfStatus(orderId, OrderStatus.PENDING_PRICING,
+        Update.update("status", OrderStatus.ORDERED).set("totalPrice", totalPrice));
+  }
+
+  @Override
+  public List<OrderStatusSummary> summarizeByStatus(LocalDateTime from, LocalDateTime to) {
+    return aggregate(statusSummaryAggregation(from, to), OrderStatusSummary.class);
+  }
+
+  @Override
+  public List<DailyRevenue> findRevenuePerDay(LocalDateTime from, LocalDateTime to) {
+    return aggregate(revenuePerDayAggregation(from, to, ZoneId.systemDefault()), DailyRevenue.class);
+  }
+
+  @Override
+  public List<ProductSales> findTopProducts(LocalDateTime from, LocalDateTime to, int limit) {
+    return aggregate(topProductsAggregation(from, to, limit), ProductSales.class);
+  }
+
+  /**
+   * Runs an aggregation on the server, spilling large stages to disk if
+   * enabled, and maps its results.
+   *
+   * @param <T>         the type of the results
+   * @param aggregation the {@link TypedAggregation} over orders
+   * @param resultType  the class of the results
+   * @return the list of results
+   */
+  private <T> List<T> aggregate(TypedAggregation<Order> aggregation, Class<T> resultType) {
+    AggregationOptions options = AggregationOptions.builder().allowDiskUse(allowDiskUse).build();
+    return mongoTemplate.aggregate(aggregation.withOptions(options), resultType).getMappedResults();
+  }
+
+  /**
+   * Atomically applies an update to an order only if it has the given status.
+   * Only the owner and view fields of the updated order are fetched.
+   *
+   * @param orderId the ID of the order
+   * @param status  the status the order must have
+   * @param update  the {@link Update} to apply
+   * @return an {@link Optional} of the updated {@link Order}
+   */
+  private Optional<Order> modifyIfStatus(ObjectId orderId, OrderStatus status, Update update) {
+    Query query = Query.query(Criteria.where("_id").is(orderId).and("status").is(status));
+    query.fields()
+        .include("userId")
+        .include("orderItems")
+        .include("totalPrice")
+        .include("status");
+    return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+        FindAndModifyOptions.options().returnNew(true), Order.class));
+  }
+
+  /**
+   * Builds a query that seeks directly past the given cursor instead of
+   * skipping documents, so every page costs the same no matter how deep it is.
+   * Only the fields of an order view and its keyset position are fetched.
+   *
+   * @param criteria the filter criteria of the query
+   * @param after    the cursor to seek past, or {@code null} for the first page
+   * @param limit    the maximum number of orders to retrieve
+   * @return the keyset {@link Query}
+   */
+  static Query keysetQuery(Criteria criteria, OrderCursor after, int limit) {
+    if (after != null) {
+      criteria.andOperator(
+          Criteria.where("orderTime").lte(after.getOrderTime()),
+          new Criteria().orOperator(
+              Criteria.where("orderTime").lt(after.getOrderTime()),
+              Criteria.where("_id").lt(after.getId())));
+    }
+
+    Query query = Query.query(criteria)
+        .with(Sort.by(Sort.Direction.DESC, "orderTime", "_id"))
+        .limit(limit);
+    query.fields()
+        .include("orderItems")
+        .include("totalPrice")
+        .include("status")
+        .include("orderTime");
+    return query;
+  }
+
+  /**
+   * Builds a query matching an order only if it has not been delivered, so
+   * that the status check and the delete happen in a single atomic operation.
+   * Only the owner, items and status of the order are fetched.
+   *
+   * @param orderId the ID of the order
+   * @return the {@link Query}
+   */
+  static Query undeliveredQuery(ObjectId orderId) {
+    Query query = Query.query(Criteria.where("_id").is(orderId).and("status").ne(OrderStatus.DELIVERED));
+    query.fields()
+        .include("userId")
+        .include("orderItems")
+        .include("status");
+    return query;
+  }
+
+  /**
+   * Builds the aggregation that counts orders and sums their revenue by
+   * status. It starts by matching the period, which the order time index
+   * serves, and reads only the status and total price of each order.
+   *
+   * @param from the start of the period, inclusive
+   * @param to   the end of the period, exclusive
+   * @return the {@link TypedAggregation}
+   */
+  static TypedAggregation<Order> statusSummaryAggregation(LocalDateTime from, LocalDateTime to) {
+    return Aggregation.newAggregation(Order.class,
+        Aggregation.match(Criteria.where("orderTime").gte(from).lt(to)),
+        Aggregation.group("status")
+            .count().as("orders")
+            .sum(ConvertOperators.valueOf("totalPrice").convertToDecimal()).as("revenue"),
+        Aggregation.project("orders", "revenue").and("status").previousOperation(),
+        Aggregation.sort(Sort.Direction.ASC, "status"));
+  }
+
+  /**
+   * Builds the aggregation that counts orders and sums their revenue per day.
+   * It starts by matching the statuses that hold stock and the period, which
+   * the status and order time index serves. Total prices are stored as
+   * strings, so they are converted to decimals before they are summed.
+   * Days are bucketed in the given zone, which must be the one the period is
+   * expressed in, so that the first and last days are not split.
+   *
+   * @param from the start of the period, inclusive
+   * @param to   the end of the period, exclusive
+   * @param zone the zone of the period and of the days
+   * @return the {@link TypedAggregation}
+   */
+  static TypedAggregation<Order> revenuePerDayAggregation(LocalDateTime from, LocalDateTime to, ZoneId zone) {
+    return Aggregation.newAggregation(Order.class,
+        Aggregation.match(stockHoldingCriteria(from, to)),
+        Aggregation.project()
+            .and(DateOperators.dateOf("orderTime")
+                .withTimezone(DateOperators.Timezone.fromZone(zone))
+                .toString("%Y-%m-%d")).as("day")
+            .and(ConvertOperators.valueOf("totalPrice").convertToDecimal()).as("revenue"),
+        Aggregation.group("day")
+            .count().as("orders")
+            .sum("revenue").as("revenue"),
+        Aggregation.project("orders", "revenue").and("day").previousOperation(),
+        Aggregation.sort(Sort.Direction.ASC, "day"));
+  }
+
+  /**
+   * Builds the aggregation that sums the ordered quantity of each product and
+   * keeps the largest. It starts by matching the statuses that hold stock and
+   * the period, which the status and order time index serves, and unwinds
+   * only the items of each order.
+   *
+   * @param from  the start of the period, inclusive
+   * @param to    the end of the period, exclusive
+   * @param limit the maximum number of products
+   * @return the {@link TypedAggregation}
+   */
+  static TypedAggregation<Order> topProductsAggregation(LocalDateTime from, LocalDateTime to, int limit) {
+    return Aggregation.newAggregation(Order.class,
+        Aggregation.match(stockHoldingCriteria(from, to)),
+        Aggregation.project("orderItems"),
+        Aggregation.unwind("orderItems"),
+        Aggregation.group("orderItems.productId")
+            .sum("orderItems.qty").as("quantity")
+            .count().as("orders"),
+        Aggregation.sort(Sort.Direction.DESC, "quantity"),
+        Aggregation.limit(limit),
+        Aggregation.project("quantity", "orders").and("productId").previousOperation());
+  }
+
+  /**
+   * Builds the criteria matching the orders that hold stock and were placed
+   * within a period.
+   *
+   * @param from the start of the period, inclusive
+   * @param to   the end of the period, exclusive
+   * @return the {@link Criteria}
+   */
+  private static Criteria stockHoldingCriteria(LocalDateTime from, LocalDateTime to) {
+    List<OrderStatus> stockHolding = Arrays.stream(OrderStatus.values())
+        .filter(OrderStatus::holdsStock)
+        .collect(Collectors.toList());
+    return Criteria.where("status").in(stockHolding).and("orderTime").gte(from).lt(to);
+  }
+}
@@ -0,0 +1,15 @@
+package com.drevotiuk.repository;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.drevotiuk.model.OutboxMessage;
+
+/**
+ * Repository interface for managing {@link OutboxMessage} entities in MongoDB.
+ * Includes claiming of message batches from {@link OutboxRepositoryCustom}.
+ */
+@Repository
+public interface OutboxRepository extends MongoRepository<OutboxMessage, ObjectId>, OutboxRepositoryCustom {
+}
@@ -0,0 +1,43 @@
+package com.drevotiuk.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+import com.drevotiuk.model.OutboxMessage;
+
+/**
+ * Custom repository fragment for {@link OutboxMessage} queries that cannot be
+ * expressed as derived query methods.
+ */
+public interface OutboxRepositoryCustom {
+
+  /**
+   * Claims the oldest messages that are not held by any relay, so that
+   * concurrent relays on other instances never publish the same batch.
+   * A claim expires after the lease, after which unpublished messages become
+   * available again.
+   *
+   * @param owner the identifier of the claiming relay
+   * @param limit the maximum number of messages to claim
+   * @param lease the duration of the claim in milliseconds
+   * @return the claimed {@link OutboxMessage}s, oldest first
+   */
+  List<OutboxMessage> claimBatch(String owner, int limit, long lease);
+
+  /**
+   * Records another unroutable publish attempt for the given messages.
+   *
+   * @param ids the IDs of the {@link OutboxMessage}s
+   */
+  void incrementAttempts(Collection<ObjectId> ids);
+
+  /**
+   * Moves messages that cannot be delivered from the outbox to the dead letter
+   * collection, where they are kept for inspection but no longer published.
+   *
+   * @param messages the {@link OutboxMessage}s to park
+   */
+  void park(List<OutboxMessage> messages);
+}
@@ -0,0 +1,87 @@
+package com.drevotiuk.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.drevotiuk.model.OutboxMessage;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate} based implementation of {@link OutboxRepositoryCustom}.
+ */
+@RequiredArgsConstructor
+public class OutboxRepositoryCustomImpl implements OutboxRepositoryCustom {
+  static final String DEAD_LETTER_COLLECTION = "outbox_dead_letter";
+
+  private final MongoTemplate mongoTemplate;
+
+  @Override
+  public List<OutboxMessage> claimBatch(String owner, int limit, long lease) {
+    Instant now = Instant.now();
+    Query candidates = Query.query(available(new Criteria(), now))
+        .with(Sort.by("_id"))
+        .limit(limit);
+    candidates.fields().include("_id");
+    List<ObjectId> ids = mongoTemplate.find(candidates, OutboxMessage.class).stream()
+        .map(OutboxMessage::getId)
+        .collect(Collectors.toList());
+    if (ids.isEmpty())
+      return Collections.emptyList();
+
+    String claim = owner + ":" + ObjectId.get().toHexString();
+    mongoTemplate.updateMulti(
+        Query.query(available(Criteria.where("_id").in(ids), now)),
+        new Update().set("lockedUntil", now.plusMillis(lease)).set("claimedBy", claim),
+        OutboxMessage.class);
+    return mongoTemplate.find(
+        Query.query(Criteria.where("claimedBy").is(claim)).with(Sort.by("_id")),
+        OutboxMessage.class);
+  }
+
+  @Override
+  public void incrementAttempts(Collection<ObjectId> ids) {
+    if (ids.isEmpty())
+      return;
+
+    mongoTemplate.updateMulti(
+        Query.query(Criteria.where("_id").in(ids)),
+        new Update().inc("attempts", 1),
+        OutboxMessage.class);
+  }
+
+  @Override
+  public void park(List<OutboxMessage> messages) {
+    if (messages.isEmpty())
+      return;
+
+    messages.forEach(message -> mongoTemplate.save(message, DEAD_LETTER_COLLECTION));
+    List<ObjectId> ids = messages.stream()
+        .map(OutboxMessage::getId)
+        .collect(Collectors.toList());
+    mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), OutboxMessage.class);
+  }
+
+  /**
+   * Restricts the given criteria to messages that are not held by a relay.
+   *
+   * @param criteria the criteria to restrict
+   * @param now      the current time
+   * @return the restricted criteria
+   */
+  private Criteria available(Criteria criteria, Instant now) {
+    return criteria.orOperator(
+        Criteria.where("lockedUntil").is(null),
+        Criteria.where("lockedUntil").lt(now));
+  }
+}
@@ -0,0 +1,73 @@
+package com.drevotiuk.repository;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderOwner;
+import com.drevotiuk.model.OrderView;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link OrderRepository} used by the reactive order
+ * API. Mirrors its projection queries, and includes keyset pagination queries
+ * from {@link ReactiveOrderRepositoryCustom}.
+ */
+@Repository
+public interface ReactiveOrderRepository
+    extends ReactiveMongoRepository<Order, ObjectId>, ReactiveOrderRepositoryCustom {
+  /**
+   * Retrieves views of all orders associated with a specific user ID, fetching
+   * only the fields of an {@link OrderView}.
+   *
+   * @param userId the ID of the user whose orders are to be retrieved
+   * @return a {@link Flux} of {@link OrderView} objects of orders that belong
+   *         to the specified user
+   */
+  @Query(value = "{ 'userId': ?0 }", fields = OrderRepository.VIEW_FIELDS)
+  Flux<OrderView> findViewsByUserId(ObjectId userId);
+
+  /**
+   * Retrieves the view of an order, fetching only the fields of an
+   * {@link OrderView}.
+   *
+   * @param id the ID of the order
+   * @return the {@link OrderView} of the order, or empty if not found
+   */
+  @Query(value = "{ '_id': ?0 }", fields = OrderRepository.VIEW_FIELDS)
+  Mono<OrderView> findViewById(ObjectId id);
+
+  /**
+   * Retrieves the view of an order only if it belongs to the specified user,
+   * fetching only the fields of an {@link OrderView}.
+   *
+   * @param id     the ID of the order
+   * @param userId the ID of the user who must own the order
+   * @return the {@link OrderView} of the order, or empty if not found or not
+   *         owned by the user
+   */
+  @Query(value = "{ '_id': ?0, 'userId': ?1 }", fields = OrderRepository.VIEW_FIELDS)
+  Mono<OrderView> findViewByIdAndUserId(ObjectId id, ObjectId userId);
+
+  /**
+   * Retrieves the owner of an order, fetching only its ID and user ID.
+   *
+   * @param id the ID of the order
+   * @return the {@link OrderOwner} projection of the order, or empty if not
+   *         found
+   */
+  Mono<OrderOwner> findOwnerById(ObjectId id);
+
+  /**
+   * Streams all orders from a database cursor, fetching further batches only
+   * as fast as the subscriber requests them.
+   *
+   * @return a {@link Flux} of all {@link Order} objects
+   */
+  @Meta(cursorBatchSize = 1000)
+  Flux<Order> findAllBy();
+}
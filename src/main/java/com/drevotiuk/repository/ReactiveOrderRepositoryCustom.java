@@ -0,0 +1,48 @@
+package com.drevotiuk.repository;
+
+import org.bson.types.ObjectId;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderCursor;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link OrderRepositoryCustom}.
+ */
+public interface ReactiveOrderRepositoryCustom {
+
+  /**
+   * Retrieves orders in keyset order (order time descending, then ID
+   * descending) that come after the given cursor.
+   *
+   * @param after the cursor to seek past, or {@code null} for the first page
+   * @param limit the maximum number of orders to retrieve
+   * @return a {@link Flux} of {@link Order} objects
+   * @see OrderRepositoryCustom#findPage(OrderCursor, int)
+   */
+  Flux<Order> findPage(OrderCursor after, int limit);
+
+  /**
+   * Retrieves orders of a specific user in keyset order that come after the
+   * given cursor.
+   *
+   * @param userId the ID of the user whose orders are to be retrieved
+   * @param after  the cursor to seek past, or {@code null} for the first page
+   * @param limit  the maximum number of orders to retrieve
+   * @return a {@link Flux} of {@link Order} objects
+   * @see OrderRepositoryCustom#findPageByUserId(ObjectId, OrderCursor, int)
+   */
+  Flux<Order> findPageByUserId(ObjectId userId, OrderCursor after, int limit);
+
+  /**
+   * Atomically deletes an order unless it has been delivered.
+   *
+   * @param orderId the ID of the order to delete
+   * @return a {@link Mono} of the deleted {@link Order}, empty if the order was
+   *         not found or has been delivered
+   * @see OrderRepositoryCustom#deleteUndeliveredById(ObjectId)
+   */
+  Mono<Order> deleteUndeliveredById(ObjectId orderId);
+}
@@ -0,0 +1,40 @@
+package com.drevotiuk.repository;
+
+import static com.drevotiuk.repository.OrderRepositoryCustomImpl.keysetQuery;
+import static com.drevotiuk.repository.OrderRepositoryCustomImpl.undeliveredQuery;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderCursor;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveMongoTemplate} based implementation of
+ * {@link ReactiveOrderRepositoryCustom}, sharing its keyset queries with
+ * {@link OrderRepositoryCustomImpl}.
+ */
+@RequiredArgsConstructor
+public class ReactiveOrderRepositoryCustomImpl implements ReactiveOrderRepositoryCustom {
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  @Override
+  public Flux<Order> findPage(OrderCursor after, int limit) {
+    return mongoTemplate.find(keysetQuery(new Criteria(), after, limit), Order.class);
+  }
+
+  @Override
+  public Flux<Order> findPageByUserId(ObjectId userId, OrderCursor after, int limit) {
+    return mongoTemplate.find(keysetQuery(Criteria.where("userId").is(userId), after, limit), Order.class);
+  }
+
+  @Override
+  public Mono<Order> deleteUndeliveredById(ObjectId orderId) {
+    return mongoTemplate.findAndRemove(undeliveredQuery(orderId), Order.class);
+  }
+}
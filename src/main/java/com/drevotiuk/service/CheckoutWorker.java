@@ -0,0 +1,170 @@
+package com.drevotiuk.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.exception.InvalidOrderItemException;
+import com.drevotiuk.model.exception.PriceQuoteException;
+import com.drevotiuk.repository.OrderRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background worker that prices orders accepted in asynchronous checkout
+ * mode.
+ * An accepted order is handed to the checkout executor as soon as the
+ * transaction that saved it has committed. The worker quotes its items and,
+ * in one transaction, moves it to {@link OrderStatus#ORDERED} and enqueues the
+ * messages to send the order created email and to fetch product quantities.
+ * Orders with invalid items are moved to {@link OrderStatus#REJECTED}.
+ * Orders that could not be priced, because the product service was
+ * unavailable, the executor was saturated or the instance went down, are
+ * picked up again by a periodic sweep once they are older than the lease.
+ * Pricing only completes if the order is still awaiting it, so an order
+ * priced twice is announced only once.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutWorker {
+  @Value("${order.checkout.lease}")
+  private long lease;
+  @Value("${order.checkout.sweep-batch-size}")
+  private int sweepBatchSize;
+
+  private final Set<ObjectId> inFlight = ConcurrentHashMap.newKeySet();
+  private final OrderRepository repository;
+  private final OrderServiceUtils serviceUtils;
+  private final OrderChangeNotifier changeNotifier;
+  private final TransactionOperations transactionOperations;
+  @Qualifier("checkoutExecutor")
+  private final TaskExecutor checkoutExecutor;
+
+  /**
+   * Hands an accepted order to the checkout executor once the current
+   * transaction has committed, or at once if there is no transaction.
+   *
+   * @param order the accepted {@link Order} awaiting pricing
+   */
+  public void submit(Order order) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      dispatch(order);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        dispatch(order);
+      }
+    });
+  }
+
+  /**
+   * Dispatches the orders that have been awaiting pricing for longer than the
+   * lease, oldest first.
+   */
+  @Scheduled(fixedDelayString = "${order.checkout.sweep-interval}")
+  public void sweep() {
+    List<Order> pending = repository.findByStatusAndOrderTimeBefore(OrderStatus.PENDING_PRICING,
+        LocalDateTime.now().minus(lease, ChronoUnit.MILLIS), PageRequest.of(0, sweepBatchSize, Sort.by("orderTime")));
+    if (pending.isEmpty())
+      return;
+
+    log.info("Dispatching {} orders awaiting pricing", pending.size());
+    pending.forEach(this::dispatch);
+  }
+
+  /**
+   * Prices an accepted order and completes it, or rejects it if any of its
+   * items is invalid. The order is left awaiting pricing if the prices could
+   * not be quoted.
+   *
+   * @param order the accepted {@link Order}
+   */
+  void price(Order order) {
+    BigDecimal totalPrice;
+    try {
+      totalPrice = serviceUtils.calculateTotalPrice(order.getOrderItems());
+    } catch (InvalidOrderItemException e) {
+      log.warn("Rejecting order with ID {}: {}", order.getId(), e.getMessage());
+      transactionOperations.executeWithoutResult(status -> repository
+          .updateStatus(order.getId(), OrderStatus.PENDING_PRICING, OrderStatus.REJECTED)
+          .ifPresent(changeNotifier::updated));
+      return;
+    } catch (PriceQuoteException e) {
+      log.warn("Could not price order with ID {}, retrying later: {}", order.getId(), e.getMessage());
+      return;
+    }
+
+    transactionOperations.executeWithoutResult(status -> complete(order.getId(), totalPrice));
+  }
+
+  /**
+   * Completes the pricing of an order and enqueues the messages about its
+   * creation. Nothing is enqueued if the order has been priced or deleted in
+   * the meantime.
+   *
+   * @param orderId    the ID of the order
+   * @param totalPrice the quoted total price of the order
+   */
+  private void complete(ObjectId orderId, BigDecimal totalPrice) {
+    Optional<Order> priced = repository.completePricing(orderId, totalPrice);
+    if (!priced.isPresent()) {
+      log.info("Order with ID {} is no longer awaiting pricing", orderId);
+      return;
+    }
+
+    Order order = priced.get();
+    serviceUtils.sendOrderCreatedEmail(order, totalPrice);
+    serviceUtils.sendFetchQtyMessage(order);
+    changeNotifier.updated(order);
+    log.info("Priced order with ID {}", orderId);
+  }
+
+  /**
+   * Hands an order to the checkout executor unless it is already being priced
+   * by this instance. An order that the executor rejects is left to the sweep.
+   *
+   * @param order the {@link Order} awaiting pricing
+   */
+  private void dispatch(Order order) {
+    if (!inFlight.add(order.getId()))
+      return;
+
+    try {
+      checkoutExecutor.execute(() -> {
+        try {
+          price(order);
+        } catch (RuntimeException e) {
+          log.error("Failed to price order with ID {}", order.getId(), e);
+        } finally {
+          inFlight.remove(order.getId());
+        }
+      });
+    } catch (TaskRejectedException e) {
+      inFlight.remove(order.getId());
+      log.warn("Checkout executor is saturated, order with ID {} is left to the sweep", order.getId());
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package com.drevotiuk.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.model.exception.UnroutableMessageException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asynchronous RabbitMQ publisher backed by correlated publisher confirms and
+ * mandatory returns.
+ * It publishes through its own template, so that the confirm and return
+ * callbacks and mandatory publishing do not apply to other senders.
+ * Messages are buffered and sent in batches on a single channel, either once
+ * the batch is full or after a short linger window. Each publish completes
+ * when the broker confirms the message, and fails if it is nacked, returned as
+ * unroutable, or not confirmed within the confirm timeout.
+ * The number of unconfirmed messages is published as the
+ * {@code order.publisher.in-flight} gauge and the time to confirm as the
+ * {@code order.publisher.confirm.latency} timer.
+ */
+@Component
+@Slf4j
+public class ConfirmingPublisher {
+  private final RabbitTemplate rabbitTemplate;
+  private final long linger;
+  private final int batchSize;
+  private final long confirmTimeout;
+  private final BlockingQueue<PendingMessage> buffer = new LinkedBlockingQueue<>();
+  private final Map<String, PendingMessage> inFlight = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+      runnable -> new Thread(runnable, "publisher-flush"));
+  private final Timer ackLatency;
+  private final Timer nackLatency;
+
+  public ConfirmingPublisher(@Qualifier("publisherRabbitTemplate") RabbitTemplate rabbitTemplate,
+      @Value("${order.publisher.linger}") long linger,
+      @Value("${order.publisher.batch-size}") int batchSize,
+      @Value("${order.publisher.confirm-timeout}") long confirmTimeout,
+      MeterRegistry meterRegistry) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.linger = linger;
+    this.batchSize = batchSize;
+    this.confirmTimeout = confirmTimeout;
+    this.ackLatency = confirmLatency("ack", meterRegistry);
+    this.nackLatency = confirmLatency("nack", meterRegistry);
+    Gauge.builder("order.publisher.in-flight", inFlight, Map::size).register(meterRegistry);
+    Gauge.builder("order.publisher.buffered", buffer, BlockingQueue::size).register(meterRegistry);
+  }
+
+  /**
+   * Registers the confirm and return callbacks and starts flushing the buffer.
+   */
+  @PostConstruct
+  void start() {
+    rabbitTemplate.setConfirmCallback(this::confirm);
+    rabbitTemplate.setReturnsCallback(this::returned);
+    flusher.scheduleWithFixedDelay(this::flush, linger, linger, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Sends the remaining buffered messages and stops flushing.
+   */
+  @PreDestroy
+  void stop() throws InterruptedException {
+    flusher.shutdown();
+    flusher.awaitTermination(linger, TimeUnit.MILLISECONDS);
+    flush();
+  }
+
+  /**
+   * Buffers a message for publishing.
+   *
+   * @param exchange   the exchange to publish the message to
+   * @param routingKey the routing key to publish the message with
+   * @param message    the message to publish
+   * @return a future completed when the broker confirms the message
+   */
+  public CompletableFuture<Void> publish(String exchange, String routingKey, Message message) {
+    PendingMessage pending = new PendingMessage(exchange, routingKey, message);
+    buffer.add(pending);
+    if (buffer.size() >= batchSize && !flusher.isShutdown())
+      flusher.execute(this::flush);
+
+    return pending.future;
+  }
+
+  /**
+   * Fails messages that outlived the confirm timeout and sends all buffered
+   * messages in batches.
+   */
+  void flush() {
+    expireUnconfirmed();
+    List<PendingMessage> batch = new ArrayList<>(batchSize);
+    while (buffer.drainTo(batch, batchSize) > 0) {
+      send(batch);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Completes the publish of a message the broker has confirmed or rejected.
+   *
+   * @param correlationData the correlation data the message was sent with
+   * @param ack             whether the broker acknowledged the message
+   * @param cause           the reason of a negative acknowledgement
+   * @see UnroutableMessageException
+   */
+  void confirm(CorrelationData correlationData, boolean ack, String cause) {
+    PendingMessage pending = correlationData == null ? null : inFlight.remove(correlationData.getId());
+    if (pending == null)
+      return;
+
+    long latency = System.nanoTime() - pending.sentAt;
+    if (ack && correlationData.getReturned() == null) {
+      ackLatency.record(latency, TimeUnit.NANOSECONDS);
+      pending.future.complete(null);
+      return;
+    }
+
+    nackLatency.record(latency, TimeUnit.NANOSECONDS);
+    AmqpException failure = ack
+        ? new UnroutableMessageException("Message was returned as unroutable")
+        : new AmqpException("Message was not acknowledged: " + cause);
+    log.warn("{}; exchange: {}, routing key: {}", failure.getMessage(), pending.exchange, pending.routingKey);
+    pending.future.completeExceptionally(failure);
+  }
+
+  /**
+   * Sends a batch of messages on a single channel.
+   *
+   * @param batch the messages to send
+   */
+  private void send(List<PendingMessage> batch) {
+    try {
+      rabbitTemplate.invoke(operations -> {
+        for (PendingMessage pending : batch) {
+          pending.sentAt = System.nanoTime();
+          inFlight.put(pending.id, pending);
+          operations.send(pending.exchange, pending.routingKey, pending.message, new CorrelationData(pending.id));
+        }
+        return null;
+      });
+    } catch (AmqpException e) {
+      log.warn("Failed to publish batch of {} messages: {}", batch.size(), e.getMessage());
+      batch.forEach(pending -> fail(pending, e));
+    }
+  }
+
+  /**
+   * Fails in-flight messages not confirmed within the confirm timeout.
+   */
+  private void expireUnconfirmed() {
+    long expiredBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(confirmTimeout);
+    inFlight.values().stream()
+        .filter(pending -> pending.sentAt - expiredBefore < 0)
+        .forEach(pending -> fail(pending,
+            new AmqpTimeoutException("Message was not confirmed within " + confirmTimeout + " ms")));
+  }
+
+  /**
+   * Fails the publish of a message unless it has already completed.
+   *
+   * @param pending the message
+   * @param cause   the failure
+   */
+  private void fail(PendingMessage pending, AmqpException cause) {
+    inFlight.remove(pending.id);
+    pending.future.completeExceptionally(cause);
+  }
+
+  /**
+   * Logs a message the broker returned as unroutable. The publish itself is
+   * failed when the message is confirmed.
+   *
+   * @param returned the returned message
+   */
+  private void returned(ReturnedMessage returned) {
+    log.warn("Message returned: {} {}; exchange: {}, routing key: {}", returned.getReplyCode(),
+        returned.getReplyText(), returned.getExchange(), returned.getRoutingKey());
+  }
+
+  private static Timer confirmLatency(String result, MeterRegistry meterRegistry) {
+    return Timer.builder("order.publisher.confirm.latency")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  /**
+   * A message waiting to be sent or confirmed.
+   */
+  private static final class PendingMessage {
+    private final String id = UUID.randomUUID().toString();
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+    private final String exchange;
+    private final String routingKey;
+    private final Message message;
+    private volatile long sentAt;
+
+    private PendingMessage(String exchange, String routingKey, Message message) {
+      this.exchange = exchange;
+      this.routingKey = routingKey;
+      this.message = message;
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package com.drevotiuk.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import com.drevotiuk.model.IdempotencyRecord;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.exception.IdempotencyConflictException;
+import com.drevotiuk.repository.IdempotencyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Service class for deduplicating order creation requests by their
+ * {@code Idempotency-Key}.
+ * A key is reserved by inserting an {@link IdempotencyRecord} whose
+ * {@code _id} is unique per user and key, so only one request can create the
+ * order. Completed records are kept in a bounded in-process cache, so retries
+ * are answered without a database round trip. A reservation whose request did
+ * not complete within the lease may be taken over by a retry.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+  private final IdempotencyRepository repository;
+  private final MongoTemplate mongoTemplate;
+  private final long lease;
+  private final Cache<String, IdempotencyRecord> completed;
+
+  public IdempotencyService(IdempotencyRepository repository, MongoTemplate mongoTemplate,
+      @Value("${order.idempotency.lease}") long lease,
+      @Value("${order.idempotency.cache.max-size}") long maxSize,
+      @Value("${order.idempotency.cache.ttl}") long ttl,
+      MeterRegistry meterRegistry) {
+    this.repository = repository;
+    this.mongoTemplate = mongoTemplate;
+    this.lease = lease;
+    this.completed = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .recordStats()
+        .<String, IdempotencyRecord>build(), "idempotency-keys");
+  }
+
+  /**
+   * Reserves the idempotency key of a user for creating an order of the given
+   * items. Runs outside of any transaction, so the reservation is visible to
+   * concurrent retries at once.
+   *
+   * @param userId the ID of the user placing the order
+   * @param key    the idempotency key sent by the client
+   * @param items  the {@link List} of {@link OrderItem} of the order
+   * @return the {@link OrderView} of the order created under the key before,
+   *         or an empty {@link Optional} if the key was reserved and the order
+   *         is to be created
+   * @throws IdempotencyConflictException if the key was used for different
+   *                                      items, or the order is still being
+   *                                      created by another request
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public Optional<OrderView> reserve(ObjectId userId, String key, List<OrderItem> items) {
+    String id = toId(userId, key);
+    String fingerprint = fingerprint(items);
+
+    IdempotencyRecord cached = completed.getIfPresent(id);
+    if (cached != null)
+      return Optional.of(replay(cached, fingerprint));
+
+    while (true) {
+      Instant now = Instant.now();
+      try {
+        repository.insert(new IdempotencyRecord(id, fingerprint, null, null, now, now));
+        return Optional.empty();
+      } catch (DuplicateKeyException e) {
+        Optional<IdempotencyRecord> existing = repository.findById(id);
+        if (existing.isPresent())
+          return resolve(existing.get(), fingerprint, now);
+        log.debug("Idempotency record {} was released, reserving again", id);
+      }
+    }
+  }
+
+  /**
+   * Records the order created under a reserved idempotency key. Joins the
+   * transaction of the caller, so the key is completed only together with the
+   * order; the record is cached once the transaction has committed.
+   *
+   * @param userId   the ID of the user placing the order
+   * @param key      the idempotency key sent by the client
+   * @param orderId  the ID of the created order
+   * @param response the {@link OrderView} returned for the created order
+   */
+  public void complete(ObjectId userId, String key, ObjectId orderId, OrderView response) {
+    String id = toId(userId, key);
+    IdempotencyRecord record = mongoTemplate.findAndModify(query(where("_id").is(id)),
+        completion(orderId, response), FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class);
+    if (record == null) {
+      log.warn("Idempotency record {} not found on completion", id);
+      return;
+    }
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      completed.put(id, record);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        completed.put(id, record);
+      }
+    });
+  }
+
+  /**
+   * Finds the ID of the order created under an idempotency key.
+   *
+   * @param userId the ID of the user who placed the order
+   * @param key    the idempotency key sent by the client
+   * @return the ID of the created order, or an empty {@link Optional} if no
+   *         order has been created under the key
+   */
+  public Optional<ObjectId> findOrderId(ObjectId userId, String key) {
+    String id = toId(userId, key);
+    IdempotencyRecord cached = completed.getIfPresent(id);
+    if (cached != null)
+      return Optional.of(cached.getOrderId());
+
+    return repository.findById(id).map(IdempotencyRecord::getOrderId);
+  }
+
+  /**
+   * Releases a reserved idempotency key whose order could not be created, so
+   * that a retry may create it. Keys of created orders are never released.
+   *
+   * @param userId the ID of the user placing the order
+   * @param key    the idempotency key sent by the client
+   */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public void release(ObjectId userId, String key) {
+    String id = toId(userId, key);
+    mongoTemplate.remove(query(where("_id").is(id).and("orderId").is(null)), IdempotencyRecord.class);
+  }
+
+  /**
+   * Resolves a reservation attempt against an existing record of the key.
+   *
+   * @param record      the existing {@link IdempotencyRecord}
+   * @param fingerprint the fingerprint of the items of the current request
+   * @param now         the time of the reservation attempt
+   * @return the {@link OrderView} of the created order, or an empty
+   *         {@link Optional} if the stale reservation was taken over
+   * @throws IdempotencyConflictException if the key was used for different
+   *                                      items, or the order is still being
+   *                                      created by another request
+   */
+  private Optional<OrderView> resolve(IdempotencyRecord record, String fingerprint, Instant now) {
+    if (record.getOrderId() != null) {
+      OrderView response = replay(record, fingerprint);
+      completed.put(record.getId(), record);
+      return Optional.of(response);
+    }
+
+    checkFingerprint(record, fingerprint);
+    boolean takenOver = mongoTemplate.updateFirst(
+        query(where("_id").is(record.getId())
+            .and("orderId").is(null)
+            .and("reservedAt").lt(now.minusMillis(lease))),
+        Update.update("reservedAt", now), IdempotencyRecord.class).getModifiedCount() == 1;
+    if (takenOver) {
+      log.info("Took over stale idempotency record {}", record.getId());
+      return Optional.empty();
+    }
+
+    throw new IdempotencyConflictException("Order with this idempotency key is already being created");
+  }
+
+  /**
+   * Returns the stored response of a completed record after verifying that the
+   * current request matches the original one.
+   *
+   * @param record      the completed {@link IdempotencyRecord}
+   * @param fingerprint the fingerprint of the items of the current request
+   * @return the stored {@link OrderView}
+   */
+  private OrderView replay(IdempotencyRecord record, String fingerprint) {
+    checkFingerprint(record, fingerprint);
+    log.info("Replaying order with ID {} for idempotency record {}", record.getOrderId(), record.getId());
+    return record.getResponse();
+  }
+
+  private void checkFingerprint(IdempotencyRecord record, String fingerprint) {
+    if (!record.getFingerprint().equals(fingerprint))
+      throw new IdempotencyConflictException("Idempotency key was already used for a different order");
+  }
+
+  static String toId(ObjectId userId, String key) {
+    return userId.toHexString() + ":" + key;
+  }
+
+  /**
+   * Builds the update that records the order created under a reserved key.
+   *
+   * @param orderId  the ID of the created order
+   * @param response the {@link OrderView} returned for the created order
+   * @return the {@link Update} completing the record
+   */
+  static Update completion(ObjectId orderId, OrderView response) {
+    return new Update().set("orderId", orderId).set("response", response);
+  }
+
+  /**
+   * Computes the fingerprint of order items, which tells a retry of a request
+   * from a different order sent under the same key.
+   *
+   * @param items the {@link List} of {@link OrderItem}
+   * @return the hex-encoded MD5 digest of the product IDs and quantities
+   */
+  static String fingerprint(List<OrderItem> items) {
+    String canonical = items.stream()
+        .map(item -> item.getProductId() + "x" + item.getQty())
+        .collect(Collectors.joining(","));
+    return DigestUtils.md5DigestAsHex(canonical.getBytes(StandardCharsets.UTF_8));
+  }
+}
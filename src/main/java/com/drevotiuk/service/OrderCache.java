@@ -0,0 +1,71 @@
+package com.drevotiuk.service;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.model.Order;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, expiring in-process read-through cache of orders by their ID.
+ * Cached orders hold only their owner and the fields of an order view.
+ * Entries are evicted by {@link OrderChangeNotifier} whenever orders are
+ * deleted or change their status on any service instance.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics
+ * under the {@code orders} cache name.
+ */
+@Component
+public class OrderCache {
+  private final boolean enabled;
+  private final Cache<ObjectId, Order> orders;
+  private final Counter invalidations;
+
+  public OrderCache(@Value("${order.cache.enabled}") boolean enabled,
+      @Value("${order.cache.max-size}") long maxSize,
+      @Value("${order.cache.ttl}") long ttl,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.orders = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .recordStats()
+        .<ObjectId, Order>build(), "orders");
+    this.invalidations = meterRegistry.counter("order.cache.invalidations");
+  }
+
+  /**
+   * Returns the cached order, loading and caching it on a miss. Missing orders
+   * are not cached.
+   *
+   * @param orderId the ID of the order
+   * @param loader  the function loading the order from the database
+   * @return an {@link Optional} of the {@link Order}, empty if not found
+   */
+  public Optional<Order> get(ObjectId orderId, Function<ObjectId, Optional<Order>> loader) {
+    if (!enabled)
+      return loader.apply(orderId);
+
+    return Optional.ofNullable(orders.get(orderId, id -> loader.apply(id).orElse(null)));
+  }
+
+  /**
+   * Evicts the cached orders.
+   *
+   * @param orderIds the IDs of the orders
+   */
+  public void evict(Collection<ObjectId> orderIds) {
+    orders.invalidateAll(orderIds);
+    invalidations.increment(orderIds.size());
+  }
+}
@@ -0,0 +1,159 @@
+package com.drevotiuk.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.amqp.core.ExchangeTypes;
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrdersChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the {@link OrderCache} and the {@link UserOrdersCache} of all service
+ * instances up to date with created, deleted and updated orders.
+ * Every change is written to the transactional outbox as an
+ * {@link OrdersChangedEvent} and published to a fanout exchange. The local
+ * caches are updated incrementally as soon as the transaction has committed,
+ * while the other instances evict the affected entries when the event
+ * arrives.
+ */
+@Component
+@Slf4j
+public class OrderChangeNotifier {
+  private final String instanceId = UUID.randomUUID().toString();
+  private final String exchange;
+  private final OutboxService outboxService;
+  private final OrderCache orderCache;
+  private final UserOrdersCache userOrdersCache;
+
+  public OrderChangeNotifier(@Value("${rabbitmq.exchange.order-cache}") String exchange,
+      OutboxService outboxService,
+      OrderCache orderCache,
+      UserOrdersCache userOrdersCache) {
+    this.exchange = exchange;
+    this.outboxService = outboxService;
+    this.orderCache = orderCache;
+    this.userOrdersCache = userOrdersCache;
+  }
+
+  /**
+   * Announces created orders.
+   *
+   * @param orders the created {@link Order} objects
+   */
+  public void created(List<Order> orders) {
+    publish(List.of(), userIds(orders));
+    afterCommit(() -> orders.forEach(userOrdersCache::append));
+  }
+
+  /**
+   * Announces deleted orders.
+   *
+   * @param orders the deleted {@link Order} objects with their IDs and user IDs
+   */
+  public void deleted(List<Order> orders) {
+    List<ObjectId> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+    publish(orderIds, userIds(orders));
+    afterCommit(() -> {
+      orderCache.evict(orderIds);
+      orders.forEach(userOrdersCache::remove);
+    });
+  }
+
+  /**
+   * Announces an order that has changed its status.
+   *
+   * @param order the updated {@link Order} with its user ID and view fields
+   */
+  public void updated(Order order) {
+    publish(List.of(order.getId()), List.of(order.getUserId()));
+    afterCommit(() -> {
+      orderCache.evict(List.of(order.getId()));
+      userOrdersCache.replace(order);
+    });
+  }
+
+  /**
+   * Announces orders that have changed in ways that cannot be applied to the
+   * cached order lists, which are evicted instead.
+   *
+   * @param orderIds the IDs of the changed orders
+   * @param userIds  the IDs of the users whose orders have changed
+   */
+  public void changed(Collection<ObjectId> orderIds, Collection<ObjectId> userIds) {
+    publish(orderIds, userIds);
+    afterCommit(() -> {
+      orderCache.evict(orderIds);
+      userOrdersCache.evict(userIds);
+    });
+  }
+
+  /**
+   * Evicts the changed orders announced by any service instance. Order lists
+   * are evicted only for changes made by other instances, since the own ones
+   * have already been applied. Every service instance binds its own anonymous
+   * queue to the fanout exchange, so all local caches receive the event.
+   *
+   * @param event the {@link OrdersChangedEvent}
+   */
+  @RabbitListener(bindings = @QueueBinding(
+      value = @Queue,
+      exchange = @Exchange(value = "${rabbitmq.exchange.order-cache}", type = ExchangeTypes.FANOUT)))
+  public void onOrdersChanged(OrdersChangedEvent event) {
+    log.debug("Evicting changed orders: {}", event);
+    orderCache.evict(toObjectIds(event.getOrderIds()));
+    if (!instanceId.equals(event.getOrigin()))
+      userOrdersCache.evict(toObjectIds(event.getUserIds()));
+  }
+
+  private void publish(Collection<ObjectId> orderIds, Collection<ObjectId> userIds) {
+    if (orderIds.isEmpty() && userIds.isEmpty())
+      return;
+
+    outboxService.enqueue(exchange, "", new OrdersChangedEvent(instanceId, toHexIds(orderIds), toHexIds(userIds)));
+  }
+
+  /**
+   * Runs the given action once the current transaction has committed, or at
+   * once if there is no transaction.
+   *
+   * @param action the action to run
+   */
+  private void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  private List<ObjectId> userIds(List<Order> orders) {
+    return orders.stream().map(Order::getUserId).distinct().collect(Collectors.toList());
+  }
+
+  private List<String> toHexIds(Collection<ObjectId> ids) {
+    return ids.stream().map(ObjectId::toHexString).collect(Collectors.toList());
+  }
+
+  private List<ObjectId> toObjectIds(List<String> hexIds) {
+    return hexIds == null ? List.of() : hexIds.stream().map(ObjectId::new).collect(Collectors.toList());
+  }
+}
@@ -1,28 +1,56 @@
 package com.drevotiuk.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.bson.types.ObjectId;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
+import com.drevotiuk.model.BulkDeleteResult;
+import com.drevotiuk.model.BulkStatusUpdateResult;
+import com.drevotiuk.model.DailyRevenue;
 import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderCursor;
+import com.drevotiuk.model.OrderOwner;
+import com.drevotiuk.model.OrderPage;
 import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderStatusSummary;
+import com.drevotiuk.model.OrderStatusUpdate;
 import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.ProductSales;
 import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.InvalidStatusTransitionException;
+import com.drevotiuk.model.exception.OrderConflictException;
+import com.drevotiuk.model.exception.OrderNotFoundException;
 import com.drevotiuk.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoException;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import static org.springframework.util.Assert.isTrue;
+
 /**
  * Service class responsible for managing orders for admin users.
- * It includes methods to fetch all orders, find specific orders, and delete
- * orders.
- * Additionally, it interacts with RabbitMQ for messaging related to restoring
- * product quantities.
+ * It includes methods to fetch all orders, find specific orders, delete
+ * orders, and aggregate order analytics on the database.
+ * Additionally, it enqueues messages related to restoring product quantities
+ * in the transactional outbox.
  */
 @Service
 @RequiredArgsConstructor
@@ -32,71 +60,438 @@ public class OrderManagementService {
   private String productServiceExchange;
   @Value("${rabbitmq.routingkey.restore-qty}")
   private String restoreQtyRoutingKey;
+  @Value("${order.pagination.max-size}")
+  private int maxPageSize;
+  @Value("${order.bulk.max-size}")
+  private int bulkMaxSize;
+  @Value("${order.bulk.delete-attempts}")
+  private int bulkDeleteAttempts;
+  @Value("${order.status.batch-size}")
+  private int statusBatchSize;
+  @Value("${order.analytics.default-period}")
+  private int analyticsDefaultPeriod;
+  @Value("${order.analytics.max-top-products}")
+  private int maxTopProducts;
 
   private final OrderRepository repository;
   private final OrderServiceUtils serviceUtils;
-  private final RabbitTemplate rabbitTemplate;
+  private final OutboxService outboxService;
+  private final OrderChangeNotifier changeNotifier;
+  private final ObjectMapper objectMapper;
+  private final TransactionOperations transactionOperations;
 
   /**
-   * Retrieves all orders from the repository and maps them to {@link OrderView}
-   * objects.
+   * Retrieves a page of orders, newest first, and maps them to
+   * {@link OrderView} objects.
    *
-   * @return a {@link List} of {@link OrderView} objects representing all orders
+   * @param continuationToken the token returned with the previous page, or
+   *                          {@code null} for the first page
+   * @param size              the requested page size, capped at the configured
+   *                          maximum
+   * @return an {@link OrderPage} of {@link OrderView} objects
+   * @throws IllegalArgumentException if the token is malformed or the size is
+   *                                  not positive
    */
-  public List<OrderView> findAll() {
-    log.info("Fetching all orders");
-    return repository.findAll().stream()
-        .map(OrderView::new)
-        .collect(Collectors.toList());
+  @Timed(value = "order.management", extraTags = { "operation", "find-all" }, histogram = true)
+  public OrderPage findAll(String continuationToken, int size) {
+    log.info("Fetching page of orders");
+    int limit = pageLimit(size);
+    return OrderPage.of(repository.findPage(OrderCursor.decode(continuationToken), limit + 1), limit);
   }
 
   /**
-   * Finds a specific order by its ID.
+   * Finds a specific order by its ID, fetching only the view fields.
    *
    * @param orderId the ID of the order to retrieve
    * @return an {@link OrderView} object representing the order
    */
+  @Timed(value = "order.management", extraTags = { "operation", "find" }, histogram = true)
   public OrderView find(ObjectId orderId) {
     log.info("Fetching order with ID {}", orderId);
-    return new OrderView(serviceUtils.findById(orderId));
+    return serviceUtils.findViewById(orderId);
+  }
+
+  /**
+   * Retrieves a page of orders of a specific user by their user ID, newest
+   * first.
+   *
+   * @param userId            the ID of the user whose orders are to be
+   *                          retrieved
+   * @param continuationToken the token returned with the previous page, or
+   *                          {@code null} for the first page
+   * @param size              the requested page size, capped at the configured
+   *                          maximum
+   * @return an {@link OrderPage} of {@link OrderView} objects representing the
+   *         user's orders
+   * @throws IllegalArgumentException if the token is malformed or the size is
+   *                                  not positive
+   */
+  @Timed(value = "order.management", extraTags = { "operation", "find-all-of-user" }, histogram = true)
+  public OrderPage findAllOfUser(ObjectId userId, String continuationToken, int size) {
+    log.info("Fetching page of orders of user with ID {}", userId);
+    int limit = pageLimit(size);
+    return OrderPage.of(repository.findPageByUserId(userId, OrderCursor.decode(continuationToken), limit + 1), limit);
   }
 
   /**
-   * Retrieves all orders for a specific user by their user ID.
+   * Writes all orders to the given stream as newline-delimited JSON, one
+   * {@link Order} per line, straight from a database cursor.
+   * Orders are read in cursor batches only as fast as the client consumes
+   * them, and the cursor is closed as soon as writing fails, e.g. when the
+   * client disconnects.
    *
-   * @param userId the ID of the user whose orders are to be retrieved
-   * @return a list of {@link OrderView} objects representing the user's orders
+   * @param outputStream the stream to write the orders to
+   * @throws IOException if writing to the stream fails
    */
-  public List<OrderView> findAllOfUser(ObjectId userId) {
-    log.info("Fetching all orders of user with ID {}", userId);
-    return serviceUtils.findAllViewsByUserId(userId);
+  @Timed(value = "order.management", extraTags = { "operation", "export" }, histogram = true)
+  public void exportAll(OutputStream outputStream) throws IOException {
+    log.info("Exporting all orders");
+    long exported = 0;
+    try (Stream<Order> orders = repository.streamAllBy()) {
+      Iterator<Order> iterator = orders.iterator();
+      while (iterator.hasNext()) {
+        outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+        outputStream.write('\n');
+        exported++;
+      }
+    } catch (IOException e) {
+      log.warn("Export aborted after {} orders: {}", exported, e.getMessage());
+      throw e;
+    }
+
+    outputStream.flush();
+    log.info("Exported {} orders", exported);
   }
 
   /**
-   * Deletes an order by its ID.
+   * Deletes an order by its ID unless it has been delivered, with a single
+   * atomic operation, and, in the same transaction, enqueues the messages to
+   * restore its product quantities and to remove it from the order caches.
+   * The order is looked up again only to tell a delivered order from a
+   * missing one.
    *
    * @param orderId the ID of the order to delete
-   * @throws ForbiddenException if the order has already been delivered
+   * @throws ForbiddenException     if the order has already been delivered
+   * @throws OrderNotFoundException if no order is found with the given ID
    */
+  @Transactional
+  @Timed(value = "order.management", extraTags = { "operation", "delete" }, histogram = true)
   public void delete(ObjectId orderId) {
     log.info("Deleting order with ID {}", orderId);
-    Order order = serviceUtils.findById(orderId);
-    if (order.getStatus() == OrderStatus.DELIVERED) {
-      log.warn("Order has already been delivered and cannot be deleted");
-      throw new ForbiddenException("Order has already been delivered and cannot be deleted");
+    Order order = repository.deleteUndeliveredById(orderId)
+        .orElseThrow(() -> createNotDeletableException(orderId));
+    if (order.getStatus().holdsStock())
+      sendRestoreQtyMessage(order);
+    changeNotifier.deleted(List.of(order));
+  }
+
+  /**
+   * Deletes all given orders that have not been delivered with a single bulk
+   * delete and, in the same transaction, enqueues one message to restore the
+   * product quantities of all deleted orders, summed up per product. Orders
+   * that had not been priced yet hold no stock and are not restored.
+   * The transaction is retried up to the configured number of attempts if it
+   * conflicts with a concurrent change to one of the orders.
+   *
+   * @param orderIds the IDs of the orders to delete
+   * @return the {@link BulkDeleteResult} telling the deleted orders from the
+   *         ones that were not found or have been delivered
+   * @throws IllegalArgumentException if there are more orders than allowed
+   * @throws OrderConflictException   if the orders kept being changed
+   *                                  concurrently
+   */
+  @Timed(value = "order.management", extraTags = { "operation", "bulk-delete" }, histogram = true)
+  public BulkDeleteResult deleteAll(List<ObjectId> orderIds) {
+    isTrue(orderIds.size() <= bulkMaxSize, "At most " + bulkMaxSize + " orders can be deleted at once");
+    log.info("Deleting {} orders", orderIds.size());
+
+    for (int attempt = 1;; attempt++) {
+      try {
+        return transactionOperations.execute(status -> deleteUndelivered(new LinkedHashSet<>(orderIds)));
+      } catch (RuntimeException e) {
+        if (!isTransientTransactionError(e))
+          throw e;
+        if (attempt >= bulkDeleteAttempts) {
+          log.warn("Deleting orders conflicted with concurrent changes {} times", attempt);
+          throw new OrderConflictException("Orders were changed concurrently, please retry", e);
+        }
+        log.info("Deleting orders conflicted with concurrent changes, retrying: {}", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Deletes the given orders that have not been delivered and enqueues the
+   * messages about their deletion. Must run in a transaction.
+   *
+   * @param requestedIds the IDs of the orders to delete
+   * @return the {@link BulkDeleteResult}
+   */
+  private BulkDeleteResult deleteUndelivered(Set<ObjectId> requestedIds) {
+    List<Order> deleted = repository.deleteUndeliveredByIds(requestedIds);
+    List<Order> holdingStock = deleted.stream()
+        .filter(order -> order.getStatus().holdsStock())
+        .collect(Collectors.toList());
+    if (!holdingStock.isEmpty()) {
+      log.info("Sending message to restore qty in {} deleted orders", holdingStock.size());
+      outboxService.enqueue(productServiceExchange, restoreQtyRoutingKey,
+          serviceUtils.aggregateQuantities(holdingStock));
     }
-    repository.deleteById(orderId);
-    sendRestoreQtyMessage(order);
+
+    List<ObjectId> deletedIds = deleted.stream().map(Order::getId).collect(Collectors.toList());
+    changeNotifier.deleted(deleted);
+    requestedIds.removeAll(deletedIds);
+    log.info("Deleted {} orders, skipped {}", deletedIds.size(), requestedIds.size());
+    return new BulkDeleteResult(deletedIds, new ArrayList<>(requestedIds));
+  }
+
+  /**
+   * Checks whether a failure is a transient transaction error, such as a write
+   * conflict, after which the whole transaction can be retried.
+   *
+   * @param e the failure
+   * @return true if the transaction can be retried
+   */
+  private static boolean isTransientTransactionError(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof MongoException
+          && ((MongoException) cause).hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL))
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Moves an order to the next status with a single atomic update that
+   * applies only if the order has the preceding status. The order is looked up
+   * again only to tell an order in another status from a missing one.
+   *
+   * @param orderId the ID of the order
+   * @param status  the status to move the order to
+   * @return the {@link OrderView} of the updated order
+   * @throws InvalidStatusTransitionException if the order does not have the
+   *                                          status preceding the requested
+   *                                          one
+   * @throws OrderNotFoundException           if no order is found with the
+   *                                          given ID
+   */
+  @Transactional
+  @Timed(value = "order.management", extraTags = { "operation", "update-status" }, histogram = true)
+  public OrderView updateStatus(ObjectId orderId, OrderStatus status) {
+    log.info("Moving order with ID {} to status {}", orderId, status);
+    OrderStatus predecessor = predecessorOf(status);
+    Order order = repository.updateStatus(orderId, predecessor, status)
+        .orElseThrow(() -> createInvalidTransitionException(orderId, predecessor, status));
+    changeNotifier.updated(order);
+    return new OrderView(order);
+  }
+
+  /**
+   * Applies many status updates at once, in chunks of the configured batch
+   * size. The updates of a chunk are grouped by target status, and each group
+   * is applied with a single conditional update; an order may thus be shipped
+   * and delivered within the same chunk. Updates that do not apply to the
+   * current status of an order are skipped. The orders of each chunk are
+   * evicted from the order caches once the chunk has been applied.
+   *
+   * @param updates the {@link List} of {@link OrderStatusUpdate}
+   * @return the {@link BulkStatusUpdateResult}
+   */
+  @Timed(value = "order.management", extraTags = { "operation", "bulk-update-status" }, histogram = true)
+  public BulkStatusUpdateResult updateStatuses(List<OrderStatusUpdate> updates) {
+    log.info("Applying {} order status updates", updates.size());
+    long updated = 0;
+    for (int from = 0; from < updates.size(); from += statusBatchSize) {
+      List<OrderStatusUpdate> chunk = updates.subList(from, Math.min(from + statusBatchSize, updates.size()));
+      Map<OrderStatus, List<ObjectId>> orderIdsByStatus = chunk.stream()
+          .filter(update -> update.getOrderId() != null && update.getStatus() != null)
+          .collect(Collectors.groupingBy(OrderStatusUpdate::getStatus, () -> new EnumMap<>(OrderStatus.class),
+              Collectors.mapping(OrderStatusUpdate::getOrderId, Collectors.toList())));
+
+      for (Map.Entry<OrderStatus, List<ObjectId>> entry : orderIdsByStatus.entrySet()) {
+        OrderStatus predecessor = entry.getKey().getPredecessor();
+        if (predecessor == null) {
+          log.warn("Skipping {} updates to status {}", entry.getValue().size(), entry.getKey());
+          continue;
+        }
+        updated += repository.updateStatuses(entry.getValue(), predecessor, entry.getKey());
+      }
+      announceChanged(orderIdsByStatus.values().stream()
+          .flatMap(List::stream)
+          .collect(Collectors.toList()));
+    }
+
+    log.info("Applied {} of {} order status updates", updated, updates.size());
+    return new BulkStatusUpdateResult(updates.size(), updated);
+  }
+
+  /**
+   * Counts the orders placed within a period and sums their revenue by status.
+   * The aggregation runs on the database, so no orders are loaded.
+   *
+   * @param from the start of the period, inclusive, or {@code null} for the
+   *             configured number of days before its end
+   * @param to   the end of the period, exclusive, or {@code null} for now
+   * @return a list of {@link OrderStatusSummary} objects
+   * @throws IllegalArgumentException if the period does not end after it starts
+   */
+  @Timed(value = "order.management", extraTags = { "operation", "status-summary" }, histogram = true)
+  public List<OrderStatusSummary> summarizeByStatus(LocalDateTime from, LocalDateTime to) {
+    LocalDateTime end = periodEnd(to);
+    LocalDateTime start = periodStart(from, end);
+    log.info("Summarizing orders by status from {} to {}", start, end);
+    return repository.summarizeByStatus(start, end);
   }
 
   /**
-   * Sends a message to RabbitMQ to restore the product quantities in the
-   * deleted order.
+   * Counts the orders placed within a period and sums their revenue per day.
+   * Only orders that hold stock are counted. The aggregation runs on the
+   * database, so no orders are loaded.
+   *
+   * @param from the start of the period, inclusive, or {@code null} for the
+   *             configured number of days before its end
+   * @param to   the end of the period, exclusive, or {@code null} for now
+   * @return a list of {@link DailyRevenue} objects, oldest day first
+   * @throws IllegalArgumentException if the period does not end after it starts
+   */
+  @Timed(value = "order.management", extraTags = { "operation", "revenue-per-day" }, histogram = true)
+  public List<DailyRevenue> findRevenuePerDay(LocalDateTime from, LocalDateTime to) {
+    LocalDateTime end = periodEnd(to);
+    LocalDateTime start = periodStart(from, end);
+    log.info("Summarizing revenue per day from {} to {}", start, end);
+    return repository.findRevenuePerDay(start, end);
+  }
+
+  /**
+   * Finds the products ordered in the largest quantities within a period.
+   * Only orders that hold stock are counted. The aggregation runs on the
+   * database, so no orders are loaded.
+   *
+   * @param from  the start of the period, inclusive, or {@code null} for the
+   *              configured number of days before its end
+   * @param to    the end of the period, exclusive, or {@code null} for now
+   * @param limit the requested number of products, capped at the configured
+   *              maximum
+   * @return a list of {@link ProductSales} objects, largest quantity first
+   * @throws IllegalArgumentException if the period does not end after it
+   *                                  starts or the limit is not positive
+   */
+  @Timed(value = "order.management", extraTags = { "operation", "top-products" }, histogram = true)
+  public List<ProductSales> findTopProducts(LocalDateTime from, LocalDateTime to, int limit) {
+    isTrue(limit > 0, "Limit must be positive");
+    LocalDateTime end = periodEnd(to);
+    LocalDateTime start = periodStart(from, end);
+    log.info("Finding top products from {} to {}", start, end);
+    return repository.findTopProducts(start, end, Math.min(limit, maxTopProducts));
+  }
+
+  /**
+   * Enqueues a message to restore the product quantities in the deleted order.
    *
    * @param order the deleted {@link Order}
    */
   private void sendRestoreQtyMessage(Order order) {
     log.info("Sending message to restore qty in order with ID {}", order.getId());
-    rabbitTemplate.convertAndSend(productServiceExchange, restoreQtyRoutingKey, order.getOrderItems());
+    outboxService.enqueue(productServiceExchange, restoreQtyRoutingKey, order.getOrderItems());
+  }
+
+  /**
+   * Creates the exception for an order that could not be deleted, telling a
+   * delivered order from a missing one.
+   *
+   * @param orderId the ID of the order
+   * @return the created {@link ForbiddenException}
+   * @throws OrderNotFoundException if no order is found with the given ID
+   */
+  private ForbiddenException createNotDeletableException(ObjectId orderId) {
+    serviceUtils.findOwnerId(orderId);
+    log.warn("Order has already been delivered and cannot be deleted");
+    return new ForbiddenException("Order has already been delivered and cannot be deleted");
+  }
+
+  /**
+   * Announces orders whose status may have changed to the order caches. The
+   * owners of the orders are looked up with a single projection query.
+   *
+   * @param orderIds the IDs of the orders
+   */
+  private void announceChanged(List<ObjectId> orderIds) {
+    List<ObjectId> userIds = repository.findOwnersByIdIn(orderIds).stream()
+        .map(OrderOwner::getUserId)
+        .distinct()
+        .collect(Collectors.toList());
+    changeNotifier.changed(orderIds, userIds);
+  }
+
+  /**
+   * Returns the status an order must have to be moved to the given status.
+   *
+   * @param status the requested status
+   * @return the preceding {@link OrderStatus}
+   * @throws InvalidStatusTransitionException if no order can be moved to the
+   *                                          status
+   */
+  private OrderStatus predecessorOf(OrderStatus status) {
+    OrderStatus predecessor = status.getPredecessor();
+    if (predecessor == null)
+      throw new InvalidStatusTransitionException("Orders cannot be moved to status " + status);
+
+    return predecessor;
+  }
+
+  /**
+   * Creates the exception for an order that could not be moved to a status,
+   * telling an order in another status from a missing one.
+   *
+   * @param orderId     the ID of the order
+   * @param predecessor the status the order was expected to have
+   * @param status      the requested status
+   * @return the created {@link InvalidStatusTransitionException}
+   * @throws OrderNotFoundException if no order is found with the given ID
+   */
+  private InvalidStatusTransitionException createInvalidTransitionException(ObjectId orderId,
+      OrderStatus predecessor, OrderStatus status) {
+    serviceUtils.findOwnerId(orderId);
+    log.warn("Order with ID {} is not in status {}", orderId, predecessor);
+    return new InvalidStatusTransitionException(
+        "Order can be moved to status " + status + " only from status " + predecessor);
+  }
+
+  /**
+   * Validates the requested page size and caps it at the configured maximum.
+   *
+   * @param size the requested page size
+   * @return the number of orders to return in the page
+   * @throws IllegalArgumentException if the size is not positive
+   */
+  private int pageLimit(int size) {
+    isTrue(size > 0, "Page size must be positive");
+    return Math.min(size, maxPageSize);
+  }
+
+  /**
+   * Returns the end of an analytics period, defaulting to now.
+   *
+   * @param to the requested end of the period, or {@code null}
+   * @return the end of the period
+   */
+  private LocalDateTime periodEnd(LocalDateTime to) {
+    return to != null ? to : LocalDateTime.now();
+  }
+
+  /**
+   * Returns the start of an analytics period, defaulting to the configured
+   * number of days before its end, so that every aggregation matches a
+   * bounded range of order times.
+   *
+   * @param from the requested start of the period, or {@code null}
+   * @param end  the end of the period
+   * @return the start of the period
+   * @throws IllegalArgumentException if the period does not end after it starts
+   */
+  private LocalDateTime periodStart(LocalDateTime from, LocalDateTime end) {
+    LocalDateTime start = from != null ? from : end.minusDays(analyticsDefaultPeriod);
+    isTrue(start.isBefore(end), "Period must end after it starts");
+    return start;
   }
 }
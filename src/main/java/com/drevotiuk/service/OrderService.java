@@ -1,97 +1,271 @@
 package com.drevotiuk.service;
 
+import com.drevotiuk.model.BulkOrderResult;
 import com.drevotiuk.model.Order;
 import com.drevotiuk.model.OrderItem;
 import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.IdempotencyConflictException;
+import com.drevotiuk.model.exception.InvalidOrderItemException;
 import com.drevotiuk.model.OrderStatus;
 import com.drevotiuk.model.OrderView;
-import com.drevotiuk.repository.OrderRepository;
+import com.drevotiuk.model.UserOrders;
+import com.drevotiuk.model.exception.OrderNotFoundException;
+import com.drevotiuk.model.exception.PriceQuoteException;
+import com.drevotiuk.service.OrderServiceUtils.BulkQuote;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import org.bson.types.ObjectId;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+
+import static org.springframework.util.Assert.isTrue;
 
 /**
  * Service class for managing orders within the Order Service.
  * Provides methods to find all orders for a user, retrieve a specific order,
- * and create a new order. It also interacts with RabbitMQ for messaging and
- * uses utility methods from {@link OrderServiceUtils}.
+ * and create a new order. The phases of order creation are delegated to
+ * {@link OrderServiceUtils}, where each of them is timed, and messages to
+ * other services are written to the transactional outbox. Prices are quoted
+ * before the transaction that saves the order starts, so that no database
+ * session is held while waiting for the product service.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OrderService {
-  @Value("${rabbitmq.exchange.product-service}")
-  private String productServiceExchange;
-  @Value("${rabbitmq.routingkey.fetch-qty}")
-  private String fetchQtyRoutingKey;
+  @Value("${order.bulk.max-size}")
+  private int bulkMaxSize;
 
-  private final OrderRepository repository;
   private final OrderServiceUtils serviceUtils;
-  private final RabbitTemplate rabbitTemplate;
+  private final IdempotencyService idempotencyService;
+  private final CheckoutWorker checkoutWorker;
+  private final TransactionOperations transactionOperations;
+
+  /**
+   * The modes in which orders are created.
+   */
+  public enum CheckoutMode {
+    /** Orders are priced, saved and announced within the request. */
+    SYNC,
+    /**
+     * Orders are saved awaiting pricing within the request, and priced and
+     * announced by the {@link CheckoutWorker}.
+     */
+    ASYNC
+  }
 
   /**
-   * Retrieves all orders associated with a given user.
+   * Retrieves all orders associated with a given user from the user order
+   * list cache.
    *
    * @param userId the ID of the user whose orders are to be retrieved
-   * @return a {@link List} of {@link OrderView} for the specified user
+   * @return the {@link UserOrders} holding the {@link OrderView} of every order
+   *         of the specified user and their entity tag
    */
-  public List<OrderView> findAll(ObjectId userId) {
+  public UserOrders findAll(ObjectId userId) {
     log.info("Fetching all orders of user with ID {}", userId);
     return serviceUtils.findAllViewsByUserId(userId);
   }
 
   /**
    * Retrieves a specific order and verifies that it belongs to the specified
-   * user.
+   * user. The order is read through the {@link OrderCache}, so polling the
+   * status of an order mostly does not reach the database.
    *
    * @param orderId the ID of the order to be retrieved
    * @param userId  the ID of the user to verify ownership of the order
    * @return the found {@link OrderView} representing user's order
-   * @throws ForbiddenException if the order does not belong to the specified
-   *                            user
+   * @throws ForbiddenException    if the order does not belong to the
+   *                               specified user
+   * @throws OrderNotFoundException if no order is found with the given ID
    */
   public OrderView find(ObjectId orderId, ObjectId userId) {
     log.info("Fetching order with ID {}", orderId);
-    Order order = serviceUtils.findById(orderId);
+    Order order = serviceUtils.findCachedById(orderId);
     if (!order.getUserId().equals(userId)) {
       log.warn("UserIDs do not match: {}, {}", order.getUserId(), userId);
       throw new ForbiddenException("UserIDs do not match");
     }
-
     return new OrderView(order);
   }
 
   /**
    * Creates a new {@link Order} based on the provided order request and user
    * ID.
-   * Saves the order to the repository, sends a message to fetch product
-   * quantities, and sends an email notification about the order creation.
+   * Quotes the order, then saves it to the repository and, in the same
+   * transaction, enqueues the messages to fetch product quantities and to send
+   * an email notification about the order creation.
+   * If an idempotency key is given, a retried request returns the order created
+   * under the key before, without quoting prices or enqueueing messages again.
+   * The key is completed in the transaction that saves the order.
    *
-   * @param orderItems the @{@link List} of {@link OrderItem}
-   * @param userId     the ID of the user placing the order
+   * @param orderItems     the @{@link List} of {@link OrderItem}
+   * @param userId         the ID of the user placing the order
+   * @param idempotencyKey the idempotency key sent by the client, or
+   *                       {@code null} if the request is not to be deduplicated
    * @return the found {@link OrderView} representing created order
+   * @throws IdempotencyConflictException if the key was used for a different
+   *                                      order, or the order is still being
+   *                                      created by another request
+   */
+  @Timed(value = "order.create", histogram = true)
+  public OrderView create(List<OrderItem> orderItems, ObjectId userId, String idempotencyKey) {
+    if (idempotencyKey == null)
+      return new OrderView(createOrder(orderItems, userId, null));
+
+    Optional<OrderView> replay = idempotencyService.reserve(userId, idempotencyKey, orderItems);
+    if (replay.isPresent())
+      return replay.get();
+
+    try {
+      return new OrderView(createOrder(orderItems, userId, idempotencyKey));
+    } catch (RuntimeException e) {
+      idempotencyService.release(userId, idempotencyKey);
+      throw e;
+    }
+  }
+
+  /**
+   * Accepts a new order for asynchronous checkout. The order is saved
+   * awaiting pricing and handed to the {@link CheckoutWorker} once the
+   * transaction has committed, so the request does not wait for the product
+   * service.
+   * If an idempotency key is given, a retried request returns the ID of the
+   * order accepted under the key before.
+   *
+   * @param orderItems     the @{@link List} of {@link OrderItem}
+   * @param userId         the ID of the user placing the order
+   * @param idempotencyKey the idempotency key sent by the client, or
+   *                       {@code null} if the request is not to be deduplicated
+   * @return the ID of the accepted order
+   * @throws IdempotencyConflictException if the key was used for a different
+   *                                      order, or the order is still being
+   *                                      accepted by another request
+   */
+  @Transactional
+  @Timed(value = "order.submit", histogram = true)
+  public ObjectId submit(List<OrderItem> orderItems, ObjectId userId, String idempotencyKey) {
+    if (idempotencyKey == null)
+      return acceptOrder(orderItems, userId).getId();
+
+    if (idempotencyService.reserve(userId, idempotencyKey, orderItems).isPresent())
+      return idempotencyService.findOrderId(userId, idempotencyKey)
+          .orElseThrow(() -> new IdempotencyConflictException("Order with this idempotency key was not found"));
+
+    try {
+      Order order = acceptOrder(orderItems, userId);
+      idempotencyService.complete(userId, idempotencyKey, order.getId(), new OrderView(order));
+      return order.getId();
+    } catch (RuntimeException e) {
+      idempotencyService.release(userId, idempotencyKey);
+      throw e;
+    }
+  }
+
+  /**
+   * Creates many orders of a user at once.
+   * All distinct products are quoted in one pass for their quantities summed
+   * over all orders, then the valid orders are saved with a single bulk insert
+   * and, in the same transaction, the email notifications and one aggregated
+   * message to fetch product quantities are enqueued. Orders with invalid
+   * items or with products that could not be quoted are rejected individually
+   * without failing the others.
+   *
+   * @param orders the {@link List} of orders, each a {@link List} of
+   *               {@link OrderItem}
+   * @param userId the ID of the user placing the orders
+   * @return the {@link List} of {@link BulkOrderResult}, one per order in the
+   *         order of the request
+   * @throws IllegalArgumentException if there are more orders than allowed
    */
-  public OrderView create(List<OrderItem> orderItems, ObjectId userId) {
+  @Timed(value = "order.bulk-create", histogram = true)
+  public List<BulkOrderResult> createAll(List<List<OrderItem>> orders, ObjectId userId) {
+    isTrue(orders.size() <= bulkMaxSize, "At most " + bulkMaxSize + " orders can be created at once");
+    log.info("Adding {} new orders of user with ID {}", orders.size(), userId);
+
+    BulkQuote bulkQuote = serviceUtils.quoteProducts(orders);
+    List<BulkOrderResult> results = new ArrayList<>(orders.size());
+    List<Order> created = new ArrayList<>(orders.size());
+    for (int i = 0; i < orders.size(); i++) {
+      List<OrderItem> orderItems = orders.get(i);
+      BigDecimal totalPrice;
+      try {
+        totalPrice = bulkQuote.totalPriceOf(orderItems);
+      } catch (InvalidOrderItemException | PriceQuoteException e) {
+        log.warn("Rejecting order {} of bulk request: {}", i, e.getMessage());
+        results.add(BulkOrderResult.rejected(i, e.getMessage()));
+        continue;
+      }
+
+      Order order = buildOrder(orderItems, userId, totalPrice);
+      created.add(order);
+      results.add(BulkOrderResult.created(i, new OrderView(order)));
+    }
+
+    if (!created.isEmpty()) {
+      transactionOperations.executeWithoutResult(status -> {
+        serviceUtils.saveAll(created);
+        serviceUtils.sendOrderCreatedEmails(created);
+        serviceUtils.sendFetchQtyMessages(created);
+      });
+    }
+    log.info("Created {} of {} orders of user with ID {}", created.size(), orders.size(), userId);
+    return results;
+  }
+
+  /**
+   * Quotes a new {@link Order}, then saves and announces it in a transaction,
+   * in which the reserved idempotency key, if any, is completed as well.
+   *
+   * @param orderItems     the {@link List} of {@link OrderItem}
+   * @param userId         the ID of the user placing the order
+   * @param idempotencyKey the reserved idempotency key, or {@code null}
+   * @return the created {@link Order}
+   */
+  private Order createOrder(List<OrderItem> orderItems, ObjectId userId, String idempotencyKey) {
     log.info("Adding new order: {}", orderItems.toString());
 
     BigDecimal totalPrice = serviceUtils.calculateTotalPrice(orderItems);
     Order order = buildOrder(orderItems, userId, totalPrice);
-    serviceUtils.sendOrderCreatedEmail(order, totalPrice);
-    repository.save(order);
+    transactionOperations.executeWithoutResult(status -> {
+      serviceUtils.save(order);
+      serviceUtils.sendOrderCreatedEmail(order, totalPrice);
+      serviceUtils.sendFetchQtyMessage(order);
+      if (idempotencyKey != null)
+        idempotencyService.complete(userId, idempotencyKey, order.getId(), new OrderView(order));
+    });
 
-    log.info("Sending message to fetch product quantities; orderID: {}", order.getId());
-    rabbitTemplate.convertAndSend(productServiceExchange, fetchQtyRoutingKey, orderItems);
+    return order;
+  }
 
-    return new OrderView(order);
+  /**
+   * Saves a new {@link Order} awaiting pricing and submits it to the
+   * {@link CheckoutWorker}.
+   *
+   * @param orderItems the {@link List} of {@link OrderItem}
+   * @param userId     the ID of the user placing the order
+   * @return the accepted {@link Order}
+   */
+  private Order acceptOrder(List<OrderItem> orderItems, ObjectId userId) {
+    log.info("Accepting new order: {}", orderItems.toString());
+
+    Order order = buildOrder(orderItems, userId, null);
+    order.setStatus(OrderStatus.PENDING_PRICING);
+    serviceUtils.save(order);
+    checkoutWorker.submit(order);
+
+    return order;
   }
 
   /**
@@ -1,23 +1,41 @@
 package com.drevotiuk.service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import org.bson.types.ObjectId;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.drevotiuk.model.Order;
 import com.drevotiuk.model.OrderEmailDetails;
 import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderOwner;
+import com.drevotiuk.model.OrderPriceQuote;
 import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.UserOrders;
 import com.drevotiuk.model.exception.InvalidOrderItemException;
 import com.drevotiuk.model.exception.OrderNotFoundException;
+import com.drevotiuk.model.exception.PriceQuoteException;
 import com.drevotiuk.repository.OrderRepository;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -35,13 +53,104 @@ public class OrderServiceUtils {
   private String productServiceExchange;
   @Value("${rabbitmq.exchange.notification-service}")
   private String notificationServiceExchange;
-  @Value("${rabbitmq.routingkey.total-price}")
-  private String totalPriceRoutingKey;
+  @Value("${rabbitmq.routingkey.fetch-qty}")
+  private String fetchQtyRoutingKey;
   @Value("${rabbitmq.routingkey.order-created}")
   private String orderCreatedRoutingKey;
+  @Value("${order.quote.mode}")
+  private QuoteMode quoteMode;
+  @Value("${order.quote.deadline}")
+  private long quoteDeadline;
 
   private final OrderRepository repository;
-  private final RabbitTemplate rabbitTemplate;
+  private final ProductPriceClient priceClient;
+  @Qualifier("quoteExecutor")
+  private final Executor quoteExecutor;
+  private final ProductPriceCache priceCache;
+  private final OutboxService outboxService;
+  private final OrderCache orderCache;
+  private final UserOrdersCache userOrdersCache;
+  private final OrderChangeNotifier changeNotifier;
+
+  /**
+   * Strategies for requesting item prices from the product service.
+   * {@link #SEQUENTIAL} is the default; {@link #BATCH} requires a product
+   * service that answers order item lists with an {@link OrderPriceQuote}.
+   */
+  public enum QuoteMode {
+    /** Items are quoted one after another, one round trip at a time. */
+    SEQUENTIAL,
+
+    /** Requests for all items are sent at once and replies are gathered. */
+    PARALLEL,
+
+    /** All items are quoted by a single request carrying the whole order. */
+    BATCH
+  }
+
+  /**
+   * The outcome of quoting the products of a bulk order request: the total
+   * price quoted for the summed quantity of every priced product, and the
+   * failure of every product that could not be priced.
+   */
+  public static class BulkQuote {
+    private final Map<String, OrderItem> quotedItems = new HashMap<>();
+    private final Map<String, BigDecimal> quotedPrices = new HashMap<>();
+    private final Map<String, RuntimeException> failures = new HashMap<>();
+
+    /**
+     * Records the price quoted for the summed quantity of a product.
+     *
+     * @param item       the {@link OrderItem} with the summed quantity
+     * @param totalPrice the total price quoted for the item
+     */
+    void priced(OrderItem item, BigDecimal totalPrice) {
+      quotedItems.put(item.getProductId(), item);
+      quotedPrices.put(item.getProductId(), totalPrice);
+    }
+
+    /**
+     * Records that a product could not be priced.
+     *
+     * @param productId the ID of the product
+     * @param failure   the reason why the product could not be priced
+     */
+    void failed(String productId, RuntimeException failure) {
+      failures.put(productId, failure);
+    }
+
+    /**
+     * Calculates the total price of an order as its share of the quoted
+     * prices of its products.
+     *
+     * @param orderItems the {@link List} of {@link OrderItem} of the order
+     * @return the total price of the order
+     * @throws InvalidOrderItemException if the order is empty or any of its
+     *                                   items is invalid
+     * @throws PriceQuoteException       if any of its products could not be
+     *                                   quoted
+     */
+    public BigDecimal totalPriceOf(List<OrderItem> orderItems) {
+      if (orderItems == null || orderItems.isEmpty())
+        throw new InvalidOrderItemException("Order item is invalid");
+
+      BigDecimal totalPrice = BigDecimal.ZERO;
+      for (OrderItem item : orderItems) {
+        RuntimeException failure = failures.get(item.getProductId());
+        if (failure != null)
+          throw failure;
+
+        OrderItem quotedItem = quotedItems.get(item.getProductId());
+        if (quotedItem == null || item.getQty() <= 0)
+          throw new InvalidOrderItemException("Order item is invalid");
+
+        BigDecimal quotedPrice = quotedPrices.get(item.getProductId());
+        totalPrice = totalPrice.add(quotedPrice.multiply(BigDecimal.valueOf(item.getQty()))
+            .divide(BigDecimal.valueOf(quotedItem.getQty()), quotedPrice.scale(), RoundingMode.HALF_EVEN));
+      }
+      return totalPrice;
+    }
+  }
 
   /**
    * Finds an order by its ID.
@@ -51,52 +160,341 @@ public class OrderServiceUtils {
    * @throws OrderNotFoundException if no order is found with the given ID
    */
   public Order findById(ObjectId orderId) {
-    return repository.findById(orderId).orElseThrow(() -> {
-      log.warn("Order not found with ID {}", orderId);
-      return new OrderNotFoundException("Order not found with ID: " + orderId);
-    });
+    return repository.findById(orderId).orElseThrow(() -> createOrderNotFoundException(orderId));
   }
 
   /**
-   * Finds all orders of given user by their ID.
+   * Finds the view of an order by its ID through the {@link OrderCache}.
    *
-   * @param userId the ID of the order to find
-   * @return the {@link List} of {@link Order} objects representing all orders
+   * @param orderId the ID of the order to find
+   * @return the {@link OrderView} of the found order
    * @throws OrderNotFoundException if no order is found with the given ID
    */
-  public List<OrderView> findAllViewsByUserId(ObjectId userId) {
-    return repository.findByUserId(userId).stream()
-        .map(OrderView::new)
-        .collect(Collectors.toList());
+  public OrderView findViewById(ObjectId orderId) {
+    return new OrderView(findCachedById(orderId));
+  }
+
+  /**
+   * Finds an order by its ID through the {@link OrderCache}, fetching only its
+   * owner and view fields on a miss.
+   *
+   * @param orderId the ID of the order to find
+   * @return the found {@link Order} with its user ID and view fields
+   * @throws OrderNotFoundException if no order is found with the given ID
+   */
+  public Order findCachedById(ObjectId orderId) {
+    return orderCache.get(orderId, repository::findCachedById)
+        .orElseThrow(() -> createOrderNotFoundException(orderId));
+  }
+
+  /**
+   * Finds the ID of the user who placed an order, fetching only the order ID
+   * and user ID.
+   *
+   * @param orderId the ID of the order
+   * @return the ID of the user who placed the order
+   * @throws OrderNotFoundException if no order is found with the given ID
+   */
+  public ObjectId findOwnerId(ObjectId orderId) {
+    return repository.findOwnerById(orderId)
+        .map(OrderOwner::getUserId)
+        .orElseThrow(() -> createOrderNotFoundException(orderId));
+  }
+
+  /**
+   * Finds all orders of given user by their ID through the
+   * {@link UserOrdersCache}, fetching only the view fields on a miss.
+   *
+   * @param userId the ID of the user whose orders are to be found
+   * @return the {@link UserOrders} holding the views of all orders of the user
+   */
+  public UserOrders findAllViewsByUserId(ObjectId userId) {
+    return userOrdersCache.get(userId, repository::findCachedByUserId);
   }
 
   /**
    * Calculates the total price of an order based on the order items.
+   * Depending on the configured {@link QuoteMode}, items are quoted one after
+   * another, all at once, or by a single batch request for the whole order.
    *
    * @param orderItems the {@link List} of {@link OrderItem} objects
    * @return the total price of the order
+   * @throws InvalidOrderItemException if any of the items is invalid
+   * @throws PriceQuoteException       if the quotes did not arrive in time
    */
+  @Timed(value = "order.create.phase", extraTags = { "phase", "quote" }, histogram = true)
   public BigDecimal calculateTotalPrice(List<OrderItem> orderItems) {
+    if (quoteMode == QuoteMode.BATCH)
+      return calculateTotalPriceInBatch(orderItems);
+    if (quoteMode == QuoteMode.PARALLEL && orderItems.size() > 1)
+      return calculateTotalPriceInParallel(orderItems);
+
     return orderItems.stream()
         .map(this::getItemTotalPrice)
         .reduce(BigDecimal.ZERO, BigDecimal::add);
   }
 
   /**
-   * Sends an email notification about the creation of an order.
+   * Saves a new order and announces it to the order caches.
+   *
+   * @param order the {@link Order} to save
+   */
+  @Timed(value = "order.create.phase", extraTags = { "phase", "save" }, histogram = true)
+  public void save(Order order) {
+    repository.save(order);
+    changeNotifier.created(List.of(order));
+  }
+
+  /**
+   * Enqueues an email notification about the creation of an order in the
+   * transactional outbox.
    *
    * @param order      the created {@link Order}
    * @param totalPrice the total price of the order
    */
+  @Timed(value = "order.create.phase", extraTags = { "phase", "email" }, histogram = true)
   public void sendOrderCreatedEmail(Order order, BigDecimal totalPrice) {
     OrderEmailDetails details = buildOrderEmailDetails(order, totalPrice);
     log.info("Sending order created email; orderID: {}", order.getId());
-    rabbitTemplate.convertAndSend(notificationServiceExchange, orderCreatedRoutingKey, details);
+    outboxService.enqueue(notificationServiceExchange, orderCreatedRoutingKey, details);
+  }
+
+  /**
+   * Enqueues a message to fetch the product quantities of a created order in
+   * the transactional outbox.
+   *
+   * @param order the created {@link Order}
+   */
+  @Timed(value = "order.create.phase", extraTags = { "phase", "fetch-qty" }, histogram = true)
+  public void sendFetchQtyMessage(Order order) {
+    log.info("Sending message to fetch product quantities; orderID: {}", order.getId());
+    outboxService.enqueue(productServiceExchange, fetchQtyRoutingKey, order.getOrderItems());
+  }
+
+  /**
+   * Quotes all distinct products of the given orders, each for the quantity
+   * summed over all orders. Products whose unit price is cached are priced
+   * from the cache and are not checked by the product service, as in
+   * {@link #calculateTotalPrice}; the others are quoted in the configured
+   * {@link QuoteMode}, so the product service validates the summed quantities
+   * of those products. A product that could not be quoted is recorded with the
+   * failure, so that only the orders containing it are rejected.
+   *
+   * @param orders the {@link List} of orders, each a {@link List} of
+   *               {@link OrderItem}
+   * @return the {@link BulkQuote} of the products of the orders
+   */
+  @Timed(value = "order.create.phase", extraTags = { "phase", "bulk-quote" }, histogram = true)
+  public BulkQuote quoteProducts(List<List<OrderItem>> orders) {
+    BulkQuote bulkQuote = new BulkQuote();
+    List<OrderItem> uncachedItems = new ArrayList<>();
+    for (OrderItem item : sumQuantities(orders)) {
+      BigDecimal cachedPrice = priceCache.getItemTotalPrice(item);
+      if (cachedPrice == null)
+        uncachedItems.add(item);
+      else
+        bulkQuote.priced(item, cachedPrice);
+    }
+
+    if (uncachedItems.isEmpty())
+      return bulkQuote;
+
+    log.info("Quoting {} products of {} orders", uncachedItems.size(), orders.size());
+    if (quoteMode == QuoteMode.BATCH)
+      quoteProductsInBatch(uncachedItems, bulkQuote);
+    else if (quoteMode == QuoteMode.PARALLEL && uncachedItems.size() > 1)
+      quoteProductsInParallel(uncachedItems, bulkQuote);
+    else
+      uncachedItems.forEach(item -> quoteProduct(item, bulkQuote));
+    return bulkQuote;
+  }
+
+  /**
+   * Saves new orders with a single bulk insert and announces them to the order
+   * caches.
+   *
+   * @param orders the {@link List} of {@link Order} to save
+   */
+  @Timed(value = "order.create.phase", extraTags = { "phase", "bulk-save" }, histogram = true)
+  public void saveAll(List<Order> orders) {
+    repository.insert(orders);
+    changeNotifier.created(orders);
+  }
+
+  /**
+   * Enqueues email notifications about the creation of orders in the
+   * transactional outbox with a single bulk insert.
+   *
+   * @param orders the created {@link List} of {@link Order}
+   */
+  @Timed(value = "order.create.phase", extraTags = { "phase", "bulk-email" }, histogram = true)
+  public void sendOrderCreatedEmails(List<Order> orders) {
+    List<OrderEmailDetails> details = orders.stream()
+        .map(order -> buildOrderEmailDetails(order, order.getTotalPrice()))
+        .collect(Collectors.toList());
+    log.info("Sending order created emails for {} orders", orders.size());
+    outboxService.enqueueAll(notificationServiceExchange, orderCreatedRoutingKey, details);
+  }
+
+  /**
+   * Enqueues a single message to fetch the product quantities of all created
+   * orders in the transactional outbox, with the quantities summed up per
+   * product.
+   *
+   * @param orders the created {@link List} of {@link Order}
+   */
+  @Timed(value = "order.create.phase", extraTags = { "phase", "bulk-fetch-qty" }, histogram = true)
+  public void sendFetchQtyMessages(List<Order> orders) {
+    if (orders.isEmpty())
+      return;
+
+    log.info("Sending message to fetch product quantities of {} orders", orders.size());
+    outboxService.enqueue(productServiceExchange, fetchQtyRoutingKey, aggregateQuantities(orders));
+  }
+
+  /**
+   * Sums up the quantities of the items of the given orders per product.
+   *
+   * @param orders the {@link List} of {@link Order}
+   * @return the {@link List} of {@link OrderItem} with one item per product, in
+   *         the order of first appearance
+   */
+  public List<OrderItem> aggregateQuantities(List<Order> orders) {
+    Map<String, Integer> quantities = new LinkedHashMap<>();
+    orders.stream()
+        .flatMap(order -> order.getOrderItems().stream())
+        .forEach(item -> quantities.merge(item.getProductId(), item.getQty(), Integer::sum));
+    return quantities.entrySet().stream()
+        .map(entry -> new OrderItem(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Sums up the quantities of the valid items of the given orders per
+   * product. Items without a product or with a non-positive quantity are
+   * left out; the orders containing them are rejected when priced.
+   *
+   * @param orders the {@link List} of orders, each a {@link List} of
+   *               {@link OrderItem}
+   * @return the {@link List} of {@link OrderItem} with one item per product, in
+   *         the order of first appearance
+   */
+  private List<OrderItem> sumQuantities(List<List<OrderItem>> orders) {
+    Map<String, Integer> quantities = new LinkedHashMap<>();
+    orders.stream()
+        .filter(Objects::nonNull)
+        .flatMap(List::stream)
+        .filter(item -> item.getProductId() != null && item.getQty() > 0)
+        .forEach(item -> quantities.merge(item.getProductId(), item.getQty(), Integer::sum));
+    return quantities.entrySet().stream()
+        .map(entry -> new OrderItem(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Quotes a single product for its summed quantity and records the price or
+   * the failure.
+   *
+   * @param item      the {@link OrderItem} with the summed quantity
+   * @param bulkQuote the {@link BulkQuote} to record the outcome in
+   */
+  private void quoteProduct(OrderItem item, BulkQuote bulkQuote) {
+    try {
+      bulkQuote.priced(item, getItemTotalPrice(item));
+    } catch (InvalidOrderItemException | PriceQuoteException e) {
+      bulkQuote.failed(item.getProductId(), e);
+    }
   }
 
   /**
-   * Calculates the total price for a given order item by sending a message to the
-   * product service.
+   * Quotes products with a single message to the product service and records
+   * the price or the failure of each. If the request fails or the reply is
+   * malformed, all products are recorded as failed.
+   *
+   * @param items     the {@link List} of {@link OrderItem} with the summed
+   *                  quantities
+   * @param bulkQuote the {@link BulkQuote} to record the outcome in
+   */
+  private void quoteProductsInBatch(List<OrderItem> items, BulkQuote bulkQuote) {
+    Object message;
+    try {
+      message = priceClient.quoteItems(items);
+    } catch (PriceQuoteException e) {
+      items.forEach(item -> bulkQuote.failed(item.getProductId(), e));
+      return;
+    }
+
+    List<BigDecimal> itemPrices = message instanceof OrderPriceQuote
+        ? ((OrderPriceQuote) message).getItemPrices()
+        : null;
+    if (itemPrices == null || itemPrices.size() != items.size()) {
+      log.warn("Invalid price quote received for {} products", items.size());
+      items.forEach(item -> bulkQuote.failed(item.getProductId(), new InvalidOrderItemException("Order item is invalid")));
+      return;
+    }
+
+    for (int i = 0; i < items.size(); i++) {
+      OrderItem item = items.get(i);
+      BigDecimal itemPrice = itemPrices.get(i);
+      if (itemPrice == null || BigDecimal.ZERO.compareTo(itemPrice) == 0) {
+        bulkQuote.failed(item.getProductId(), createInvalidOrderItemException(item));
+        continue;
+      }
+
+      priceCache.putItemTotalPrice(item, itemPrice);
+      bulkQuote.priced(item, itemPrice);
+    }
+  }
+
+  /**
+   * Sends price requests for all products at once and gathers the replies
+   * within the configured deadline. Products whose quote has not arrived by
+   * then are recorded as failed.
+   *
+   * @param items     the {@link List} of {@link OrderItem} with the summed
+   *                  quantities
+   * @param bulkQuote the {@link BulkQuote} to record the outcome in
+   */
+  private void quoteProductsInParallel(List<OrderItem> items, BulkQuote bulkQuote) {
+    List<CompletableFuture<BigDecimal>> quotes = items.stream()
+        .map(item -> CompletableFuture.supplyAsync(() -> getItemTotalPrice(item), quoteExecutor))
+        .collect(Collectors.toList());
+    try {
+      CompletableFuture.allOf(quotes.toArray(new CompletableFuture[0])).get(quoteDeadline, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      // recorded per product below
+    } catch (TimeoutException e) {
+      log.warn("Price quotes did not complete within {} ms", quoteDeadline);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    for (int i = 0; i < items.size(); i++) {
+      String productId = items.get(i).getProductId();
+      CompletableFuture<BigDecimal> quote = quotes.get(i);
+      if (!quote.isDone()) {
+        quote.cancel(true);
+        bulkQuote.failed(productId,
+            new PriceQuoteException("Price quotes did not complete within " + quoteDeadline + " ms"));
+        continue;
+      }
+
+      try {
+        bulkQuote.priced(items.get(i), quote.join());
+      } catch (CompletionException | CancellationException e) {
+        RuntimeException failure = unwrapQuoteFailure(e);
+        if (!(failure instanceof InvalidOrderItemException || failure instanceof PriceQuoteException))
+          throw failure;
+
+        bulkQuote.failed(productId, failure);
+      }
+    }
+  }
+
+  /**
+   * Calculates the total price for a given order item from the cached unit
+   * price of its product, or by sending a message to the product service on a
+   * cache miss.
    *
    * @param item the {@link OrderItem}
    * @return the total price of the order item
@@ -104,16 +502,208 @@ public class OrderServiceUtils {
    *                                   is zero
    */
   private BigDecimal getItemTotalPrice(OrderItem item) {
+    BigDecimal cachedPrice = getCachedItemTotalPrice(item);
+    if (cachedPrice != null)
+      return cachedPrice;
+
     log.info("Sending message to calculate total price of product with ID {}", item.getProductId());
-    Object message = rabbitTemplate.convertSendAndReceive(productServiceExchange, totalPriceRoutingKey, item);
+    Object message = priceClient.quoteItem(item);
+    return applyItemQuote(item, message);
+  }
+
+  /**
+   * Computes the total price of an order item from the cached unit price of
+   * its product. Items without a product or with a non-positive quantity are
+   * rejected before the lookup, since a cache hit is never checked by the
+   * product service, and a zero price is rejected as if it had been quoted.
+   *
+   * @param item the {@link OrderItem}
+   * @return the total price of the order item, or {@code null} if the unit
+   *         price of its product is not cached
+   * @throws InvalidOrderItemException if the item is invalid or the total price
+   *                                   is zero
+   */
+  BigDecimal getCachedItemTotalPrice(OrderItem item) {
+    if (item == null || item.getProductId() == null || item.getQty() <= 0)
+      throw createInvalidOrderItemException(item);
 
+    BigDecimal cachedPrice = priceCache.getItemTotalPrice(item);
+    if (cachedPrice != null && BigDecimal.ZERO.compareTo(cachedPrice) == 0)
+      throw createInvalidOrderItemException(item);
+
+    return cachedPrice;
+  }
+
+  /**
+   * Validates the reply to a price request for a single order item and caches
+   * the quoted unit price.
+   *
+   * @param item    the quoted {@link OrderItem}
+   * @param message the reply of the product service
+   * @return the total price of the order item
+   * @throws InvalidOrderItemException if the reply is missing or malformed, or
+   *                                   the total price is zero
+   */
+  BigDecimal applyItemQuote(OrderItem item, Object message) {
     BigDecimal totalPrice = validateAndCast(message, BigDecimal.class, item);
-    if (BigDecimal.ZERO.equals(totalPrice))
+    if (BigDecimal.ZERO.compareTo(totalPrice) == 0)
       throw createInvalidOrderItemException(item);
 
+    priceCache.putItemTotalPrice(item, totalPrice);
     return totalPrice;
   }
 
+  /**
+   * Calculates the total price of an order with a single message to the
+   * product service carrying all order items whose price is not cached. The
+   * reply must contain a valid price for every requested item.
+   *
+   * @param orderItems the {@link List} of {@link OrderItem} objects
+   * @return the total price of the order
+   * @throws InvalidOrderItemException if the reply is missing, malformed, or
+   *                                   any of the item prices is zero
+   */
+  private BigDecimal calculateTotalPriceInBatch(List<OrderItem> orderItems) {
+    BigDecimal cachedTotalPrice = BigDecimal.ZERO;
+    List<OrderItem> uncachedItems = new ArrayList<>(orderItems.size());
+    for (OrderItem item : orderItems) {
+      BigDecimal cachedPrice = getCachedItemTotalPrice(item);
+      if (cachedPrice == null)
+        uncachedItems.add(item);
+      else
+        cachedTotalPrice = cachedTotalPrice.add(cachedPrice);
+    }
+
+    if (uncachedItems.isEmpty())
+      return cachedTotalPrice;
+
+    return cachedTotalPrice.add(requestBatchQuote(uncachedItems));
+  }
+
+  /**
+   * Requests the prices of the given order items with a single message to the
+   * product service and caches the quoted unit prices.
+   *
+   * @param orderItems the {@link List} of {@link OrderItem} objects to quote
+   * @return the total price of the given items
+   * @throws InvalidOrderItemException if the reply is missing, malformed, or
+   *                                   any of the item prices is zero
+   */
+  private BigDecimal requestBatchQuote(List<OrderItem> orderItems) {
+    log.info("Sending message to calculate total price of {} order items", orderItems.size());
+    Object message = priceClient.quoteItems(orderItems);
+    return applyBatchQuote(orderItems, message);
+  }
+
+  /**
+   * Validates the reply to a batch price request and caches the quoted unit
+   * prices.
+   *
+   * @param orderItems the {@link List} of quoted {@link OrderItem} objects
+   * @param message    the reply of the product service
+   * @return the total price of the given items
+   * @throws InvalidOrderItemException if the reply is missing, malformed, or
+   *                                   any of the item prices is zero
+   */
+  BigDecimal applyBatchQuote(List<OrderItem> orderItems, Object message) {
+    if (!(message instanceof OrderPriceQuote)) {
+      log.warn("Invalid price quote received for order items: {}", orderItems);
+      throw new InvalidOrderItemException("Order item is invalid");
+    }
+
+    List<BigDecimal> itemPrices = ((OrderPriceQuote) message).getItemPrices();
+    if (itemPrices == null || itemPrices.size() != orderItems.size()) {
+      log.warn("Price quote does not match order items: {}", orderItems);
+      throw new InvalidOrderItemException("Order item is invalid");
+    }
+
+    BigDecimal totalPrice = BigDecimal.ZERO;
+    for (int i = 0; i < orderItems.size(); i++) {
+      BigDecimal itemPrice = itemPrices.get(i);
+      if (itemPrice == null || BigDecimal.ZERO.compareTo(itemPrice) == 0)
+        throw createInvalidOrderItemException(orderItems.get(i));
+
+      priceCache.putItemTotalPrice(orderItems.get(i), itemPrice);
+      totalPrice = totalPrice.add(itemPrice);
+    }
+
+    BigDecimal quotedTotal = ((OrderPriceQuote) message).getTotalPrice();
+    if (quotedTotal != null && quotedTotal.compareTo(totalPrice) != 0)
+      log.warn("Quoted total {} differs from sum of item prices {}", quotedTotal, totalPrice);
+
+    return totalPrice;
+  }
+
+  /**
+   * Sends price requests for all order items at once and gathers the replies
+   * within the configured per-order deadline. Fails as soon as the first item
+   * turns out to be invalid, without waiting for the remaining replies.
+   *
+   * @param orderItems the {@link List} of {@link OrderItem} objects
+   * @return the total price of the order
+   * @throws InvalidOrderItemException if any of the items is invalid
+   * @throws PriceQuoteException       if the quotes did not arrive in time
+   */
+  private BigDecimal calculateTotalPriceInParallel(List<OrderItem> orderItems) {
+    log.info("Requesting prices of {} order items in parallel", orderItems.size());
+    CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+    List<CompletableFuture<BigDecimal>> quotes = new ArrayList<>(orderItems.size());
+    for (OrderItem item : orderItems) {
+      CompletableFuture<BigDecimal> quote = CompletableFuture.supplyAsync(() -> getItemTotalPrice(item), quoteExecutor);
+      quote.whenComplete((price, e) -> {
+        if (e != null)
+          firstFailure.completeExceptionally(e);
+      });
+      quotes.add(quote);
+    }
+
+    CompletableFuture<Void> allQuoted = CompletableFuture.allOf(quotes.toArray(new CompletableFuture[0]));
+    try {
+      CompletableFuture.anyOf(allQuoted, firstFailure).get(quoteDeadline, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      cancelAll(quotes);
+      throw unwrapQuoteFailure(e.getCause());
+    } catch (TimeoutException e) {
+      cancelAll(quotes);
+      log.warn("Price quotes did not complete within {} ms", quoteDeadline);
+      throw new PriceQuoteException("Price quotes did not complete within " + quoteDeadline + " ms");
+    } catch (InterruptedException e) {
+      cancelAll(quotes);
+      Thread.currentThread().interrupt();
+      throw new PriceQuoteException("Interrupted while waiting for price quotes", e);
+    }
+
+    return quotes.stream()
+        .map(CompletableFuture::join)
+        .reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+
+  /**
+   * Cancels all price quotes that are still pending.
+   *
+   * @param quotes the price quotes to cancel
+   */
+  private void cancelAll(List<CompletableFuture<BigDecimal>> quotes) {
+    quotes.forEach(quote -> quote.cancel(true));
+  }
+
+  /**
+   * Unwraps the failure of a price quote so that business exceptions such as
+   * {@link InvalidOrderItemException} reach the caller unchanged.
+   *
+   * @param cause the failure of a price quote
+   * @return the exception to rethrow
+   */
+  private RuntimeException unwrapQuoteFailure(Throwable cause) {
+    while (cause instanceof CompletionException && cause.getCause() != null)
+      cause = cause.getCause();
+
+    if (cause instanceof RuntimeException)
+      return (RuntimeException) cause;
+
+    return new PriceQuoteException("Price quote failed", cause);
+  }
+
   /**
    * Validates and casts an object to the specified class type.
    *
@@ -139,7 +729,7 @@ public class OrderServiceUtils {
    * @param totalPrice the total price of the order
    * @return the {@link OrderEmailDetails}
    */
-  private OrderEmailDetails buildOrderEmailDetails(Order order, BigDecimal totalPrice) {
+  OrderEmailDetails buildOrderEmailDetails(Order order, BigDecimal totalPrice) {
     return new OrderEmailDetails(
         order.getUserId().toString(),
         LocalDate.now().toString(),
@@ -156,4 +746,15 @@ public class OrderServiceUtils {
     log.warn("Order item is invalid: {}", item);
     return new InvalidOrderItemException("Order item is invalid");
   }
+
+  /**
+   * Creates an exception indicating that an order was not found.
+   *
+   * @param orderId the ID of the missing order
+   * @return the created {@link OrderNotFoundException}
+   */
+  private OrderNotFoundException createOrderNotFoundException(ObjectId orderId) {
+    log.warn("Order not found with ID {}", orderId);
+    return new OrderNotFoundException("Order not found with ID: " + orderId);
+  }
 }
@@ -0,0 +1,36 @@
+package com.drevotiuk.service;
+
+import java.util.List;
+
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.model.OrderStatusUpdate;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer of order status updates sent by logistics.
+ * Each message carries a list of {@link OrderStatusUpdate}, so carrier feeds
+ * can send many updates at once; a single update is sent as a list of one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusListener {
+  private final OrderManagementService managementService;
+
+  /**
+   * Applies the received status updates. Updates that do not apply to the
+   * current status of an order are skipped rather than redelivered.
+   *
+   * @param updates the {@link List} of {@link OrderStatusUpdate}
+   */
+  @RabbitListener(queuesToDeclare = @Queue("${rabbitmq.queue.status-update}"))
+  public void onStatusUpdates(List<OrderStatusUpdate> updates) {
+    log.info("Received {} order status updates", updates.size());
+    managementService.updateStatuses(updates);
+  }
+}
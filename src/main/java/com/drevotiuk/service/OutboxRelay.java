@@ -0,0 +1,128 @@
+package com.drevotiuk.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.model.OutboxMessage;
+import com.drevotiuk.model.exception.UnroutableMessageException;
+import com.drevotiuk.repository.OutboxRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background relay that publishes messages from the transactional outbox to
+ * RabbitMQ.
+ * Messages are claimed in batches, published through the
+ * {@link ConfirmingPublisher}, and removed from the outbox only once the
+ * broker has acknowledged them.
+ * Unacknowledged messages are retried after their claim expires, so delivery
+ * is at least once; consumers can deduplicate by AMQP message ID.
+ * Messages returned as unroutable are retried up to the configured number of
+ * attempts and then parked in the dead letter collection.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+  @Value("${order.outbox.batch-size}")
+  private int batchSize;
+  @Value("${order.outbox.lease}")
+  private long lease;
+  @Value("${order.outbox.max-attempts}")
+  private int maxAttempts;
+
+  private final String relayId = UUID.randomUUID().toString();
+  private final OutboxRepository repository;
+  private final ConfirmingPublisher publisher;
+
+  /**
+   * Publishes all available outbox messages, batch by batch.
+   */
+  @Scheduled(fixedDelayString = "${order.outbox.poll-interval}")
+  public void relay() {
+    List<OutboxMessage> batch;
+    do {
+      batch = repository.claimBatch(relayId, batchSize, lease);
+      if (!batch.isEmpty())
+        publish(batch);
+    } while (batch.size() == batchSize);
+  }
+
+  /**
+   * Publishes a batch of messages and removes those confirmed by the broker.
+   * Messages returned as unroutable have their attempts counted and are parked
+   * once they reach the maximum; other failures are retried without limit.
+   *
+   * @param batch the claimed {@link OutboxMessage}s
+   */
+  private void publish(List<OutboxMessage> batch) {
+    Map<ObjectId, CompletableFuture<Void>> confirms = new LinkedHashMap<>();
+    for (OutboxMessage message : batch)
+      confirms.put(message.getId(), publisher.publish(message.getExchange(), message.getRoutingKey(), toMessage(message)));
+
+    CompletableFuture.allOf(confirms.values().toArray(new CompletableFuture<?>[0]))
+        .exceptionally(e -> null)
+        .join();
+    List<ObjectId> published = confirms.entrySet().stream()
+        .filter(confirm -> !confirm.getValue().isCompletedExceptionally())
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+    Map<Boolean, List<OutboxMessage>> unroutable = batch.stream()
+        .filter(message -> isUnroutable(confirms.get(message.getId())))
+        .collect(Collectors.partitioningBy(message -> message.getAttempts() + 1 >= maxAttempts));
+
+    repository.deleteAllById(published);
+    repository.incrementAttempts(unroutable.get(false).stream()
+        .map(OutboxMessage::getId)
+        .collect(Collectors.toList()));
+    if (!unroutable.get(true).isEmpty()) {
+      repository.park(unroutable.get(true));
+      log.error("Parked {} unroutable outbox messages after {} attempts", unroutable.get(true).size(), maxAttempts);
+    }
+    log.info("Published {} of {} outbox messages", published.size(), batch.size());
+  }
+
+  /**
+   * Checks whether a completed publish failed because the broker returned the
+   * message as unroutable.
+   *
+   * @param confirm the completed publish
+   * @return true if the message was returned as unroutable
+   */
+  private boolean isUnroutable(CompletableFuture<Void> confirm) {
+    Throwable failure = confirm.handle((result, e) -> e).join();
+    if (failure instanceof CompletionException)
+      failure = failure.getCause();
+    return failure instanceof UnroutableMessageException;
+  }
+
+  /**
+   * Rebuilds the AMQP message stored in the outbox.
+   *
+   * @param message the {@link OutboxMessage}
+   * @return the AMQP {@link Message}, identified by the outbox message ID
+   */
+  private Message toMessage(OutboxMessage message) {
+    MessageProperties properties = new MessageProperties();
+    properties.setContentType(message.getContentType());
+    properties.setContentEncoding(message.getContentEncoding());
+    properties.setMessageId(message.getId().toHexString());
+    if (message.getHeaders() != null)
+      message.getHeaders().forEach(properties::setHeader);
+
+    return new Message(message.getBody(), properties);
+  }
+}
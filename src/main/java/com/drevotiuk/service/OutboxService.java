@@ -0,0 +1,88 @@
+package com.drevotiuk.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Service;
+
+import com.drevotiuk.model.OutboxMessage;
+import com.drevotiuk.repository.OutboxRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service class for writing messages to the transactional outbox.
+ * Messages enqueued within a transaction are stored atomically with the
+ * order changes they announce and are published by the {@link OutboxRelay}
+ * once the transaction has committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+  private final OutboxRepository repository;
+  private final MessageConverter messageConverter;
+
+  /**
+   * Converts the payload and stores it in the outbox for publishing.
+   *
+   * @param exchange   the exchange to publish the message to
+   * @param routingKey the routing key to publish the message with
+   * @param payload    the message payload
+   */
+  public void enqueue(String exchange, String routingKey, Object payload) {
+    OutboxMessage message = toOutboxMessage(exchange, routingKey, payload);
+    log.info("Enqueuing message {} for {}/{}", message.getId(), exchange, routingKey);
+    repository.insert(message);
+  }
+
+  /**
+   * Converts the payloads and stores them in the outbox for publishing with a
+   * single bulk insert.
+   *
+   * @param exchange   the exchange to publish the messages to
+   * @param routingKey the routing key to publish the messages with
+   * @param payloads   the message payloads
+   */
+  public void enqueueAll(String exchange, String routingKey, List<?> payloads) {
+    if (payloads.isEmpty())
+      return;
+
+    List<OutboxMessage> messages = payloads.stream()
+        .map(payload -> toOutboxMessage(exchange, routingKey, payload))
+        .collect(Collectors.toList());
+    log.info("Enqueuing {} messages for {}/{}", messages.size(), exchange, routingKey);
+    repository.insert(messages);
+  }
+
+  /**
+   * Converts a payload into an {@link OutboxMessage} with the configured
+   * {@link MessageConverter}.
+   *
+   * @param exchange   the exchange to publish the message to
+   * @param routingKey the routing key to publish the message with
+   * @param payload    the message payload
+   * @return the {@link OutboxMessage}
+   */
+  OutboxMessage toOutboxMessage(String exchange, String routingKey, Object payload) {
+    MessageProperties properties = new MessageProperties();
+    Message message = messageConverter.toMessage(payload, properties);
+    return new OutboxMessage(
+        ObjectId.get(),
+        exchange,
+        routingKey,
+        message.getBody(),
+        properties.getContentType(),
+        properties.getContentEncoding(),
+        new HashMap<>(properties.getHeaders()),
+        null,
+        null,
+        0);
+  }
+}
@@ -0,0 +1,110 @@
+package com.drevotiuk.service;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.amqp.rabbit.annotation.Exchange;
+import org.springframework.amqp.rabbit.annotation.Queue;
+import org.springframework.amqp.rabbit.annotation.QueueBinding;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.ProductPriceChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded, expiring in-process cache of product unit prices quoted by the
+ * product service.
+ * Item prices are computed locally as {@code qty * unitPrice} on a hit.
+ * Entries are evicted when the product service announces a price change.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics
+ * under the {@code product-prices} cache name.
+ */
+@Component
+@Slf4j
+public class ProductPriceCache {
+  private final boolean enabled;
+  private final Cache<String, BigDecimal> unitPrices;
+  private final Counter invalidations;
+
+  public ProductPriceCache(@Value("${order.quote.cache.enabled}") boolean enabled,
+      @Value("${order.quote.cache.max-size}") long maxSize,
+      @Value("${order.quote.cache.ttl}") long ttl,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.unitPrices = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .recordStats()
+        .<String, BigDecimal>build(), "product-prices");
+    this.invalidations = meterRegistry.counter("order.price.cache.invalidations");
+  }
+
+  /**
+   * Computes the total price of an order item from the cached unit price.
+   *
+   * @param item the {@link OrderItem} to price
+   * @return the total price of the item, or {@code null} if the unit price of
+   *         its product is not cached
+   */
+  public BigDecimal getItemTotalPrice(OrderItem item) {
+    if (!enabled)
+      return null;
+
+    BigDecimal unitPrice = unitPrices.getIfPresent(item.getProductId());
+    return unitPrice == null ? null : unitPrice.multiply(BigDecimal.valueOf(item.getQty()));
+  }
+
+  /**
+   * Caches the unit price of the item's product derived from the total price
+   * quoted for the item. Nothing is cached if the quoted price is not an exact
+   * multiple of the item quantity.
+   *
+   * @param item       the quoted {@link OrderItem}
+   * @param totalPrice the total price quoted for the item
+   */
+  public void putItemTotalPrice(OrderItem item, BigDecimal totalPrice) {
+    if (!enabled)
+      return;
+
+    try {
+      unitPrices.put(item.getProductId(), totalPrice.divide(BigDecimal.valueOf(item.getQty())));
+    } catch (ArithmeticException e) {
+      log.debug("Not caching price of product with ID {}: {}", item.getProductId(), e.getMessage());
+    }
+  }
+
+  /**
+   * Evicts the cached unit price of a product.
+   *
+   * @param productId the ID of the product
+   */
+  public void evict(String productId) {
+    unitPrices.invalidate(productId);
+    invalidations.increment();
+  }
+
+  /**
+   * Evicts the cached unit price of a product whose price has changed.
+   * Every service instance binds its own anonymous queue, so all local caches
+   * receive the event.
+   *
+   * @param event the {@link ProductPriceChangedEvent}
+   */
+  @RabbitListener(bindings = @QueueBinding(
+      value = @Queue,
+      exchange = @Exchange(value = "${rabbitmq.exchange.product-service}", declare = "false"),
+      key = "${rabbitmq.routingkey.price-changed}"))
+  public void onPriceChanged(ProductPriceChangedEvent event) {
+    log.info("Evicting cached price of product with ID {}", event.getProductId());
+    evict(event.getProductId());
+  }
+}
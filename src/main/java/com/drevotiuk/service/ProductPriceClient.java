@@ -0,0 +1,114 @@
+package com.drevotiuk.service;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.exception.PriceQuoteException;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client for price quote requests to the product service over RabbitMQ.
+ * Requests are sent with the dedicated template of
+ * {@link com.drevotiuk.config.QuoteRpcConfig}, which bounds the wait for each
+ * reply. At most the configured number of requests are in flight at once; a
+ * request that cannot start within the acquire timeout is rejected rather
+ * than queued behind the others. Requests are sent through the
+ * {@link QuoteCircuitBreaker}, so that they fail fast while the product
+ * service is unavailable.
+ * The latency of every request is recorded as the {@code order.quote.rpc}
+ * histogram, tagged with the quote protocol, and requests rejected for lack
+ * of capacity as the {@code order.quote.rejections} counter with the
+ * {@code bulkhead} reason.
+ */
+@Component
+@Slf4j
+public class ProductPriceClient {
+  @Value("${rabbitmq.exchange.product-service}")
+  private String productServiceExchange;
+  @Value("${rabbitmq.routingkey.total-price}")
+  private String totalPriceRoutingKey;
+
+  private final RabbitTemplate rabbitTemplate;
+  private final QuoteCircuitBreaker circuitBreaker;
+  private final Semaphore inFlight;
+  private final long acquireTimeout;
+  private final Counter rejections;
+
+  public ProductPriceClient(@Qualifier("quoteRabbitTemplate") RabbitTemplate rabbitTemplate,
+      QuoteCircuitBreaker circuitBreaker,
+      @Value("${order.quote.rpc.max-in-flight}") int maxInFlight,
+      @Value("${order.quote.rpc.acquire-timeout}") long acquireTimeout,
+      MeterRegistry meterRegistry) {
+    this.rabbitTemplate = rabbitTemplate;
+    this.circuitBreaker = circuitBreaker;
+    this.inFlight = new Semaphore(maxInFlight);
+    this.acquireTimeout = acquireTimeout;
+    this.rejections = meterRegistry.counter("order.quote.rejections", "reason", "bulkhead");
+  }
+
+  /**
+   * Requests the total price of a single order item.
+   *
+   * @param item the {@link OrderItem} to quote
+   * @return the reply of the product service
+   * @throws PriceQuoteException if the circuit is open, too many requests are
+   *                             in flight, or no reply arrived in time
+   */
+  @Timed(value = "order.quote.rpc", extraTags = { "protocol", "item" }, histogram = true)
+  public Object quoteItem(OrderItem item) {
+    return sendAndReceive(item);
+  }
+
+  /**
+   * Requests the prices of all given order items with a single message.
+   *
+   * @param orderItems the {@link List} of {@link OrderItem} objects to quote
+   * @return the reply of the product service
+   * @throws PriceQuoteException if the circuit is open, too many requests are
+   *                             in flight, or no reply arrived in time
+   */
+  @Timed(value = "order.quote.rpc", extraTags = { "protocol", "batch" }, histogram = true)
+  public Object quoteItems(List<OrderItem> orderItems) {
+    return sendAndReceive(orderItems);
+  }
+
+  private Object sendAndReceive(Object request) {
+    acquire();
+    try {
+      return circuitBreaker.execute(() -> {
+        Object reply = rabbitTemplate.convertSendAndReceive(productServiceExchange, totalPriceRoutingKey, request);
+        if (reply == null) {
+          log.warn("No price quote received in time");
+          throw new PriceQuoteException("No price quote received in time");
+        }
+        return reply;
+      });
+    } finally {
+      inFlight.release();
+    }
+  }
+
+  private void acquire() {
+    try {
+      if (inFlight.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS))
+        return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PriceQuoteException("Interrupted while waiting to request a price quote", e);
+    }
+    rejections.increment();
+    log.warn("Too many price quote requests in flight");
+    throw new PriceQuoteException("Too many price quote requests in flight");
+  }
+}
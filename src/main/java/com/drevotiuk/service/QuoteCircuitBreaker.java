@@ -0,0 +1,85 @@
+package com.drevotiuk.service;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryState;
+import org.springframework.retry.policy.CircuitBreakerRetryPolicy;
+import org.springframework.retry.policy.MapRetryContextCache;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.DefaultRetryState;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.model.exception.PriceQuoteException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker around price quote requests to the product service, built
+ * on the stateful circuit breaker of Spring Retry.
+ * The circuit opens once the given number of requests have failed within the
+ * open timeout, and then rejects requests at once until the reset timeout has
+ * passed, after which the next request is let through to probe the product
+ * service.
+ * The state of the circuit is published as the {@code order.quote.circuit.open}
+ * gauge and rejected requests as the {@code order.quote.rejections} counter
+ * with the {@code circuit-open} reason.
+ */
+@Component
+@Slf4j
+public class QuoteCircuitBreaker {
+  private static final String CIRCUIT_KEY = "product-price-quote";
+
+  private final RetryTemplate retryTemplate;
+  private final MapRetryContextCache circuits = new MapRetryContextCache();
+  private final RetryState state = new DefaultRetryState(CIRCUIT_KEY);
+  private final Counter rejections;
+
+  public QuoteCircuitBreaker(@Value("${order.quote.circuit.failure-threshold}") int failureThreshold,
+      @Value("${order.quote.circuit.open-timeout}") long openTimeout,
+      @Value("${order.quote.circuit.reset-timeout}") long resetTimeout,
+      MeterRegistry meterRegistry) {
+    CircuitBreakerRetryPolicy retryPolicy = new CircuitBreakerRetryPolicy(new SimpleRetryPolicy(failureThreshold));
+    retryPolicy.setOpenTimeout(openTimeout);
+    retryPolicy.setResetTimeout(resetTimeout);
+    this.retryTemplate = new RetryTemplate();
+    this.retryTemplate.setRetryPolicy(retryPolicy);
+    this.retryTemplate.setRetryContextCache(circuits);
+
+    Gauge.builder("order.quote.circuit.open", this, breaker -> breaker.isOpen() ? 1 : 0)
+        .register(meterRegistry);
+    this.rejections = meterRegistry.counter("order.quote.rejections", "reason", "circuit-open");
+  }
+
+  /**
+   * Runs a price quote request unless the circuit is open. Every exception
+   * thrown by the request counts as a failure.
+   *
+   * @param <T>     the type of the reply
+   * @param request the price quote request
+   * @return the reply of the request
+   * @throws PriceQuoteException if the circuit is open
+   */
+  public <T> T execute(Supplier<T> request) {
+    return retryTemplate.execute(context -> request.get(), context -> {
+      rejections.increment();
+      log.warn("Rejecting price quote request, the circuit to the product service is open");
+      throw new PriceQuoteException("Product service is unavailable, price quote requests are suspended");
+    }, state);
+  }
+
+  /**
+   * Tells whether the circuit was open when last used.
+   *
+   * @return {@code true} if the circuit is open
+   */
+  public boolean isOpen() {
+    RetryContext context = circuits.get(CIRCUIT_KEY);
+    return context != null && Boolean.TRUE.equals(context.getAttribute(CircuitBreakerRetryPolicy.CIRCUIT_OPEN));
+  }
+}
@@ -0,0 +1,52 @@
+package com.drevotiuk.service;
+
+import org.bson.types.ObjectId;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+
+import com.drevotiuk.model.IdempotencyRecord;
+import com.drevotiuk.model.OrderView;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Reactive counterpart of {@link IdempotencyService#complete}.
+ * Completes reserved idempotency keys within a reactive transaction, so that
+ * a key is completed only together with its order. Completed records are not
+ * cached here; the first retry reads the record and caches it through
+ * {@link IdempotencyService#reserve}.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveIdempotencyService {
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  /**
+   * Records the order created under a reserved idempotency key. Joins the
+   * reactive transaction of the caller.
+   *
+   * @param userId   the ID of the user placing the order
+   * @param key      the idempotency key sent by the client
+   * @param orderId  the ID of the created order
+   * @param response the {@link OrderView} returned for the created order
+   * @return a {@link Mono} completing once the record is updated
+   */
+  public Mono<Void> complete(ObjectId userId, String key, ObjectId orderId, OrderView response) {
+    String id = IdempotencyService.toId(userId, key);
+    return mongoTemplate.updateFirst(query(where("_id").is(id)), IdempotencyService.completion(orderId, response),
+        IdempotencyRecord.class)
+        .doOnNext(result -> {
+          if (result.getMatchedCount() == 0)
+            log.warn("Idempotency record {} not found on completion", id);
+        })
+        .then();
+  }
+}
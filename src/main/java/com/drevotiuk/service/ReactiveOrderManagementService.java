@@ -0,0 +1,167 @@
+package com.drevotiuk.service;
+
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderCursor;
+import com.drevotiuk.model.OrderPage;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.OrdersChangedEvent;
+import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.OrderNotFoundException;
+import com.drevotiuk.repository.ReactiveOrderRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.util.Assert.isTrue;
+
+/**
+ * Reactive counterpart of {@link OrderManagementService}, active with the
+ * {@code reactive} profile.
+ * It includes methods to fetch all orders, find specific orders, export and
+ * delete orders, and enqueues messages related to restoring product
+ * quantities in the transactional outbox.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOrderManagementService {
+  @Value("${rabbitmq.exchange.product-service}")
+  private String productServiceExchange;
+  @Value("${rabbitmq.routingkey.restore-qty}")
+  private String restoreQtyRoutingKey;
+  @Value("${rabbitmq.exchange.order-cache}")
+  private String orderCacheExchange;
+  @Value("${order.pagination.max-size}")
+  private int maxPageSize;
+
+  private final ReactiveOrderRepository repository;
+  private final ReactiveOrderServiceUtils serviceUtils;
+  private final ReactiveOutboxService outboxService;
+  private final TransactionalOperator transactionalOperator;
+
+  /**
+   * Retrieves a page of orders, newest first.
+   *
+   * @param continuationToken the token returned with the previous page, or
+   *                          {@code null} for the first page
+   * @param size              the requested page size, capped at the configured
+   *                          maximum
+   * @return an {@link OrderPage} of {@link OrderView} objects, or an
+   *         {@link IllegalArgumentException} error if the token is malformed
+   *         or the size is not positive
+   */
+  public Mono<OrderPage> findAll(String continuationToken, int size) {
+    log.info("Fetching page of orders");
+    return Mono.fromCallable(() -> pageLimit(size))
+        .flatMap(limit -> repository.findPage(OrderCursor.decode(continuationToken), limit + 1)
+            .collectList()
+            .map(orders -> OrderPage.of(orders, limit)));
+  }
+
+  /**
+   * Finds a specific order by its ID, fetching only the view fields.
+   *
+   * @param orderId the ID of the order to retrieve
+   * @return an {@link OrderView} object representing the order
+   */
+  public Mono<OrderView> find(ObjectId orderId) {
+    log.info("Fetching order with ID {}", orderId);
+    return serviceUtils.findViewById(orderId);
+  }
+
+  /**
+   * Retrieves a page of orders of a specific user, newest first.
+   *
+   * @param userId            the ID of the user whose orders are to be
+   *                          retrieved
+   * @param continuationToken the token returned with the previous page, or
+   *                          {@code null} for the first page
+   * @param size              the requested page size, capped at the configured
+   *                          maximum
+   * @return an {@link OrderPage} of {@link OrderView} objects, or an
+   *         {@link IllegalArgumentException} error if the token is malformed
+   *         or the size is not positive
+   */
+  public Mono<OrderPage> findAllOfUser(ObjectId userId, String continuationToken, int size) {
+    log.info("Fetching page of orders of user with ID {}", userId);
+    return Mono.fromCallable(() -> pageLimit(size))
+        .flatMap(limit -> repository.findPageByUserId(userId, OrderCursor.decode(continuationToken), limit + 1)
+            .collectList()
+            .map(orders -> OrderPage.of(orders, limit)));
+  }
+
+  /**
+   * Streams all orders from a database cursor at the pace the client reads
+   * them.
+   *
+   * @return a {@link Flux} of all {@link Order} objects
+   */
+  public Flux<Order> exportAll() {
+    log.info("Exporting all orders");
+    return repository.findAllBy();
+  }
+
+  /**
+   * Deletes an order by its ID unless it has been delivered, with a single
+   * atomic operation, and, in the same transaction, enqueues the messages to
+   * restore its product quantities and to evict it from the order caches.
+   *
+   * @param orderId the ID of the order to delete
+   * @return a {@link Mono} completing once the order is deleted, a
+   *         {@link ForbiddenException} error if the order has already been
+   *         delivered, or an {@link OrderNotFoundException} error if no order
+   *         is found
+   */
+  public Mono<Void> delete(ObjectId orderId) {
+    log.info("Deleting order with ID {}", orderId);
+    return repository.deleteUndeliveredById(orderId)
+        .switchIfEmpty(Mono.defer(() -> serviceUtils.findOwnerId(orderId)
+            .<Order>flatMap(ownerId -> {
+              log.warn("Order has already been delivered and cannot be deleted");
+              return Mono.error(new ForbiddenException("Order has already been delivered and cannot be deleted"));
+            })))
+        .flatMap(order -> restoreQty(order)
+            .then(outboxService.enqueue(orderCacheExchange, "",
+                new OrdersChangedEvent(null, List.of(orderId.toHexString()),
+                    List.of(order.getUserId().toHexString())))))
+        .as(transactionalOperator::transactional);
+  }
+
+  /**
+   * Enqueues a message to restore the product quantities in a deleted order,
+   * unless they were never fetched because the order had not been priced.
+   *
+   * @param order the deleted {@link Order}
+   * @return a {@link Mono} completing once the message is enqueued
+   */
+  private Mono<Void> restoreQty(Order order) {
+    if (!order.getStatus().holdsStock())
+      return Mono.empty();
+
+    log.info("Sending message to restore qty in order with ID {}", order.getId());
+    return outboxService.enqueue(productServiceExchange, restoreQtyRoutingKey, order.getOrderItems());
+  }
+
+  /**
+   * Validates the requested page size and caps it at the configured maximum.
+   *
+   * @param size the requested page size
+   * @return the number of orders to return in the page
+   * @throws IllegalArgumentException if the size is not positive
+   */
+  private int pageLimit(int size) {
+    isTrue(size > 0, "Page size must be positive");
+    return Math.min(size, maxPageSize);
+  }
+}
@@ -0,0 +1,170 @@
+package com.drevotiuk.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.OrdersChangedEvent;
+import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.OrderNotFoundException;
+import com.drevotiuk.repository.ReactiveOrderRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reactive counterpart of {@link OrderService}, active with the
+ * {@code reactive} profile.
+ * Provides the same operations as non-blocking pipelines; messages to other
+ * services are written to the transactional outbox through
+ * {@link ReactiveOutboxService}.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOrderService {
+  @Value("${rabbitmq.exchange.product-service}")
+  private String productServiceExchange;
+  @Value("${rabbitmq.routingkey.fetch-qty}")
+  private String fetchQtyRoutingKey;
+  @Value("${rabbitmq.exchange.order-cache}")
+  private String orderCacheExchange;
+
+  private final ReactiveOrderRepository repository;
+  private final ReactiveOrderServiceUtils serviceUtils;
+  private final ReactiveOutboxService outboxService;
+  private final TransactionalOperator transactionalOperator;
+  private final IdempotencyService idempotencyService;
+  private final ReactiveIdempotencyService reactiveIdempotencyService;
+
+  /**
+   * Retrieves all orders associated with a given user.
+   *
+   * @param userId the ID of the user whose orders are to be retrieved
+   * @return a {@link Flux} of {@link OrderView} for the specified user
+   */
+  public Flux<OrderView> findAll(ObjectId userId) {
+    log.info("Fetching all orders of user with ID {}", userId);
+    return repository.findViewsByUserId(userId);
+  }
+
+  /**
+   * Retrieves a specific order and verifies that it belongs to the specified
+   * user.
+   *
+   * @param orderId the ID of the order to be retrieved
+   * @param userId  the ID of the user to verify ownership of the order
+   * @return the found {@link OrderView}, a {@link ForbiddenException} error if
+   *         the order does not belong to the user, or an
+   *         {@link OrderNotFoundException} error if no order is found
+   */
+  public Mono<OrderView> find(ObjectId orderId, ObjectId userId) {
+    log.info("Fetching order with ID {}", orderId);
+    return repository.findViewByIdAndUserId(orderId, userId)
+        .switchIfEmpty(Mono.defer(() -> serviceUtils.findOwnerId(orderId)
+            .flatMap(ownerId -> {
+              log.warn("UserIDs do not match: {}, {}", ownerId, userId);
+              return Mono.error(new ForbiddenException("UserIDs do not match"));
+            })));
+  }
+
+  /**
+   * Creates a new {@link Order} for the given items and user.
+   * Saves the order and, in the same transaction, enqueues the messages to
+   * fetch product quantities, to send an email notification about the order
+   * creation, and to evict the order list of the user from the order caches.
+   * If an idempotency key is given, a retried request returns the order created
+   * under the key before. The blocking key reservation of
+   * {@link IdempotencyService} runs on the bounded elastic scheduler, and the
+   * key is completed in the order transaction, so it is released only if no
+   * order has been created.
+   *
+   * @param orderItems     the {@link List} of {@link OrderItem}
+   * @param userId         the ID of the user placing the order
+   * @param idempotencyKey the idempotency key sent by the client, or
+   *                       {@code null} if the request is not to be deduplicated
+   * @return the {@link OrderView} representing the created order
+   */
+  public Mono<OrderView> create(List<OrderItem> orderItems, ObjectId userId, String idempotencyKey) {
+    if (idempotencyKey == null)
+      return createOrder(orderItems, userId, null).map(OrderView::new);
+
+    return Mono.fromCallable(() -> idempotencyService.reserve(userId, idempotencyKey, orderItems))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(replay -> replay.map(Mono::just).orElseGet(() -> createOrder(orderItems, userId, idempotencyKey)
+            .map(OrderView::new)
+            .onErrorResume(e -> Mono.<OrderView>fromRunnable(() -> idempotencyService.release(userId, idempotencyKey))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.error(e)))));
+  }
+
+  /**
+   * Quotes a new {@link Order}, then saves and announces it in a transaction,
+   * in which the reserved idempotency key, if any, is completed as well.
+   *
+   * @param orderItems     the {@link List} of {@link OrderItem}
+   * @param userId         the ID of the user placing the order
+   * @param idempotencyKey the reserved idempotency key, or {@code null}
+   * @return the created {@link Order}
+   */
+  private Mono<Order> createOrder(List<OrderItem> orderItems, ObjectId userId, String idempotencyKey) {
+    log.info("Adding new order: {}", orderItems.toString());
+    return serviceUtils.calculateTotalPrice(orderItems)
+        .map(totalPrice -> buildOrder(orderItems, userId, totalPrice))
+        .flatMap(order -> repository.save(order)
+            .then(serviceUtils.sendOrderCreatedEmail(order, order.getTotalPrice()))
+            .then(outboxService.enqueue(productServiceExchange, fetchQtyRoutingKey, orderItems))
+            .then(outboxService.enqueue(orderCacheExchange, "",
+                new OrdersChangedEvent(null, List.of(), List.of(userId.toHexString()))))
+            .then(completeIdempotencyKey(order, idempotencyKey))
+            .as(transactionalOperator::transactional)
+            .thenReturn(order));
+  }
+
+  /**
+   * Completes the idempotency key reserved for a created order.
+   *
+   * @param order          the created {@link Order}
+   * @param idempotencyKey the reserved idempotency key, or {@code null}
+   * @return a {@link Mono} completing once the key is completed
+   */
+  private Mono<Void> completeIdempotencyKey(Order order, String idempotencyKey) {
+    if (idempotencyKey == null)
+      return Mono.empty();
+
+    return reactiveIdempotencyService.complete(order.getUserId(), idempotencyKey, order.getId(), new OrderView(order));
+  }
+
+  /**
+   * Builds an {@link Order} object from the given items, user ID, and current
+   * time.
+   *
+   * @param orderItems the {@link List} of {@link OrderItem}
+   * @param userId     the ID of the user placing the order
+   * @param totalPrice the total price of the order
+   * @return the constructed {@link Order} object
+   */
+  private Order buildOrder(List<OrderItem> orderItems, ObjectId userId, BigDecimal totalPrice) {
+    return new Order(
+        ObjectId.get(),
+        OrderStatus.ORDERED,
+        userId,
+        orderItems,
+        LocalDateTime.now(),
+        totalPrice);
+  }
+}
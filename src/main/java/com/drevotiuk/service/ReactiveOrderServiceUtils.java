@@ -0,0 +1,220 @@
+package com.drevotiuk.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.springframework.amqp.core.AmqpReplyTimeoutException;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderOwner;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.exception.InvalidOrderItemException;
+import com.drevotiuk.model.exception.OrderNotFoundException;
+import com.drevotiuk.model.exception.PriceQuoteException;
+import com.drevotiuk.repository.ReactiveOrderRepository;
+import com.drevotiuk.service.OrderServiceUtils.QuoteMode;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link OrderServiceUtils}.
+ * Orders are priced in the configured quote mode; replies complete the
+ * pipeline without holding a thread while they are pending. Replies are
+ * validated and cached exactly as in {@link OrderServiceUtils}.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOrderServiceUtils {
+  @Value("${rabbitmq.exchange.product-service}")
+  private String productServiceExchange;
+  @Value("${rabbitmq.exchange.notification-service}")
+  private String notificationServiceExchange;
+  @Value("${rabbitmq.routingkey.total-price}")
+  private String totalPriceRoutingKey;
+  @Value("${rabbitmq.routingkey.order-created}")
+  private String orderCreatedRoutingKey;
+  @Value("${order.quote.mode}")
+  private QuoteMode quoteMode;
+
+  private final ReactiveOrderRepository repository;
+  private final AsyncRabbitTemplate asyncRabbitTemplate;
+  private final OrderServiceUtils serviceUtils;
+  private final ReactiveOutboxService outboxService;
+
+  /**
+   * Finds an order by its ID.
+   *
+   * @param orderId the ID of the order to find
+   * @return the found {@link Order}, or an {@link OrderNotFoundException} error
+   */
+  public Mono<Order> findById(ObjectId orderId) {
+    return repository.findById(orderId)
+        .switchIfEmpty(Mono.defer(() -> Mono.error(createOrderNotFoundException(orderId))));
+  }
+
+  /**
+   * Finds the view of an order by its ID, fetching only the view fields.
+   *
+   * @param orderId the ID of the order to find
+   * @return the {@link OrderView} of the found order, or an
+   *         {@link OrderNotFoundException} error
+   */
+  public Mono<OrderView> findViewById(ObjectId orderId) {
+    return repository.findViewById(orderId)
+        .switchIfEmpty(Mono.defer(() -> Mono.error(createOrderNotFoundException(orderId))));
+  }
+
+  /**
+   * Finds the ID of the user who placed an order, fetching only the order ID
+   * and user ID.
+   *
+   * @param orderId the ID of the order
+   * @return the ID of the user who placed the order, or an
+   *         {@link OrderNotFoundException} error
+   */
+  public Mono<ObjectId> findOwnerId(ObjectId orderId) {
+    return repository.findOwnerById(orderId)
+        .map(OrderOwner::getUserId)
+        .switchIfEmpty(Mono.defer(() -> Mono.error(createOrderNotFoundException(orderId))));
+  }
+
+  /**
+   * Calculates the total price of an order in the configured
+   * {@link OrderServiceUtils.QuoteMode}. Uncached items are quoted one after
+   * another, all at once, or by a single batch request for the whole order.
+   *
+   * @param orderItems the {@link List} of {@link OrderItem} objects
+   * @return the total price of the order, or an
+   *         {@link InvalidOrderItemException} error if any of the items is
+   *         invalid, or a {@link PriceQuoteException} error if a quote did not
+   *         arrive in time
+   */
+  public Mono<BigDecimal> calculateTotalPrice(List<OrderItem> orderItems) {
+    if (quoteMode == QuoteMode.BATCH)
+      return calculateTotalPriceInBatch(orderItems);
+
+    Flux<OrderItem> items = Flux.fromIterable(orderItems);
+    Flux<BigDecimal> itemPrices = quoteMode == QuoteMode.PARALLEL
+        ? items.flatMap(this::getItemTotalPrice)
+        : items.concatMap(this::getItemTotalPrice);
+    return itemPrices.reduce(BigDecimal.ZERO, BigDecimal::add);
+  }
+
+  /**
+   * Calculates the total price of an order from the cached unit prices and a
+   * single batch request for all items whose price is not cached.
+   *
+   * @param orderItems the {@link List} of {@link OrderItem} objects
+   * @return the total price of the order, or an
+   *         {@link InvalidOrderItemException} error if any of the items is
+   *         invalid
+   */
+  private Mono<BigDecimal> calculateTotalPriceInBatch(List<OrderItem> orderItems) {
+    BigDecimal cachedTotalPrice = BigDecimal.ZERO;
+    List<OrderItem> uncachedItems = new ArrayList<>(orderItems.size());
+    try {
+      for (OrderItem item : orderItems) {
+        BigDecimal cachedPrice = serviceUtils.getCachedItemTotalPrice(item);
+        if (cachedPrice == null)
+          uncachedItems.add(item);
+        else
+          cachedTotalPrice = cachedTotalPrice.add(cachedPrice);
+      }
+    } catch (InvalidOrderItemException e) {
+      return Mono.error(e);
+    }
+
+    if (uncachedItems.isEmpty())
+      return Mono.just(cachedTotalPrice);
+
+    BigDecimal cachedTotal = cachedTotalPrice;
+    return Mono.defer(() -> {
+      log.info("Sending message to calculate total price of {} order items", uncachedItems.size());
+      return sendAndReceive(uncachedItems);
+    })
+        .map(reply -> serviceUtils.applyBatchQuote(uncachedItems, reply))
+        .switchIfEmpty(Mono.fromCallable(() -> serviceUtils.applyBatchQuote(uncachedItems, null)))
+        .map(totalPrice -> totalPrice.add(cachedTotal));
+  }
+
+  /**
+   * Calculates the total price of a single order item from the cached unit
+   * price of its product, or by a request to the product service on a cache
+   * miss.
+   *
+   * @param item the {@link OrderItem}
+   * @return the total price of the order item, or an
+   *         {@link InvalidOrderItemException} error if the item is invalid
+   */
+  private Mono<BigDecimal> getItemTotalPrice(OrderItem item) {
+    BigDecimal cachedPrice;
+    try {
+      cachedPrice = serviceUtils.getCachedItemTotalPrice(item);
+    } catch (InvalidOrderItemException e) {
+      return Mono.error(e);
+    }
+    if (cachedPrice != null)
+      return Mono.just(cachedPrice);
+
+    return Mono.defer(() -> {
+      log.info("Sending message to calculate total price of product with ID {}", item.getProductId());
+      return sendAndReceive(item);
+    })
+        .map(reply -> serviceUtils.applyItemQuote(item, reply))
+        .switchIfEmpty(Mono.fromCallable(() -> serviceUtils.applyItemQuote(item, null)));
+  }
+
+  /**
+   * Sends a price quote request without blocking for the reply.
+   *
+   * @param request the order item or items to quote
+   * @return the reply of the product service, or a {@link PriceQuoteException}
+   *         error if it did not arrive in time
+   */
+  private Mono<Object> sendAndReceive(Object request) {
+    return Mono.fromFuture(asyncRabbitTemplate
+        .<Object>convertSendAndReceive(productServiceExchange, totalPriceRoutingKey, request)
+        .completable())
+        .onErrorMap(AmqpReplyTimeoutException.class,
+            e -> new PriceQuoteException("Price quote did not complete in time", e));
+  }
+
+  /**
+   * Enqueues an email notification about the creation of an order in the
+   * transactional outbox.
+   *
+   * @param order      the created {@link Order}
+   * @param totalPrice the total price of the order
+   * @return a {@link Mono} completing once the message is stored
+   */
+  public Mono<Void> sendOrderCreatedEmail(Order order, BigDecimal totalPrice) {
+    return Mono.defer(() -> {
+      log.info("Sending order created email; orderID: {}", order.getId());
+      return outboxService.enqueue(notificationServiceExchange, orderCreatedRoutingKey,
+          serviceUtils.buildOrderEmailDetails(order, totalPrice));
+    });
+  }
+
+  /**
+   * Creates an exception indicating that an order was not found.
+   *
+   * @param orderId the ID of the missing order
+   * @return the created {@link OrderNotFoundException}
+   */
+  private OrderNotFoundException createOrderNotFoundException(ObjectId orderId) {
+    log.warn("Order not found with ID {}", orderId);
+    return new OrderNotFoundException("Order not found with ID: " + orderId);
+  }
+}
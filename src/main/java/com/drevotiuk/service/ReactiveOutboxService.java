@@ -0,0 +1,39 @@
+package com.drevotiuk.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link OutboxService}.
+ * Messages enqueued within a reactive transaction are stored atomically with
+ * the order changes they announce and are published by the
+ * {@link OutboxRelay} like all other outbox messages.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOutboxService {
+  private final OutboxService outboxService;
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  /**
+   * Converts the payload and stores it in the outbox for publishing.
+   *
+   * @param exchange   the exchange to publish the message to
+   * @param routingKey the routing key to publish the message with
+   * @param payload    the message payload
+   * @return a {@link Mono} completing once the message is stored
+   */
+  public Mono<Void> enqueue(String exchange, String routingKey, Object payload) {
+    return Mono.fromCallable(() -> outboxService.toOutboxMessage(exchange, routingKey, payload))
+        .doOnNext(message -> log.info("Enqueuing message {} for {}/{}", message.getId(), exchange, routingKey))
+        .flatMap(mongoTemplate::insert)
+        .then();
+  }
+}
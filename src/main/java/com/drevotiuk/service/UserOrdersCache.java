@@ -0,0 +1,152 @@
+package com.drevotiuk.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.UserOrders;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, expiring in-process cache of the order lists of users.
+ * A list is loaded from the database once and then kept up to date by
+ * applying created, deleted and updated orders to it, rather than being
+ * rebuilt. Every list carries an entity tag derived from its content, so that
+ * clients can revalidate it without a response body.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics
+ * under the {@code user-orders} cache name.
+ */
+@Component
+public class UserOrdersCache {
+  private final boolean enabled;
+  private final Cache<ObjectId, Entry> entries;
+
+  public UserOrdersCache(@Value("${order.user-cache.enabled}") boolean enabled,
+      @Value("${order.user-cache.max-size}") long maxSize,
+      @Value("${order.user-cache.ttl}") long ttl,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.entries = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .recordStats()
+        .<ObjectId, Entry>build(), "user-orders");
+  }
+
+  /**
+   * Returns the cached orders of a user, loading and caching them on a miss.
+   *
+   * @param userId the ID of the user
+   * @param loader the function loading the orders of the user, with their IDs
+   *               and view fields, from the database
+   * @return the {@link UserOrders} of the user
+   */
+  public UserOrders get(ObjectId userId, Function<ObjectId, List<Order>> loader) {
+    if (!enabled)
+      return load(userId, loader).userOrders;
+
+    return entries.get(userId, id -> load(id, loader)).userOrders;
+  }
+
+  /**
+   * Appends a created order to the cached list of its user, if cached.
+   *
+   * @param order the created {@link Order}
+   */
+  public void append(Order order) {
+    apply(order.getUserId(), views -> views.put(order.getId(), new OrderView(order)));
+  }
+
+  /**
+   * Replaces an updated order in the cached list of its user, if cached.
+   *
+   * @param order the updated {@link Order} with its user ID and view fields
+   */
+  public void replace(Order order) {
+    apply(order.getUserId(), views -> views.replace(order.getId(), new OrderView(order)));
+  }
+
+  /**
+   * Removes a deleted order from the cached list of its user, if cached.
+   *
+   * @param order the deleted {@link Order} with its ID and user ID
+   */
+  public void remove(Order order) {
+    apply(order.getUserId(), views -> views.remove(order.getId()));
+  }
+
+  /**
+   * Evicts the cached lists of users whose orders have changed in ways that
+   * cannot be applied incrementally.
+   *
+   * @param userIds the IDs of the users
+   */
+  public void evict(Collection<ObjectId> userIds) {
+    entries.invalidateAll(userIds);
+  }
+
+  /**
+   * Applies a change to a copy of the cached list of a user and replaces the
+   * list atomically. A list that is being loaded is changed once loaded.
+   *
+   * @param userId the ID of the user
+   * @param change the change to apply to the views by order ID
+   */
+  private void apply(ObjectId userId, Consumer<Map<ObjectId, OrderView>> change) {
+    entries.asMap().computeIfPresent(userId, (id, entry) -> {
+      Map<ObjectId, OrderView> views = new LinkedHashMap<>(entry.views);
+      change.accept(views);
+      return new Entry(views);
+    });
+  }
+
+  private Entry load(ObjectId userId, Function<ObjectId, List<Order>> loader) {
+    Map<ObjectId, OrderView> views = new LinkedHashMap<>();
+    loader.apply(userId).forEach(order -> views.put(order.getId(), new OrderView(order)));
+    return new Entry(views);
+  }
+
+  /**
+   * A cached list of the views of the orders of a user by order ID.
+   */
+  private static class Entry {
+    private final Map<ObjectId, OrderView> views;
+    private final UserOrders userOrders;
+
+    Entry(Map<ObjectId, OrderView> views) {
+      this.views = views;
+      this.userOrders = new UserOrders(Collections.unmodifiableList(new ArrayList<>(views.values())), etag(views));
+    }
+
+    /**
+     * Derives the entity tag of a list from the IDs, statuses and prices of
+     * its orders; the items of an order never change.
+     */
+    private static String etag(Map<ObjectId, OrderView> views) {
+      StringBuilder content = new StringBuilder(views.size() * 40);
+      views.forEach((orderId, view) -> content.append(orderId.toHexString())
+          .append(':').append(view.getStatus())
+          .append(':').append(view.getTotalPrice() == null ? null : view.getTotalPrice().toPlainString())
+          .append(';'));
+      return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
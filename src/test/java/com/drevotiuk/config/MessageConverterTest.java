@@ -0,0 +1,91 @@
+package com.drevotiuk.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import com.drevotiuk.model.OrderPriceQuote;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+public class MessageConverterTest {
+  private final AppConfig appConfig = new AppConfig();
+  private final OrderPriceQuote quote = new OrderPriceQuote(
+      List.of(new BigDecimal("12.50"), new BigDecimal("7.25")), new BigDecimal("19.75"));
+
+  @Test
+  void shouldWriteAndReadCbor() {
+    // given
+    MessageConverter underTest = appConfig.messageConverter(Jackson2CborMessageConverter.CONTENT_TYPE);
+
+    // when
+    Message message = underTest.toMessage(quote, new MessageProperties());
+
+    // then
+    assertThat(message.getMessageProperties().getContentType()).isEqualTo(Jackson2CborMessageConverter.CONTENT_TYPE);
+    assertThat(underTest.fromMessage(message)).isEqualTo(quote);
+  }
+
+  @Test
+  void shouldReadCborWithoutTypeHeadersAsInferredType() throws IOException {
+    // given
+    MessageConverter underTest = appConfig.messageConverter(Jackson2CborMessageConverter.CONTENT_TYPE);
+    MessageProperties properties = new MessageProperties();
+    properties.setContentType(Jackson2CborMessageConverter.CONTENT_TYPE);
+    properties.setInferredArgumentType(new TypeReference<List<OrderPriceQuote>>() {}.getType());
+    byte[] body = new ObjectMapper(new CBORFactory()).findAndRegisterModules().writeValueAsBytes(List.of(quote));
+
+    // when
+    Object result = underTest.fromMessage(new Message(body, properties));
+
+    // then
+    assertThat(result).isEqualTo(List.of(quote));
+  }
+
+  @Test
+  void shouldWriteSmallerCborThanJsonBody() {
+    // given
+    MessageConverter json = appConfig.messageConverter(MessageProperties.CONTENT_TYPE_JSON);
+    MessageConverter cbor = appConfig.messageConverter(Jackson2CborMessageConverter.CONTENT_TYPE);
+
+    // when
+    byte[] jsonBody = json.toMessage(quote, new MessageProperties()).getBody();
+    byte[] cborBody = cbor.toMessage(quote, new MessageProperties()).getBody();
+
+    // then
+    assertThat(cborBody.length).isLessThan(jsonBody.length);
+  }
+
+  @Test
+  void shouldReadMessagesByTheirContentType() {
+    // given
+    MessageConverter underTest = appConfig.messageConverter(MessageProperties.CONTENT_TYPE_JSON);
+    Message cborMessage = appConfig.messageConverter(Jackson2CborMessageConverter.CONTENT_TYPE)
+        .toMessage(quote, new MessageProperties());
+
+    // when
+    Object result = underTest.fromMessage(cborMessage);
+
+    // then
+    assertThat(result).isEqualTo(quote);
+    assertThat(underTest.toMessage(quote, new MessageProperties()).getMessageProperties().getContentType())
+        .isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+  }
+
+  @Test
+  void shouldRejectUnsupportedContentType() {
+    // when
+    // then
+    assertThatThrownBy(() -> appConfig.messageConverter("application/xml"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("application/xml");
+  }
+}
@@ -0,0 +1,72 @@
+package com.drevotiuk.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.repository.OrderRepository;
+
+public class MongoIndexInitializerTest {
+  private MongoIndexInitializer underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new MongoIndexInitializer(null, null, new MongoMappingContext());
+  }
+
+  @Test
+  void shouldConsiderQueryOnLeadingIndexFieldIndexed() throws NoSuchMethodException {
+    // given
+    List<IndexInfo> indexes = List.of(
+        index("_id_", IndexField.create("_id", Direction.ASC)),
+        index("user_order_time", IndexField.create("userId", Direction.ASC),
+            IndexField.create("orderTime", Direction.DESC)));
+
+    // when
+    boolean indexed = underTest.isIndexed(Order.class,
+        OrderRepository.class.getMethod("findCachedByUserId", ObjectId.class), indexes);
+
+    // then
+    assertThat(indexed).isTrue();
+  }
+
+  @Test
+  void shouldDetectQueryWithoutIndex() throws NoSuchMethodException {
+    // given
+    List<IndexInfo> indexes = List.of(
+        index("_id_", IndexField.create("_id", Direction.ASC)),
+        index("status_order_time", IndexField.create("status", Direction.ASC),
+            IndexField.create("userId", Direction.ASC)));
+
+    // when
+    boolean indexed = underTest.isIndexed(Order.class,
+        OrderRepository.class.getMethod("findCachedByUserId", ObjectId.class), indexes);
+
+    // then
+    assertThat(indexed).isFalse();
+  }
+
+  @Test
+  void shouldConsiderQueryWithoutCriteriaIndexed() throws NoSuchMethodException {
+    // when
+    boolean indexed = underTest.isIndexed(Order.class,
+        OrderRepository.class.getMethod("streamAllBy"), Collections.emptyList());
+
+    // then
+    assertThat(indexed).isTrue();
+  }
+
+  private IndexInfo index(String name, IndexField... fields) {
+    return new IndexInfo(List.of(fields), name, false, false, null);
+  }
+}
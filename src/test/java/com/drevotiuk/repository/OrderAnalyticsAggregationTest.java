@@ -0,0 +1,72 @@
+package com.drevotiuk.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+
+import com.drevotiuk.model.Order;
+
+public class OrderAnalyticsAggregationTest {
+  private final LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+  private final LocalDateTime to = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+  @Test
+  void shouldMatchOrderTimeBeforeGroupingByStatus() {
+    // when
+    List<Document> pipeline = pipelineOf(OrderRepositoryCustomImpl.statusSummaryAggregation(from, to));
+
+    // then
+    assertThat(matchOf(pipeline)).containsKey("orderTime");
+    assertThat(pipeline.get(1)).containsKey("$group");
+  }
+
+  @Test
+  void shouldMatchStockHoldingOrdersBeforeGroupingByDay() {
+    // when
+    List<Document> pipeline = pipelineOf(
+        OrderRepositoryCustomImpl.revenuePerDayAggregation(from, to, ZoneId.systemDefault()));
+
+    // then
+    assertThat(matchOf(pipeline)).containsKeys("status", "orderTime");
+  }
+
+  @Test
+  void shouldBucketDaysInGivenZone() {
+    // when
+    List<Document> pipeline = pipelineOf(
+        OrderRepositoryCustomImpl.revenuePerDayAggregation(from, to, ZoneId.of("Europe/Kyiv")));
+
+    // then
+    Document day = pipeline.get(1).get("$project", Document.class).get("day", Document.class);
+    assertThat(day.get("$dateToString", Document.class))
+        .containsEntry("format", "%Y-%m-%d")
+        .containsEntry("timezone", "Europe/Kyiv");
+  }
+
+  @Test
+  void shouldMatchStockHoldingOrdersBeforeUnwindingItems() {
+    // when
+    List<Document> pipeline = pipelineOf(OrderRepositoryCustomImpl.topProductsAggregation(from, to, 10));
+
+    // then
+    assertThat(matchOf(pipeline)).containsKeys("status", "orderTime");
+    assertThat(pipeline.get(2)).containsKey("$unwind");
+    assertThat(pipeline.get(pipeline.size() - 2)).containsEntry("$limit", 10L);
+  }
+
+  private List<Document> pipelineOf(TypedAggregation<Order> aggregation) {
+    return aggregation.toPipeline(Aggregation.DEFAULT_CONTEXT);
+  }
+
+  private Document matchOf(List<Document> pipeline) {
+    assertThat(pipeline.get(0)).containsKey("$match");
+    return pipeline.get(0).get("$match", Document.class);
+  }
+}
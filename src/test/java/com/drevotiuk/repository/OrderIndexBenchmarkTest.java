@@ -0,0 +1,93 @@
+package com.drevotiuk.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderStatus;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+/**
+ * Compares the per-user order query with and without the declared indexes
+ * against a locally running MongoDB instance.
+ * Runs only when {@code MONGODB_BENCH_URI} points to a disposable server,
+ * e.g. {@code MONGODB_BENCH_URI=mongodb://localhost:27017}.
+ */
+@EnabledIfEnvironmentVariable(named = "MONGODB_BENCH_URI", matches = ".+")
+public class OrderIndexBenchmarkTest {
+  private static final int USERS = 1_000;
+  private static final int ORDERS_PER_USER = 100;
+
+  private MongoClient client;
+  private MongoTemplate mongoTemplate;
+  private List<ObjectId> userIds;
+
+  @BeforeEach
+  void setUp() {
+    client = MongoClients.create(System.getenv("MONGODB_BENCH_URI"));
+    mongoTemplate = new MongoTemplate(client, "orderdb_index_benchmark");
+    mongoTemplate.dropCollection(Order.class);
+
+    userIds = new ArrayList<>(USERS);
+    for (int u = 0; u < USERS; u++) {
+      ObjectId userId = ObjectId.get();
+      userIds.add(userId);
+      List<Order> orders = new ArrayList<>(ORDERS_PER_USER);
+      for (int o = 0; o < ORDERS_PER_USER; o++) {
+        orders.add(new Order(ObjectId.get(), OrderStatus.ORDERED, userId,
+            Collections.singletonList(new OrderItem(ObjectId.get().toString(), 1)),
+            LocalDateTime.now().minusMinutes(o), BigDecimal.TEN));
+      }
+      mongoTemplate.insertAll(orders);
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    mongoTemplate.getDb().drop();
+    client.close();
+  }
+
+  @Test
+  void shouldExamineOnlyUserOrdersWithIndexes() {
+    // given
+    Document filter = new Document("userId", userIds.get(USERS / 2));
+    long unindexedExamined = docsExamined(filter);
+
+    // when
+    IndexOperations indexOps = mongoTemplate.indexOps(Order.class);
+    new MongoPersistentEntityIndexResolver(new MongoMappingContext())
+        .resolveIndexFor(Order.class)
+        .forEach(indexOps::ensureIndex);
+    long indexedExamined = docsExamined(filter);
+
+    // then
+    assertThat(unindexedExamined).isEqualTo((long) USERS * ORDERS_PER_USER);
+    assertThat(indexedExamined).isEqualTo(ORDERS_PER_USER);
+  }
+
+  private long docsExamined(Document filter) {
+    Document explain = mongoTemplate.getCollection("orders").find(filter)
+        .explain(ExplainVerbosity.EXECUTION_STATS);
+    return explain.get("executionStats", Document.class).get("totalDocsExamined", Number.class).longValue();
+  }
+}
@@ -0,0 +1,150 @@
+package com.drevotiuk.service;
+
+import static org.mockito.BDDMockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.exception.InvalidOrderItemException;
+import com.drevotiuk.model.exception.PriceQuoteException;
+import com.drevotiuk.repository.OrderRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class CheckoutWorkerTest {
+  @Mock
+  private OrderRepository orderRepository;
+  @Mock
+  private OrderServiceUtils orderServiceUtils;
+  @Mock
+  private OrderChangeNotifier changeNotifier;
+  private CheckoutWorker underTest;
+
+  private final Order order = new Order(ObjectId.get(), OrderStatus.PENDING_PRICING, ObjectId.get(),
+      Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2)), LocalDateTime.now(), null);
+
+  @BeforeEach
+  void setUp() {
+    underTest = worker(new SyncTaskExecutor());
+  }
+
+  @Test
+  void shouldPriceAndAnnounceAcceptedOrder() {
+    // given
+    Order priced = new Order(order.getId(), OrderStatus.ORDERED, order.getUserId(), order.getOrderItems(),
+        null, BigDecimal.TEN);
+    given(orderServiceUtils.calculateTotalPrice(order.getOrderItems())).willReturn(BigDecimal.TEN);
+    given(orderRepository.completePricing(order.getId(), BigDecimal.TEN)).willReturn(Optional.of(priced));
+
+    // when
+    underTest.submit(order);
+
+    // then
+    verify(orderServiceUtils).sendOrderCreatedEmail(priced, BigDecimal.TEN);
+    verify(orderServiceUtils).sendFetchQtyMessage(priced);
+    verify(changeNotifier).updated(priced);
+  }
+
+  @Test
+  void shouldNotAnnounceOrderNoLongerAwaitingPricing() {
+    // given
+    given(orderServiceUtils.calculateTotalPrice(order.getOrderItems())).willReturn(BigDecimal.TEN);
+    given(orderRepository.completePricing(order.getId(), BigDecimal.TEN)).willReturn(Optional.empty());
+
+    // when
+    underTest.submit(order);
+
+    // then
+    verify(orderServiceUtils, never()).sendOrderCreatedEmail(any(), any());
+    verify(orderServiceUtils, never()).sendFetchQtyMessage(any());
+    verifyNoInteractions(changeNotifier);
+  }
+
+  @Test
+  void shouldRejectOrderWithInvalidItem() {
+    // given
+    Order rejected = new Order(order.getId(), OrderStatus.REJECTED, order.getUserId(), order.getOrderItems(),
+        null, null);
+    given(orderServiceUtils.calculateTotalPrice(order.getOrderItems()))
+        .willThrow(new InvalidOrderItemException("TEST invalid order"));
+    given(orderRepository.updateStatus(order.getId(), OrderStatus.PENDING_PRICING, OrderStatus.REJECTED))
+        .willReturn(Optional.of(rejected));
+
+    // when
+    underTest.submit(order);
+
+    // then
+    verify(changeNotifier).updated(rejected);
+    verify(orderRepository, never()).completePricing(any(), any());
+    verify(orderServiceUtils, never()).sendFetchQtyMessage(any());
+  }
+
+  @Test
+  void shouldLeaveOrderPendingWhenPricesCannotBeQuoted() {
+    // given
+    given(orderServiceUtils.calculateTotalPrice(order.getOrderItems()))
+        .willThrow(new PriceQuoteException("TEST product service unavailable"));
+
+    // when
+    underTest.submit(order);
+
+    // then
+    verify(orderRepository, never()).completePricing(any(), any());
+    verify(orderRepository, never()).updateStatus(any(), any(), any());
+    verifyNoInteractions(changeNotifier);
+  }
+
+  @Test
+  void shouldSweepStaleOrdersAwaitingPricing() {
+    // given
+    given(orderRepository.findByStatusAndOrderTimeBefore(eq(OrderStatus.PENDING_PRICING), any(), any()))
+        .willReturn(List.of(order));
+    given(orderServiceUtils.calculateTotalPrice(order.getOrderItems())).willReturn(BigDecimal.TEN);
+
+    // when
+    underTest.sweep();
+
+    // then
+    verify(orderRepository).completePricing(order.getId(), BigDecimal.TEN);
+  }
+
+  @Test
+  void shouldLeaveOrderToSweepWhenExecutorIsSaturated() {
+    // given
+    underTest = worker(task -> {
+      throw new TaskRejectedException("TEST saturated");
+    });
+
+    // when
+    underTest.submit(order);
+
+    // then
+    verifyNoInteractions(orderServiceUtils);
+    verify(orderRepository, never()).completePricing(any(), any());
+  }
+
+  private CheckoutWorker worker(TaskExecutor executor) {
+    CheckoutWorker worker = new CheckoutWorker(orderRepository, orderServiceUtils, changeNotifier,
+        TransactionOperations.withoutTransaction(), executor);
+    ReflectionTestUtils.setField(worker, "lease", 30_000L);
+    ReflectionTestUtils.setField(worker, "sweepBatchSize", 100);
+    return worker;
+  }
+}
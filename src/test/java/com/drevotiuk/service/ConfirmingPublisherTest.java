@@ -0,0 +1,152 @@
+package com.drevotiuk.service;
+
+import static org.mockito.BDDMockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.drevotiuk.model.exception.UnroutableMessageException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ConfirmingPublisherTest {
+  @Mock
+  private RabbitTemplate rabbitTemplate;
+  private SimpleMeterRegistry meterRegistry;
+  private ConfirmingPublisher underTest;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new ConfirmingPublisher(rabbitTemplate, 5, 2, 0, meterRegistry);
+  }
+
+  @Test
+  void shouldSendBufferedMessagesInBatchesOnOneChannel() {
+    // given
+    runOperations();
+    underTest.publish("exchange", "a", message());
+    underTest.publish("exchange", "b", message());
+    underTest.publish("exchange", "c", message());
+
+    // when
+    underTest.flush();
+
+    // then
+    verify(rabbitTemplate, times(2)).invoke(any());
+    verify(rabbitTemplate, times(3)).send(eq("exchange"), anyString(), any(Message.class), any(CorrelationData.class));
+    assertThat(meterRegistry.get("order.publisher.in-flight").gauge().value()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldCompletePublishWhenConfirmed() {
+    // given
+    runOperations();
+    CompletableFuture<Void> published = underTest.publish("exchange", "a", message());
+    underTest.flush();
+
+    // when
+    underTest.confirm(sentCorrelationData().get(0), true, null);
+
+    // then
+    assertThat(published).isCompleted().isNotCompletedExceptionally();
+    assertThat(meterRegistry.get("order.publisher.in-flight").gauge().value()).isZero();
+    assertThat(meterRegistry.get("order.publisher.confirm.latency").tag("result", "ack").timer().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void shouldFailPublishWhenNacked() {
+    // given
+    runOperations();
+    CompletableFuture<Void> published = underTest.publish("exchange", "a", message());
+    underTest.flush();
+
+    // when
+    underTest.confirm(sentCorrelationData().get(0), false, "TEST nack");
+
+    // then
+    assertThatThrownBy(published::join)
+        .hasCauseInstanceOf(AmqpException.class)
+        .hasMessageContaining("TEST nack");
+  }
+
+  @Test
+  void shouldFailPublishWhenReturned() {
+    // given
+    runOperations();
+    CompletableFuture<Void> published = underTest.publish("exchange", "a", message());
+    underTest.flush();
+    CorrelationData correlationData = sentCorrelationData().get(0);
+    correlationData.setReturned(new ReturnedMessage(message(), 312, "NO_ROUTE", "exchange", "a"));
+
+    // when
+    underTest.confirm(correlationData, true, null);
+
+    // then
+    assertThatThrownBy(published::join)
+        .hasCauseInstanceOf(UnroutableMessageException.class)
+        .hasMessageContaining("unroutable");
+  }
+
+  @Test
+  void shouldFailPublishWhenNotConfirmedInTime() {
+    // given
+    runOperations();
+    CompletableFuture<Void> published = underTest.publish("exchange", "a", message());
+    underTest.flush();
+
+    // when
+    underTest.flush();
+
+    // then
+    assertThatThrownBy(published::join).hasCauseInstanceOf(AmqpTimeoutException.class);
+    assertThat(meterRegistry.get("order.publisher.in-flight").gauge().value()).isZero();
+  }
+
+  @Test
+  void shouldFailBatchWhenSendFails() {
+    // given
+    given(rabbitTemplate.invoke(any())).willThrow(new AmqpConnectException(new RuntimeException("TEST")));
+    CompletableFuture<Void> published = underTest.publish("exchange", "a", message());
+
+    // when
+    underTest.flush();
+
+    // then
+    assertThatThrownBy(published::join).hasCauseInstanceOf(AmqpConnectException.class);
+  }
+
+  private void runOperations() {
+    willAnswer(invocation -> invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate))
+        .given(rabbitTemplate).invoke(any());
+  }
+
+  private List<CorrelationData> sentCorrelationData() {
+    ArgumentCaptor<CorrelationData> correlationData = ArgumentCaptor.forClass(CorrelationData.class);
+    verify(rabbitTemplate, atLeastOnce()).send(anyString(), anyString(), any(Message.class), correlationData.capture());
+    return correlationData.getAllValues();
+  }
+
+  private Message message() {
+    return new Message("{}".getBytes(), new MessageProperties());
+  }
+}
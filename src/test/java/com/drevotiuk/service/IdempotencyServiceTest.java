@@ -0,0 +1,147 @@
+package com.drevotiuk.service;
+
+import static org.mockito.BDDMockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.drevotiuk.model.IdempotencyRecord;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.exception.IdempotencyConflictException;
+import com.drevotiuk.repository.IdempotencyRepository;
+import com.mongodb.client.result.UpdateResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceTest {
+  @Mock
+  private IdempotencyRepository repository;
+  @Mock
+  private MongoTemplate mongoTemplate;
+  private IdempotencyService underTest;
+
+  private final ObjectId userId = ObjectId.get();
+  private final List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+  private final OrderView view = new OrderView(orderItems, BigDecimal.TEN, OrderStatus.ORDERED);
+
+  @BeforeEach
+  void setUp() {
+    underTest = new IdempotencyService(repository, mongoTemplate, 30_000, 100, 60_000, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void shouldReserveNewKey() {
+    // when
+    Optional<OrderView> result = underTest.reserve(userId, "key", orderItems);
+
+    // then
+    assertThat(result).isEmpty();
+    verify(repository).insert(any(IdempotencyRecord.class));
+  }
+
+  @Test
+  void shouldReplayCompletedKey() {
+    // given
+    IdempotencyRecord record = completedRecord();
+    given(repository.insert(any(IdempotencyRecord.class))).willThrow(new DuplicateKeyException("TEST"));
+    given(repository.findById(record.getId())).willReturn(Optional.of(record));
+
+    // when
+    Optional<OrderView> result = underTest.reserve(userId, "key", orderItems);
+
+    // then
+    assertThat(result).contains(view);
+  }
+
+  @Test
+  void shouldReplayCachedKeyWithoutDatabase() {
+    // given
+    IdempotencyRecord record = completedRecord();
+    given(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+        eq(IdempotencyRecord.class))).willReturn(record);
+    underTest.complete(userId, "key", record.getOrderId(), view);
+
+    // when
+    Optional<OrderView> result = underTest.reserve(userId, "key", orderItems);
+
+    // then
+    assertThat(result).contains(view);
+    verifyNoInteractions(repository);
+  }
+
+  @Test
+  void shouldThrowWhenKeyIsBeingProcessed() {
+    // given
+    IdempotencyRecord record = completedRecord();
+    record.setOrderId(null);
+    record.setResponse(null);
+    given(repository.insert(any(IdempotencyRecord.class))).willThrow(new DuplicateKeyException("TEST"));
+    given(repository.findById(record.getId())).willReturn(Optional.of(record));
+    given(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+        .willReturn(UpdateResult.acknowledged(0, 0L, null));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.reserve(userId, "key", orderItems))
+        .isInstanceOf(IdempotencyConflictException.class)
+        .hasMessageContaining("already being created");
+  }
+
+  @Test
+  void shouldTakeOverStaleReservation() {
+    // given
+    IdempotencyRecord record = completedRecord();
+    record.setOrderId(null);
+    record.setResponse(null);
+    given(repository.insert(any(IdempotencyRecord.class))).willThrow(new DuplicateKeyException("TEST"));
+    given(repository.findById(record.getId())).willReturn(Optional.of(record));
+    given(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(IdempotencyRecord.class)))
+        .willReturn(UpdateResult.acknowledged(1, 1L, null));
+
+    // when
+    Optional<OrderView> result = underTest.reserve(userId, "key", orderItems);
+
+    // then
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  void shouldThrowWhenKeyIsReusedForDifferentItems() {
+    // given
+    IdempotencyRecord record = completedRecord();
+    given(repository.insert(any(IdempotencyRecord.class))).willThrow(new DuplicateKeyException("TEST"));
+    given(repository.findById(record.getId())).willReturn(Optional.of(record));
+    List<OrderItem> otherItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 3));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.reserve(userId, "key", otherItems))
+        .isInstanceOf(IdempotencyConflictException.class)
+        .hasMessageContaining("different order");
+  }
+
+  private IdempotencyRecord completedRecord() {
+    Instant createdAt = Instant.now().minusSeconds(60);
+    return new IdempotencyRecord(userId.toHexString() + ":key", IdempotencyService.fingerprint(orderItems),
+        ObjectId.get(), view, createdAt, createdAt);
+  }
+}
@@ -0,0 +1,88 @@
+package com.drevotiuk.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class OrderCacheTest {
+  private MeterRegistry meterRegistry;
+  private OrderCache underTest;
+
+  private final Order order = new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+      Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)), LocalDateTime.now(), BigDecimal.TEN);
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new OrderCache(true, 100, 60_000, meterRegistry);
+  }
+
+  @Test
+  void shouldLoadOrderOnlyOnce() {
+    // given
+    AtomicInteger loads = new AtomicInteger();
+
+    // when
+    underTest.get(order.getId(), id -> {
+      loads.incrementAndGet();
+      return Optional.of(order);
+    });
+    Optional<Order> result = underTest.get(order.getId(), id -> {
+      loads.incrementAndGet();
+      return Optional.of(order);
+    });
+
+    // then
+    assertThat(result).contains(order);
+    assertThat(loads).hasValue(1);
+    assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotCacheMissingOrder() {
+    // given
+    AtomicInteger loads = new AtomicInteger();
+
+    // when
+    underTest.get(order.getId(), id -> {
+      loads.incrementAndGet();
+      return Optional.empty();
+    });
+    Optional<Order> result = underTest.get(order.getId(), id -> {
+      loads.incrementAndGet();
+      return Optional.empty();
+    });
+
+    // then
+    assertThat(result).isEmpty();
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void shouldReloadEvictedOrders() {
+    // given
+    underTest.get(order.getId(), id -> Optional.of(order));
+
+    // when
+    underTest.evict(List.of(order.getId()));
+
+    // then
+    assertThat(underTest.get(order.getId(), id -> Optional.empty())).isEmpty();
+  }
+}
@@ -0,0 +1,94 @@
+package com.drevotiuk.service;
+
+import static org.mockito.BDDMockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrdersChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderChangeNotifierTest {
+  @Mock
+  private OutboxService outboxService;
+  @Mock
+  private OrderCache orderCache;
+  @Mock
+  private UserOrdersCache userOrdersCache;
+  private OrderChangeNotifier underTest;
+
+  private final Order order = new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+      Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)), LocalDateTime.now(), BigDecimal.TEN);
+
+  @BeforeEach
+  void setUp() {
+    underTest = new OrderChangeNotifier("order-cache", outboxService, orderCache, userOrdersCache);
+  }
+
+  @Test
+  void shouldAppendCreatedOrderAndAnnounceItsUser() {
+    // given
+    ArgumentCaptor<OrdersChangedEvent> event = ArgumentCaptor.forClass(OrdersChangedEvent.class);
+
+    // when
+    underTest.created(List.of(order));
+
+    // then
+    verify(userOrdersCache).append(order);
+    verify(outboxService).enqueue(eq("order-cache"), eq(""), event.capture());
+    assertThat(event.getValue().getOrderIds()).isEmpty();
+    assertThat(event.getValue().getUserIds()).containsExactly(order.getUserId().toHexString());
+  }
+
+  @Test
+  void shouldEvictAndRemoveDeletedOrder() {
+    // when
+    underTest.deleted(List.of(order));
+
+    // then
+    verify(orderCache).evict(List.of(order.getId()));
+    verify(userOrdersCache).remove(order);
+    verify(outboxService).enqueue(eq("order-cache"), eq(""), any(OrdersChangedEvent.class));
+  }
+
+  @Test
+  void shouldEvictOrderListsChangedOnOtherInstances() {
+    // when
+    underTest.onOrdersChanged(new OrdersChangedEvent("other",
+        List.of(order.getId().toHexString()), List.of(order.getUserId().toHexString())));
+
+    // then
+    verify(orderCache).evict(List.of(order.getId()));
+    verify(userOrdersCache).evict(List.of(order.getUserId()));
+  }
+
+  @Test
+  void shouldNotEvictOrderListsChangedOnThisInstance() {
+    // given
+    ArgumentCaptor<OrdersChangedEvent> event = ArgumentCaptor.forClass(OrdersChangedEvent.class);
+    underTest.updated(order);
+    verify(outboxService).enqueue(eq("order-cache"), eq(""), event.capture());
+    clearInvocations(orderCache, userOrdersCache);
+
+    // when
+    underTest.onOrdersChanged(event.getValue());
+
+    // then
+    verify(orderCache).evict(List.of(order.getId()));
+    verify(userOrdersCache, never()).evict(any());
+  }
+}
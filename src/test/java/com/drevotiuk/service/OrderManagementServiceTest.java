@@ -2,9 +2,17 @@ package com.drevotiuk.service;
 
 import static org.mockito.BDDMockito.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import org.bson.types.ObjectId;
 
@@ -15,38 +23,112 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
 
+import com.drevotiuk.model.BulkDeleteResult;
+import com.drevotiuk.model.BulkStatusUpdateResult;
 import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderCursor;
 import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderPage;
 import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderStatusUpdate;
 import com.drevotiuk.model.OrderView;
 import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.InvalidStatusTransitionException;
+import com.drevotiuk.model.exception.OrderConflictException;
 import com.drevotiuk.model.exception.OrderNotFoundException;
 import com.drevotiuk.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoException;
 
 @ExtendWith(MockitoExtension.class)
 public class OrderManagementServiceTest {
   @Mock
   private OrderRepository orderRepository;
   @Mock
-  private RabbitTemplate rabbitTemplate;
+  private OutboxService outboxService;
+  @Mock
+  private OrderChangeNotifier changeNotifier;
   @Mock
   private OrderServiceUtils orderServiceUtils;
   private OrderManagementService underTest;
 
   @BeforeEach
   void setUp() {
-    underTest = new OrderManagementService(orderRepository, orderServiceUtils, rabbitTemplate);
+    underTest = new OrderManagementService(orderRepository, orderServiceUtils, outboxService, changeNotifier,
+        new ObjectMapper().findAndRegisterModules(), TransactionOperations.withoutTransaction());
+    ReflectionTestUtils.setField(underTest, "maxPageSize", 2);
+    ReflectionTestUtils.setField(underTest, "bulkMaxSize", 10);
+    ReflectionTestUtils.setField(underTest, "bulkDeleteAttempts", 2);
+    ReflectionTestUtils.setField(underTest, "statusBatchSize", 2);
+    ReflectionTestUtils.setField(underTest, "analyticsDefaultPeriod", 30);
+    ReflectionTestUtils.setField(underTest, "maxTopProducts", 5);
+  }
+
+  @Test
+  void shouldFindFirstPageOfOrders() {
+    // when
+    underTest.findAll(null, 2);
+
+    // then
+    verify(orderRepository).findPage(null, 3);
   }
 
   @Test
-  void shouldFindAllOrders() {
+  void shouldCapPageSize() {
     // when
-    underTest.findAll();
+    underTest.findAll(null, 1000);
 
     // then
-    verify(orderRepository).findAll();
+    verify(orderRepository).findPage(null, 3);
+  }
+
+  @Test
+  void shouldReturnContinuationTokenWhenMoreOrdersExist() {
+    // given
+    List<Order> orders = List.of(
+        new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+            Collections.singletonList(new OrderItem(ObjectId.get().toString(), 1)),
+            LocalDateTime.of(2024, 5, 3, 10, 0), BigDecimal.ONE),
+        new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+            Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2)),
+            LocalDateTime.of(2024, 5, 2, 10, 0), BigDecimal.TEN),
+        new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+            Collections.singletonList(new OrderItem(ObjectId.get().toString(), 3)),
+            LocalDateTime.of(2024, 5, 1, 10, 0), BigDecimal.TEN));
+    given(orderRepository.findPage(null, 3)).willReturn(orders);
+
+    // when
+    OrderPage page = underTest.findAll(null, 2);
+
+    // then
+    assertThat(page.getOrders()).containsExactly(new OrderView(orders.get(0)), new OrderView(orders.get(1)));
+    assertThat(OrderCursor.decode(page.getNext())).isEqualTo(OrderCursor.of(orders.get(1)));
+  }
+
+  @Test
+  void shouldSeekPastContinuationToken() {
+    // given
+    OrderCursor cursor = new OrderCursor(LocalDateTime.of(2024, 5, 2, 10, 0), ObjectId.get());
+
+    // when
+    OrderPage page = underTest.findAll(cursor.encode(), 2);
+
+    // then
+    verify(orderRepository).findPage(cursor, 3);
+    assertThat(page.getNext()).isNull();
+  }
+
+  @Test
+  void shouldThrowWhenContinuationTokenIsMalformed() {
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.findAll("not-a-token", 2))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Invalid continuation token");
   }
 
   @Test
@@ -59,7 +141,7 @@ public class OrderManagementServiceTest {
         Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
         LocalDateTime.now(),
         BigDecimal.valueOf(145));
-    given(orderServiceUtils.findById(order.getId())).willReturn(order);
+    given(orderServiceUtils.findViewById(order.getId())).willReturn(new OrderView(order));
 
     // when
     OrderView found = underTest.find(order.getId());
@@ -78,7 +160,8 @@ public class OrderManagementServiceTest {
         Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
         LocalDateTime.now(),
         BigDecimal.valueOf(145));
-    given(orderServiceUtils.findById(order.getId())).willThrow(new OrderNotFoundException("TEST order not found"));
+    given(orderServiceUtils.findViewById(order.getId()))
+        .willThrow(new OrderNotFoundException("TEST order not found"));
 
     // when
     // then
@@ -93,10 +176,57 @@ public class OrderManagementServiceTest {
     ObjectId userId = ObjectId.get();
 
     // when
-    underTest.findAllOfUser(userId);
+    underTest.findAllOfUser(userId, null, 2);
 
     // then
-    verify(orderServiceUtils).findAllViewsByUserId(userId);
+    verify(orderRepository).findPageByUserId(userId, null, 3);
+  }
+
+  @Test
+  void shouldExportAllOrdersAsNdjson() throws IOException {
+    // given
+    AtomicBoolean cursorClosed = new AtomicBoolean();
+    Order first = new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 1)),
+        LocalDateTime.now(), BigDecimal.ONE);
+    Order second = new Order(ObjectId.get(), OrderStatus.SHIPPED, ObjectId.get(),
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2)),
+        LocalDateTime.now(), BigDecimal.TEN);
+    given(orderRepository.streamAllBy()).willReturn(Stream.of(first, second).onClose(() -> cursorClosed.set(true)));
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+    // when
+    underTest.exportAll(outputStream);
+
+    // then
+    String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+    assertThat(lines).hasSize(2);
+    assertThat(lines[0]).contains("\"ORDERED\"");
+    assertThat(lines[1]).contains("\"SHIPPED\"");
+    assertThat(cursorClosed).isTrue();
+  }
+
+  @Test
+  void shouldCloseCursorWhenExportIsAborted() {
+    // given
+    AtomicBoolean cursorClosed = new AtomicBoolean();
+    Order order = new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 1)),
+        LocalDateTime.now(), BigDecimal.ONE);
+    given(orderRepository.streamAllBy()).willReturn(Stream.of(order).onClose(() -> cursorClosed.set(true)));
+    OutputStream disconnected = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("Broken pipe");
+      }
+    };
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.exportAll(disconnected))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("Broken pipe");
+    assertThat(cursorClosed).isTrue();
   }
 
   @Test
@@ -109,21 +239,23 @@ public class OrderManagementServiceTest {
         Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
         LocalDateTime.now(),
         BigDecimal.valueOf(145));
-    given(orderServiceUtils.findById(order.getId())).willReturn(order);
+    given(orderRepository.deleteUndeliveredById(order.getId())).willReturn(Optional.of(order));
 
     // when
     underTest.delete(order.getId());
 
     // then
-    verify(orderRepository).deleteById(order.getId());
-    verify(rabbitTemplate).convertAndSend(any(), any(), eq(order.getOrderItems()));
+    verify(outboxService).enqueue(any(), any(), eq(order.getOrderItems()));
+    verify(changeNotifier).deleted(List.of(order));
+    verify(orderServiceUtils, never()).findOwnerId(any());
   }
 
   @Test
   void shouldThrowWhenDidNotFindOrderToDelete() {
     // given
     ObjectId orderId = ObjectId.get();
-    given(orderServiceUtils.findById(orderId)).willThrow(new OrderNotFoundException("TEST order not found"));
+    given(orderRepository.deleteUndeliveredById(orderId)).willReturn(Optional.empty());
+    given(orderServiceUtils.findOwnerId(orderId)).willThrow(new OrderNotFoundException("TEST order not found"));
 
     // when
     // then
@@ -142,7 +274,8 @@ public class OrderManagementServiceTest {
         Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
         LocalDateTime.now(),
         BigDecimal.valueOf(145));
-    given(orderServiceUtils.findById(order.getId())).willReturn(order);
+    given(orderRepository.deleteUndeliveredById(order.getId())).willReturn(Optional.empty());
+    given(orderServiceUtils.findOwnerId(order.getId())).willReturn(order.getUserId());
 
     // when
     // then
@@ -150,7 +283,207 @@ public class OrderManagementServiceTest {
         .isInstanceOf(ForbiddenException.class)
         .hasMessageContaining("Order has already been delivered");
 
-    verify(orderRepository, never()).deleteById(order.getId());
-    verify(rabbitTemplate, never()).convertAndSend(any(), any(), eq(order.getOrderItems()));
+    verify(outboxService, never()).enqueue(any(), any(), eq(order.getOrderItems()));
+  }
+
+  @Test
+  void shouldDeleteUndeliveredOrdersAndRestoreQuantitiesInSingleMessage() {
+    // given
+    Order order = new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)), LocalDateTime.now(), BigDecimal.TEN);
+    ObjectId deliveredOrderId = ObjectId.get();
+    List<OrderItem> restoredItems = order.getOrderItems();
+    given(orderRepository.deleteUndeliveredByIds(any())).willReturn(List.of(order));
+    given(orderServiceUtils.aggregateQuantities(List.of(order))).willReturn(restoredItems);
+
+    // when
+    BulkDeleteResult result = underTest.deleteAll(List.of(order.getId(), deliveredOrderId));
+
+    // then
+    assertThat(result.getDeleted()).containsExactly(order.getId());
+    assertThat(result.getSkipped()).containsExactly(deliveredOrderId);
+    verify(outboxService).enqueue(any(), any(), eq(restoredItems));
+  }
+
+  @Test
+  void shouldNotRestoreQuantitiesOfOrderAwaitingPricing() {
+    // given
+    Order order = new Order(ObjectId.get(), OrderStatus.PENDING_PRICING, ObjectId.get(),
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)), LocalDateTime.now(), null);
+    given(orderRepository.deleteUndeliveredById(order.getId())).willReturn(Optional.of(order));
+
+    // when
+    underTest.delete(order.getId());
+
+    // then
+    verifyNoInteractions(outboxService);
+    verify(changeNotifier).deleted(List.of(order));
+  }
+
+  @Test
+  void shouldNotRestoreQuantitiesWhenNoOrderWasDeleted() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    given(orderRepository.deleteUndeliveredByIds(any())).willReturn(Collections.emptyList());
+
+    // when
+    BulkDeleteResult result = underTest.deleteAll(List.of(orderId));
+
+    // then
+    assertThat(result.getSkipped()).containsExactly(orderId);
+    verifyNoInteractions(outboxService);
+  }
+
+  @Test
+  void shouldRetryDeletingOrdersAfterWriteConflict() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    given(orderRepository.deleteUndeliveredByIds(any()))
+        .willThrow(writeConflict())
+        .willReturn(Collections.emptyList());
+
+    // when
+    BulkDeleteResult result = underTest.deleteAll(List.of(orderId));
+
+    // then
+    assertThat(result.getSkipped()).containsExactly(orderId);
+    verify(orderRepository, times(2)).deleteUndeliveredByIds(any());
+  }
+
+  @Test
+  void shouldThrowConflictWhenDeletingOrdersKeepsConflicting() {
+    // given
+    given(orderRepository.deleteUndeliveredByIds(any())).willThrow(writeConflict());
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.deleteAll(List.of(ObjectId.get())))
+        .isInstanceOf(OrderConflictException.class);
+    verify(orderRepository, times(2)).deleteUndeliveredByIds(any());
+    verifyNoInteractions(outboxService, changeNotifier);
+  }
+
+  @Test
+  void shouldNotRetryDeletingOrdersAfterOtherFailure() {
+    // given
+    given(orderRepository.deleteUndeliveredByIds(any()))
+        .willThrow(new UncategorizedMongoDbException("TEST", new MongoException("TEST")));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.deleteAll(List.of(ObjectId.get())))
+        .isInstanceOf(UncategorizedMongoDbException.class);
+    verify(orderRepository).deleteUndeliveredByIds(any());
+  }
+
+  @Test
+  void shouldMoveOrderToNextStatus() {
+    // given
+    Order order = new Order(ObjectId.get(), OrderStatus.SHIPPED, ObjectId.get(),
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)), LocalDateTime.now(), BigDecimal.TEN);
+    given(orderRepository.updateStatus(order.getId(), OrderStatus.ORDERED, OrderStatus.SHIPPED))
+        .willReturn(Optional.of(order));
+
+    // when
+    OrderView result = underTest.updateStatus(order.getId(), OrderStatus.SHIPPED);
+
+    // then
+    assertThat(result.getStatus()).isEqualTo(OrderStatus.SHIPPED);
+    verify(changeNotifier).updated(order);
+    verify(orderServiceUtils, never()).findOwnerId(any());
+  }
+
+  @Test
+  void shouldThrowWhenOrderIsNotInPrecedingStatus() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    given(orderRepository.updateStatus(orderId, OrderStatus.SHIPPED, OrderStatus.DELIVERED))
+        .willReturn(Optional.empty());
+    given(orderServiceUtils.findOwnerId(orderId)).willReturn(ObjectId.get());
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.updateStatus(orderId, OrderStatus.DELIVERED))
+        .isInstanceOf(InvalidStatusTransitionException.class)
+        .hasMessageContaining("only from status SHIPPED");
+  }
+
+  @Test
+  void shouldThrowWhenOrderIsMovedBackToOrdered() {
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.updateStatus(ObjectId.get(), OrderStatus.ORDERED))
+        .isInstanceOf(InvalidStatusTransitionException.class);
+    verifyNoInteractions(orderRepository);
+  }
+
+  @Test
+  void shouldApplyStatusUpdatesInChunksGroupedByStatus() {
+    // given
+    ObjectId shippedId = ObjectId.get();
+    ObjectId deliveredId = ObjectId.get();
+    ObjectId otherShippedId = ObjectId.get();
+    List<OrderStatusUpdate> updates = List.of(
+        new OrderStatusUpdate(shippedId, OrderStatus.SHIPPED),
+        new OrderStatusUpdate(deliveredId, OrderStatus.DELIVERED),
+        new OrderStatusUpdate(otherShippedId, OrderStatus.SHIPPED),
+        new OrderStatusUpdate(ObjectId.get(), OrderStatus.ORDERED));
+    given(orderRepository.updateStatuses(List.of(shippedId), OrderStatus.ORDERED, OrderStatus.SHIPPED))
+        .willReturn(1L);
+    given(orderRepository.updateStatuses(List.of(deliveredId), OrderStatus.SHIPPED, OrderStatus.DELIVERED))
+        .willReturn(0L);
+    given(orderRepository.updateStatuses(List.of(otherShippedId), OrderStatus.ORDERED, OrderStatus.SHIPPED))
+        .willReturn(1L);
+
+    // when
+    BulkStatusUpdateResult result = underTest.updateStatuses(updates);
+
+    // then
+    assertThat(result.getRequested()).isEqualTo(4);
+    assertThat(result.getUpdated()).isEqualTo(2);
+    verify(orderRepository, times(3)).updateStatuses(any(), any(), any());
+  }
+
+  @Test
+  void shouldSummarizeByStatusOverDefaultPeriod() {
+    // given
+    LocalDateTime to = LocalDateTime.of(2024, 3, 31, 0, 0);
+
+    // when
+    underTest.summarizeByStatus(null, to);
+
+    // then
+    verify(orderRepository).summarizeByStatus(LocalDateTime.of(2024, 3, 1, 0, 0), to);
+  }
+
+  @Test
+  void shouldCapTopProductsLimit() {
+    // given
+    LocalDateTime from = LocalDateTime.of(2024, 3, 1, 0, 0);
+    LocalDateTime to = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+    // when
+    underTest.findTopProducts(from, to, 1000);
+
+    // then
+    verify(orderRepository).findTopProducts(from, to, 5);
+  }
+
+  @Test
+  void shouldRejectEmptyAnalyticsPeriod() {
+    // given
+    LocalDateTime from = LocalDateTime.of(2024, 4, 1, 0, 0);
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.findRevenuePerDay(from, from))
+        .isInstanceOf(IllegalArgumentException.class);
+    verifyNoInteractions(orderRepository);
+  }
+
+  private static UncategorizedMongoDbException writeConflict() {
+    MongoException cause = new MongoException(112, "WriteConflict");
+    cause.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+    return new UncategorizedMongoDbException("TEST", cause);
   }
 }
@@ -7,15 +7,23 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 
+import com.drevotiuk.model.BulkOrderResult;
 import com.drevotiuk.model.Order;
 import com.drevotiuk.model.OrderItem;
 import com.drevotiuk.model.OrderStatus;
@@ -23,21 +31,33 @@ import com.drevotiuk.model.OrderView;
 import com.drevotiuk.model.exception.ForbiddenException;
 import com.drevotiuk.model.exception.InvalidOrderItemException;
 import com.drevotiuk.model.exception.OrderNotFoundException;
-import com.drevotiuk.repository.OrderRepository;
+import com.drevotiuk.model.exception.PriceQuoteException;
+import com.drevotiuk.service.OrderServiceUtils.BulkQuote;
 
 @ExtendWith(MockitoExtension.class)
 public class OrderServiceTest {
   @Mock
-  private OrderRepository orderRepository;
+  private OrderServiceUtils orderServiceUtils;
   @Mock
-  private RabbitTemplate rabbitTemplate;
+  private IdempotencyService idempotencyService;
   @Mock
-  private OrderServiceUtils orderServiceUtils;
+  private CheckoutWorker checkoutWorker;
+  private final AtomicBoolean inTransaction = new AtomicBoolean();
   private OrderService underTest;
 
   @BeforeEach
   void setUp() {
-    underTest = new OrderService(orderRepository, orderServiceUtils, rabbitTemplate);
+    underTest = new OrderService(orderServiceUtils, idempotencyService, checkoutWorker, new TransactionOperations() {
+      @Override
+      public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+        inTransaction.set(true);
+        try {
+          return action.doInTransaction(new SimpleTransactionStatus());
+        } finally {
+          inTransaction.set(false);
+        }
+      }
+    });
   }
 
   @Test
@@ -62,7 +82,7 @@ public class OrderServiceTest {
         Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
         LocalDateTime.now(),
         BigDecimal.valueOf(145));
-    given(orderServiceUtils.findById(order.getId())).willReturn(order);
+    given(orderServiceUtils.findCachedById(order.getId())).willReturn(order);
 
     // when
     OrderView found = underTest.find(order.getId(), order.getUserId());
@@ -81,7 +101,7 @@ public class OrderServiceTest {
         Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
         LocalDateTime.now(),
         BigDecimal.valueOf(145));
-    given(orderServiceUtils.findById(order.getId())).willThrow(new OrderNotFoundException("TEST order not found"));
+    given(orderServiceUtils.findCachedById(order.getId())).willThrow(new OrderNotFoundException("TEST order not found"));
 
     // when
     // then
@@ -100,11 +120,12 @@ public class OrderServiceTest {
         Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
         LocalDateTime.now(),
         BigDecimal.valueOf(145));
-    given(orderServiceUtils.findById(order.getId())).willReturn(order);
+    ObjectId otherUserId = ObjectId.get(); // Generating unique "userId"
+    given(orderServiceUtils.findCachedById(order.getId())).willReturn(order);
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.find(order.getId(), ObjectId.get())) // Generating unique "userId"
+    assertThatThrownBy(() -> underTest.find(order.getId(), otherUserId))
         .isInstanceOf(ForbiddenException.class)
         .hasMessageContaining("UserIDs do not match");
   }
@@ -124,13 +145,40 @@ public class OrderServiceTest {
     given(orderServiceUtils.calculateTotalPrice(orderItems)).willReturn(BigDecimal.TEN);
 
     // when
-    OrderView saved = underTest.create(orderItems, userId);
+    OrderView saved = underTest.create(orderItems, userId, null);
 
     // then
     assertThat(saved).isEqualTo(new OrderView(order));
+    verify(orderServiceUtils).save(order);
     verify(orderServiceUtils).sendOrderCreatedEmail(order, BigDecimal.TEN);
-    verify(rabbitTemplate).convertAndSend(any(), any(), eq(orderItems));
-    verify(orderRepository).save(order);
+    verify(orderServiceUtils).sendFetchQtyMessage(order);
+  }
+
+  @Test
+  void shouldQuoteOrderBeforeTransactionStarts() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    given(idempotencyService.reserve(userId, "key", orderItems)).willReturn(Optional.empty());
+    given(orderServiceUtils.calculateTotalPrice(orderItems)).willAnswer(invocation -> {
+      assertThat(inTransaction).isFalse();
+      return BigDecimal.TEN;
+    });
+    willAnswer(invocation -> {
+      assertThat(inTransaction).isTrue();
+      return null;
+    }).given(idempotencyService).complete(eq(userId), eq("key"), any(ObjectId.class), any(OrderView.class));
+    willAnswer(invocation -> {
+      assertThat(inTransaction).isTrue();
+      return null;
+    }).given(orderServiceUtils).save(any(Order.class));
+
+    // when
+    underTest.create(orderItems, userId, "key");
+
+    // then
+    verify(orderServiceUtils).save(any(Order.class));
+    verify(idempotencyService).complete(eq(userId), eq("key"), any(ObjectId.class), any(OrderView.class));
   }
 
   @Test
@@ -142,12 +190,174 @@ public class OrderServiceTest {
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.create(orderItems, ObjectId.get()))
+    assertThatThrownBy(() -> underTest.create(orderItems, ObjectId.get(), null))
         .isInstanceOf(InvalidOrderItemException.class)
         .hasMessageContaining("TEST");
 
     verify(orderServiceUtils, never()).sendOrderCreatedEmail(any(), any());
-    verify(rabbitTemplate, never()).convertAndSend(any(), any(), any(BigDecimal.class));
-    verify(orderRepository, never()).save(any());
+    verify(orderServiceUtils, never()).sendFetchQtyMessage(any());
+    verify(orderServiceUtils, never()).save(any());
+  }
+
+  @Test
+  void shouldCompleteIdempotencyKeyOfCreatedOrder() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    given(idempotencyService.reserve(userId, "key", orderItems)).willReturn(Optional.empty());
+    given(orderServiceUtils.calculateTotalPrice(orderItems)).willReturn(BigDecimal.TEN);
+
+    // when
+    OrderView saved = underTest.create(orderItems, userId, "key");
+
+    // then
+    assertThat(saved).isEqualTo(new OrderView(orderItems, BigDecimal.TEN, OrderStatus.ORDERED));
+    verify(idempotencyService).complete(eq(userId), eq("key"), any(ObjectId.class), eq(saved));
+    verify(idempotencyService, never()).release(any(), any());
+  }
+
+  @Test
+  void shouldReplayOrderCreatedUnderIdempotencyKey() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    OrderView view = new OrderView(orderItems, BigDecimal.TEN, OrderStatus.ORDERED);
+    given(idempotencyService.reserve(userId, "key", orderItems)).willReturn(Optional.of(view));
+
+    // when
+    OrderView replayed = underTest.create(orderItems, userId, "key");
+
+    // then
+    assertThat(replayed).isEqualTo(view);
+    verify(orderServiceUtils, never()).calculateTotalPrice(any());
+    verify(orderServiceUtils, never()).save(any());
+    verify(orderServiceUtils, never()).sendOrderCreatedEmail(any(), any());
+    verify(orderServiceUtils, never()).sendFetchQtyMessage(any());
+  }
+
+  @Test
+  void shouldReleaseIdempotencyKeyWhenCreationFails() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    given(idempotencyService.reserve(userId, "key", orderItems)).willReturn(Optional.empty());
+    given(orderServiceUtils.calculateTotalPrice(orderItems))
+        .willThrow(new InvalidOrderItemException("TEST invalid order"));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.create(orderItems, userId, "key"))
+        .isInstanceOf(InvalidOrderItemException.class);
+    verify(idempotencyService).release(userId, "key");
+    verify(idempotencyService, never()).complete(any(), any(), any(), any());
+  }
+
+  @Test
+  void shouldAcceptOrderAwaitingPricing() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    ArgumentCaptor<Order> order = ArgumentCaptor.forClass(Order.class);
+
+    // when
+    ObjectId orderId = underTest.submit(orderItems, userId, null);
+
+    // then
+    verify(orderServiceUtils).save(order.capture());
+    assertThat(order.getValue().getId()).isEqualTo(orderId);
+    assertThat(order.getValue().getStatus()).isEqualTo(OrderStatus.PENDING_PRICING);
+    assertThat(order.getValue().getTotalPrice()).isNull();
+    verify(checkoutWorker).submit(order.getValue());
+    verify(orderServiceUtils, never()).calculateTotalPrice(any());
+    verify(orderServiceUtils, never()).sendOrderCreatedEmail(any(), any());
+    verify(orderServiceUtils, never()).sendFetchQtyMessage(any());
+  }
+
+  @Test
+  void shouldReplayOrderAcceptedUnderIdempotencyKey() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    ObjectId acceptedId = ObjectId.get();
+    given(idempotencyService.reserve(userId, "key", orderItems))
+        .willReturn(Optional.of(new OrderView(orderItems, null, OrderStatus.PENDING_PRICING)));
+    given(idempotencyService.findOrderId(userId, "key")).willReturn(Optional.of(acceptedId));
+
+    // when
+    ObjectId orderId = underTest.submit(orderItems, userId, "key");
+
+    // then
+    assertThat(orderId).isEqualTo(acceptedId);
+    verify(orderServiceUtils, never()).save(any());
+    verifyNoInteractions(checkoutWorker);
+  }
+
+  @Test
+  void shouldCreateValidOrdersAndRejectInvalidOnes() {
+    // given
+    ReflectionTestUtils.setField(underTest, "bulkMaxSize", 10);
+    String productId = ObjectId.get().toString();
+    String unquotedProductId = ObjectId.get().toString();
+    List<List<OrderItem>> orders = List.of(
+        List.of(new OrderItem(productId, 2)),
+        List.of(new OrderItem(ObjectId.get().toString(), 1)),
+        Collections.emptyList(),
+        List.of(new OrderItem(productId, 1), new OrderItem(unquotedProductId, 1)));
+    BulkQuote bulkQuote = new BulkQuote();
+    bulkQuote.priced(new OrderItem(productId, 3), BigDecimal.valueOf(15));
+    bulkQuote.failed(unquotedProductId, new PriceQuoteException("TEST no price quote received in time"));
+    given(orderServiceUtils.quoteProducts(orders)).willReturn(bulkQuote);
+
+    // when
+    List<BulkOrderResult> results = underTest.createAll(orders, ObjectId.get());
+
+    // then
+    assertThat(results).hasSize(4);
+    assertThat(results.get(0).getOrder().getTotalPrice()).isEqualByComparingTo(BigDecimal.TEN);
+    assertThat(results.get(1).getError()).isEqualTo("Order item is invalid");
+    assertThat(results.get(2).getError()).isEqualTo("Order item is invalid");
+    assertThat(results.get(3).getError()).isEqualTo("TEST no price quote received in time");
+    verify(orderServiceUtils).saveAll(argThat(created -> created.size() == 1));
+    verify(orderServiceUtils).sendOrderCreatedEmails(argThat(created -> created.size() == 1));
+    verify(orderServiceUtils).sendFetchQtyMessages(argThat(created -> created.size() == 1));
+  }
+
+  @Test
+  void shouldQuoteBulkOrdersBeforeTransactionStarts() {
+    // given
+    ReflectionTestUtils.setField(underTest, "bulkMaxSize", 10);
+    OrderItem item = new OrderItem(ObjectId.get().toString(), 1);
+    List<List<OrderItem>> orders = List.of(List.of(item));
+    BulkQuote bulkQuote = new BulkQuote();
+    bulkQuote.priced(item, BigDecimal.TEN);
+    given(orderServiceUtils.quoteProducts(orders)).willAnswer(invocation -> {
+      assertThat(inTransaction).isFalse();
+      return bulkQuote;
+    });
+    willAnswer(invocation -> {
+      assertThat(inTransaction).isTrue();
+      return null;
+    }).given(orderServiceUtils).saveAll(anyList());
+
+    // when
+    underTest.createAll(orders, ObjectId.get());
+
+    // then
+    verify(orderServiceUtils).saveAll(anyList());
+  }
+
+  @Test
+  void shouldThrowWhenTooManyOrdersAreCreatedAtOnce() {
+    // given
+    ReflectionTestUtils.setField(underTest, "bulkMaxSize", 1);
+    List<List<OrderItem>> orders = List.of(
+        List.of(new OrderItem(ObjectId.get().toString(), 1)),
+        List.of(new OrderItem(ObjectId.get().toString(), 1)));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.createAll(orders, ObjectId.get()))
+        .isInstanceOf(IllegalArgumentException.class);
+    verify(orderServiceUtils, never()).saveAll(any());
   }
 }
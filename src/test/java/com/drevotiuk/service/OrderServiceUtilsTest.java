@@ -8,7 +8,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,27 +20,45 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.drevotiuk.model.Order;
 import com.drevotiuk.model.OrderEmailDetails;
 import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderOwner;
+import com.drevotiuk.model.OrderPriceQuote;
 import com.drevotiuk.model.OrderStatus;
 import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.UserOrders;
 import com.drevotiuk.model.exception.InvalidOrderItemException;
 import com.drevotiuk.model.exception.OrderNotFoundException;
+import com.drevotiuk.model.exception.PriceQuoteException;
 import com.drevotiuk.repository.OrderRepository;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 public class OrderServiceUtilsTest {
   @Mock
   private OrderRepository orderRepository;
   @Mock
   private RabbitTemplate rabbitTemplate;
+  @Mock
+  private ProductPriceCache priceCache;
+  @Mock
+  private OutboxService outboxService;
+  @Mock
+  private OrderCache orderCache;
+  @Mock
+  private UserOrdersCache userOrdersCache;
+  @Mock
+  private OrderChangeNotifier changeNotifier;
   private OrderServiceUtils underTest;
 
   @BeforeEach
   void setUp() {
-    underTest = new OrderServiceUtils(orderRepository, rabbitTemplate);
+    underTest = new OrderServiceUtils(orderRepository, priceClient(), Runnable::run, priceCache,
+        outboxService, orderCache, userOrdersCache, changeNotifier);
   }
 
   @Test
@@ -73,6 +94,55 @@ public class OrderServiceUtilsTest {
         .hasMessageContaining("Order not found");
   }
 
+  @Test
+  void shouldFindViewById() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    Order order = new Order(
+        orderId,
+        OrderStatus.ORDERED,
+        ObjectId.get(),
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
+        null,
+        BigDecimal.valueOf(145));
+    given(orderCache.get(eq(orderId), any())).willReturn(Optional.of(order));
+
+    // when
+    OrderView found = underTest.findViewById(orderId);
+
+    // then
+    assertThat(found).isEqualTo(new OrderView(order));
+  }
+
+  @Test
+  void shouldThrowWhenDidNotFindOrderView() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    given(orderCache.get(eq(orderId), any())).willReturn(Optional.empty());
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.findViewById(orderId))
+        .isInstanceOf(OrderNotFoundException.class)
+        .hasMessageContaining("Order not found");
+  }
+
+  @Test
+  void shouldFindOwnerId() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    ObjectId userId = ObjectId.get();
+    OrderOwner owner = mock(OrderOwner.class);
+    given(owner.getUserId()).willReturn(userId);
+    given(orderRepository.findOwnerById(orderId)).willReturn(Optional.of(owner));
+
+    // when
+    ObjectId found = underTest.findOwnerId(orderId);
+
+    // then
+    assertThat(found).isEqualTo(userId);
+  }
+
   @Test
   void shouldFindAllViewsByUserId() {
     // given
@@ -84,13 +154,15 @@ public class OrderServiceUtilsTest {
         Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
         LocalDateTime.now(),
         BigDecimal.valueOf(145));
-    given(orderRepository.findByUserId(userId)).willReturn(Collections.singletonList(order));
+    UserOrders userOrders = new UserOrders(Collections.singletonList(new OrderView(order)), "etag");
+    given(userOrdersCache.get(eq(userId), any())).willReturn(userOrders);
 
     // when
-    List<OrderView> foundList = underTest.findAllViewsByUserId(userId);
+    UserOrders found = underTest.findAllViewsByUserId(userId);
 
     // then
-    assertThat(foundList).containsOnly(new OrderView(order));
+    assertThat(found.getOrders()).containsOnly(new OrderView(order));
+    assertThat(found.getEtag()).isEqualTo("etag");
   }
 
   @Test
@@ -104,10 +176,97 @@ public class OrderServiceUtilsTest {
 
     // then
     assertThat(result).isEqualTo(BigDecimal.TEN);
+    verify(priceCache).putItemTotalPrice(orderItems.get(0), BigDecimal.TEN);
   }
 
   @Test
-  void shouldThrowWhenTotalPriceIsNull() {
+  void shouldCalculateTotalPriceFromCacheWithoutRoundTrip() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    given(priceCache.getItemTotalPrice(orderItems.get(0))).willReturn(BigDecimal.TEN);
+
+    // when
+    BigDecimal result = underTest.calculateTotalPrice(orderItems);
+
+    // then
+    assertThat(result).isEqualTo(BigDecimal.TEN);
+    verify(rabbitTemplate, never()).convertSendAndReceive(any(), any(), any(Object.class));
+  }
+
+  @Test
+  void shouldRejectZeroQuantityWhenPriceIsCached() {
+    // given
+    OrderItem item = new OrderItem(ObjectId.get().toString(), 0);
+    lenient().when(priceCache.getItemTotalPrice(item)).thenReturn(BigDecimal.ZERO);
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.calculateTotalPrice(List.of(item)))
+        .isInstanceOf(InvalidOrderItemException.class);
+    verifyNoInteractions(rabbitTemplate);
+  }
+
+  @Test
+  void shouldRejectNegativeQuantityWhenPriceIsCached() {
+    // given
+    OrderItem item = new OrderItem(ObjectId.get().toString(), -3);
+    lenient().when(priceCache.getItemTotalPrice(item)).thenReturn(BigDecimal.valueOf(-30));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.calculateTotalPrice(List.of(item)))
+        .isInstanceOf(InvalidOrderItemException.class);
+    verifyNoInteractions(rabbitTemplate);
+  }
+
+  @Test
+  void shouldRejectNonPositiveQuantityWhenPriceIsCachedInBatchMode() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.BATCH);
+    OrderItem validItem = new OrderItem(ObjectId.get().toString(), 2);
+    OrderItem invalidItem = new OrderItem(ObjectId.get().toString(), -1);
+    lenient().when(priceCache.getItemTotalPrice(any(OrderItem.class))).thenReturn(BigDecimal.TEN);
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.calculateTotalPrice(List.of(validItem, invalidItem)))
+        .isInstanceOf(InvalidOrderItemException.class);
+    verifyNoInteractions(rabbitTemplate);
+  }
+
+  @Test
+  void shouldRejectZeroPriceFromCache() {
+    // given
+    OrderItem item = new OrderItem(ObjectId.get().toString(), 2);
+    given(priceCache.getItemTotalPrice(item)).willReturn(new BigDecimal("0.00"));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.calculateTotalPrice(List.of(item)))
+        .isInstanceOf(InvalidOrderItemException.class);
+    verifyNoInteractions(rabbitTemplate);
+  }
+
+  @Test
+  void shouldRequestOnlyUncachedItemsInBatch() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.BATCH);
+    OrderItem cachedItem = new OrderItem(ObjectId.get().toString(), 2);
+    OrderItem uncachedItem = new OrderItem(ObjectId.get().toString(), 3);
+    given(priceCache.getItemTotalPrice(cachedItem)).willReturn(BigDecimal.TEN);
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(List.of(uncachedItem))))
+        .willReturn(new OrderPriceQuote(List.of(BigDecimal.ONE), BigDecimal.ONE));
+
+    // when
+    BigDecimal result = underTest.calculateTotalPrice(List.of(cachedItem, uncachedItem));
+
+    // then
+    assertThat(result).isEqualTo(BigDecimal.valueOf(11));
+    verify(priceCache).putItemTotalPrice(uncachedItem, BigDecimal.ONE);
+  }
+
+  @Test
+  void shouldThrowWhenTotalPriceDoesNotArriveInTime() {
     // given
     List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
     given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(orderItems.get(0)))).willReturn(null);
@@ -115,8 +274,7 @@ public class OrderServiceUtilsTest {
     // when
     // then
     assertThatThrownBy(() -> underTest.calculateTotalPrice(orderItems))
-        .isInstanceOf(InvalidOrderItemException.class)
-        .hasMessageContaining("Order item is invalid");
+        .isInstanceOf(PriceQuoteException.class);
   }
 
   @Test
@@ -146,6 +304,142 @@ public class OrderServiceUtilsTest {
         .hasMessageContaining("Order item is invalid");
   }
 
+  @Test
+  void shouldCalculateTotalPriceInParallel() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.PARALLEL);
+    ReflectionTestUtils.setField(underTest, "quoteDeadline", 1000L);
+    List<OrderItem> orderItems = List.of(
+        new OrderItem(ObjectId.get().toString(), 2),
+        new OrderItem(ObjectId.get().toString(), 3));
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(orderItems.get(0)))).willReturn(BigDecimal.TEN);
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(orderItems.get(1)))).willReturn(BigDecimal.ONE);
+
+    // when
+    BigDecimal result = underTest.calculateTotalPrice(orderItems);
+
+    // then
+    assertThat(result).isEqualTo(BigDecimal.valueOf(11));
+  }
+
+  @Test
+  void shouldThrowWhenOneOrderItemIsInvalidInParallel() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.PARALLEL);
+    ReflectionTestUtils.setField(underTest, "quoteDeadline", 1000L);
+    List<OrderItem> orderItems = List.of(
+        new OrderItem(ObjectId.get().toString(), 2),
+        new OrderItem(ObjectId.get().toString(), 3));
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(orderItems.get(0)))).willReturn(BigDecimal.ZERO);
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(orderItems.get(1)))).willReturn(BigDecimal.ONE);
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.calculateTotalPrice(orderItems))
+        .isInstanceOf(InvalidOrderItemException.class)
+        .hasMessageContaining("Order item is invalid");
+  }
+
+  @Test
+  void shouldThrowWhenParallelQuotesExceedDeadline() {
+    // given
+    Executor stalledExecutor = task -> {
+    }; // Quote requests never get a reply
+    underTest = new OrderServiceUtils(orderRepository, priceClient(), stalledExecutor, priceCache,
+        outboxService, orderCache, userOrdersCache, changeNotifier);
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.PARALLEL);
+    ReflectionTestUtils.setField(underTest, "quoteDeadline", 50L);
+    List<OrderItem> orderItems = List.of(
+        new OrderItem(ObjectId.get().toString(), 2),
+        new OrderItem(ObjectId.get().toString(), 3));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.calculateTotalPrice(orderItems))
+        .isInstanceOf(PriceQuoteException.class)
+        .hasMessageContaining("did not complete");
+  }
+
+  @Test
+  void shouldCalculateTotalPriceInBatch() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.BATCH);
+    List<OrderItem> orderItems = List.of(
+        new OrderItem(ObjectId.get().toString(), 2),
+        new OrderItem(ObjectId.get().toString(), 3));
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(orderItems)))
+        .willReturn(new OrderPriceQuote(List.of(BigDecimal.TEN, BigDecimal.ONE), BigDecimal.valueOf(11)));
+
+    // when
+    BigDecimal result = underTest.calculateTotalPrice(orderItems);
+
+    // then
+    assertThat(result).isEqualTo(BigDecimal.valueOf(11));
+    verify(rabbitTemplate, never()).convertSendAndReceive(any(), any(), any(OrderItem.class));
+  }
+
+  @Test
+  void shouldThrowWhenBatchQuoteContainsZeroPrice() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.BATCH);
+    List<OrderItem> orderItems = List.of(
+        new OrderItem(ObjectId.get().toString(), 2),
+        new OrderItem(ObjectId.get().toString(), 3));
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(orderItems)))
+        .willReturn(new OrderPriceQuote(List.of(BigDecimal.TEN, BigDecimal.ZERO), BigDecimal.TEN));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.calculateTotalPrice(orderItems))
+        .isInstanceOf(InvalidOrderItemException.class)
+        .hasMessageContaining("Order item is invalid");
+  }
+
+  @Test
+  void shouldThrowWhenBatchQuoteIsMissingItems() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.BATCH);
+    List<OrderItem> orderItems = List.of(
+        new OrderItem(ObjectId.get().toString(), 2),
+        new OrderItem(ObjectId.get().toString(), 3));
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), eq(orderItems)))
+        .willReturn(new OrderPriceQuote(List.of(BigDecimal.TEN), BigDecimal.TEN));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.calculateTotalPrice(orderItems))
+        .isInstanceOf(InvalidOrderItemException.class)
+        .hasMessageContaining("Order item is invalid");
+  }
+
+  @Test
+  void shouldQuoteWholeOrderInSingleRoundTripInBatchMode() {
+    // given
+    List<OrderItem> orderItems = IntStream.range(0, 5)
+        .mapToObj(i -> new OrderItem(ObjectId.get().toString(), i + 1))
+        .collect(Collectors.toList());
+    StubPriceResponder perItemResponder = new StubPriceResponder(0);
+    StubPriceResponder batchResponder = new StubPriceResponder(0);
+    orderItems.forEach(item -> {
+      perItemResponder.withUnitPrice(item.getProductId(), BigDecimal.TEN);
+      batchResponder.withUnitPrice(item.getProductId(), BigDecimal.TEN);
+    });
+
+    // when
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.SEQUENTIAL);
+    willAnswer(perItemResponder).given(rabbitTemplate).convertSendAndReceive(any(), any(), any(Object.class));
+    BigDecimal perItemTotal = underTest.calculateTotalPrice(orderItems);
+
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.BATCH);
+    willAnswer(batchResponder).given(rabbitTemplate).convertSendAndReceive(any(), any(), any(Object.class));
+    BigDecimal batchTotal = underTest.calculateTotalPrice(orderItems);
+
+    // then
+    assertThat(batchTotal).isEqualTo(perItemTotal).isEqualTo(BigDecimal.valueOf(150));
+    assertThat(perItemResponder.getRoundTrips()).isEqualTo(orderItems.size());
+    assertThat(batchResponder.getRoundTrips()).isEqualTo(1);
+  }
+
   @Test
   void shouldSendOrderCreatedEmail() {
     // given
@@ -168,6 +462,133 @@ public class OrderServiceUtilsTest {
     underTest.sendOrderCreatedEmail(order, totalPrice);
 
     // then
-    verify(rabbitTemplate).convertAndSend(any(), any(), eq(details));
+    verify(outboxService).enqueue(any(), any(), eq(details));
+  }
+
+  @Test
+  void shouldSendFetchQtyMessage() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5));
+    Order order = new Order(
+        ObjectId.get(),
+        OrderStatus.ORDERED,
+        ObjectId.get(),
+        orderItems,
+        LocalDateTime.now(),
+        BigDecimal.TEN);
+
+    // when
+    underTest.sendFetchQtyMessage(order);
+
+    // then
+    verify(outboxService).enqueue(any(), any(), eq(orderItems));
+  }
+
+  @Test
+  void shouldSaveOrder() {
+    // given
+    Order order = new Order(
+        ObjectId.get(),
+        OrderStatus.ORDERED,
+        ObjectId.get(),
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)),
+        LocalDateTime.now(),
+        BigDecimal.TEN);
+
+    // when
+    underTest.save(order);
+
+    // then
+    verify(orderRepository).save(order);
+    verify(changeNotifier).created(List.of(order));
+  }
+
+  @Test
+  void shouldQuoteSummedQuantitiesOfAllOrdersInSingleRoundTrip() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.BATCH);
+    String productId = ObjectId.get().toString();
+    String invalidProductId = ObjectId.get().toString();
+    List<OrderItem> first = List.of(new OrderItem(productId, 1), new OrderItem(invalidProductId, 1));
+    List<OrderItem> second = List.of(new OrderItem(productId, 3));
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), any(Object.class)))
+        .willReturn(new OrderPriceQuote(List.of(BigDecimal.valueOf(20), BigDecimal.ZERO), BigDecimal.valueOf(20)));
+
+    // when
+    OrderServiceUtils.BulkQuote bulkQuote = underTest.quoteProducts(List.of(first, second));
+
+    // then
+    assertThat(bulkQuote.totalPriceOf(second)).isEqualByComparingTo(BigDecimal.valueOf(15));
+    assertThatThrownBy(() -> bulkQuote.totalPriceOf(first)).isInstanceOf(InvalidOrderItemException.class);
+    verify(rabbitTemplate).convertSendAndReceive(any(), any(), argThat((Object items) -> {
+      List<?> quoted = (List<?>) items;
+      return quoted.size() == 2 && ((OrderItem) quoted.get(0)).getQty() == 4;
+    }));
+    verify(priceCache).putItemTotalPrice(argThat(item -> item.getQty() == 4), eq(BigDecimal.valueOf(20)));
+  }
+
+  @Test
+  void shouldQuoteSummedQuantitiesPerItemInSequentialMode() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.SEQUENTIAL);
+    String productId = ObjectId.get().toString();
+    String outOfStockProductId = ObjectId.get().toString();
+    List<OrderItem> first = List.of(new OrderItem(productId, 2));
+    List<OrderItem> second = List.of(new OrderItem(productId, 1), new OrderItem(outOfStockProductId, 5));
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), any(Object.class))).willAnswer(invocation -> {
+      OrderItem item = invocation.getArgument(2);
+      return item.getProductId().equals(productId) ? BigDecimal.valueOf(30) : BigDecimal.ZERO;
+    });
+
+    // when
+    OrderServiceUtils.BulkQuote bulkQuote = underTest.quoteProducts(List.of(first, second));
+
+    // then
+    assertThat(bulkQuote.totalPriceOf(first)).isEqualByComparingTo(BigDecimal.valueOf(20));
+    assertThatThrownBy(() -> bulkQuote.totalPriceOf(second)).isInstanceOf(InvalidOrderItemException.class);
+    verify(rabbitTemplate).convertSendAndReceive(any(), any(),
+        argThat((Object item) -> item instanceof OrderItem && ((OrderItem) item).getQty() == 3));
+    verify(rabbitTemplate, never()).convertSendAndReceive(any(), any(), argThat((Object items) -> items instanceof List));
+  }
+
+  @Test
+  void shouldRejectOrdersWhenBulkQuoteIsMissing() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", OrderServiceUtils.QuoteMode.BATCH);
+    List<OrderItem> order = List.of(new OrderItem(ObjectId.get().toString(), 1));
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), any(Object.class))).willReturn(null);
+
+    // when
+    OrderServiceUtils.BulkQuote bulkQuote = underTest.quoteProducts(List.of(order));
+
+    // then
+    assertThatThrownBy(() -> bulkQuote.totalPriceOf(order))
+        .isInstanceOf(PriceQuoteException.class);
+  }
+
+  @Test
+  void shouldAggregateQuantitiesPerProduct() {
+    // given
+    String productId = ObjectId.get().toString();
+    String otherProductId = ObjectId.get().toString();
+    List<Order> orders = List.of(
+        new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+            List.of(new OrderItem(productId, 2), new OrderItem(otherProductId, 1)), LocalDateTime.now(), BigDecimal.TEN),
+        new Order(ObjectId.get(), OrderStatus.ORDERED, ObjectId.get(),
+            List.of(new OrderItem(productId, 3)), LocalDateTime.now(), BigDecimal.TEN));
+
+    // when
+    List<OrderItem> result = underTest.aggregateQuantities(orders);
+
+    // then
+    assertThat(result)
+        .extracting(OrderItem::getProductId, OrderItem::getQty)
+        .containsExactly(tuple(productId, 5), tuple(otherProductId, 1));
+  }
+
+  private ProductPriceClient priceClient() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    return new ProductPriceClient(rabbitTemplate, new QuoteCircuitBreaker(5, 10_000, 20_000, meterRegistry), 64, 500,
+        meterRegistry);
   }
 }
@@ -0,0 +1,148 @@
+package com.drevotiuk.service;
+
+import static org.mockito.BDDMockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.AmqpException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.drevotiuk.model.OutboxMessage;
+import com.drevotiuk.model.exception.UnroutableMessageException;
+import com.drevotiuk.repository.OutboxRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+  @Mock
+  private OutboxRepository outboxRepository;
+  @Mock
+  private ConfirmingPublisher publisher;
+  private OutboxRelay underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new OutboxRelay(outboxRepository, publisher);
+    ReflectionTestUtils.setField(underTest, "batchSize", 2);
+    ReflectionTestUtils.setField(underTest, "lease", 30000L);
+    ReflectionTestUtils.setField(underTest, "maxAttempts", 3);
+  }
+
+  @Test
+  void shouldPublishAndDeleteAcknowledgedMessages() {
+    // given
+    OutboxMessage message = outboxMessage();
+    given(outboxRepository.claimBatch(anyString(), eq(2), eq(30000L))).willReturn(List.of(message));
+    given(publisher.publish(anyString(), anyString(), any(Message.class)))
+        .willReturn(CompletableFuture.completedFuture(null));
+
+    // when
+    underTest.relay();
+
+    // then
+    ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+    verify(publisher).publish(eq("exchange"), eq("routing.key"), sent.capture());
+    assertThat(sent.getValue().getBody()).isEqualTo(message.getBody());
+    assertThat(sent.getValue().getMessageProperties().getMessageId()).isEqualTo(message.getId().toHexString());
+    assertThat(sent.getValue().getMessageProperties().<String>getHeader("__TypeId__")).isEqualTo("java.util.List");
+    verify(outboxRepository).deleteAllById(List.of(message.getId()));
+  }
+
+  @Test
+  void shouldKeepMessagesNotConfirmedByBroker() {
+    // given
+    OutboxMessage confirmed = outboxMessage();
+    OutboxMessage rejected = outboxMessage();
+    given(outboxRepository.claimBatch(anyString(), eq(2), eq(30000L)))
+        .willReturn(List.of(confirmed, rejected))
+        .willReturn(Collections.emptyList());
+    given(publisher.publish(anyString(), anyString(), any(Message.class)))
+        .willReturn(CompletableFuture.completedFuture(null))
+        .willReturn(CompletableFuture.failedFuture(new AmqpException("TEST nack")));
+
+    // when
+    underTest.relay();
+
+    // then
+    verify(outboxRepository).deleteAllById(List.of(confirmed.getId()));
+  }
+
+  @Test
+  void shouldCountAttemptsOfUnroutableMessages() {
+    // given
+    OutboxMessage returned = outboxMessage();
+    OutboxMessage nacked = outboxMessage();
+    given(outboxRepository.claimBatch(anyString(), eq(2), eq(30000L)))
+        .willReturn(List.of(returned, nacked))
+        .willReturn(Collections.emptyList());
+    given(publisher.publish(anyString(), anyString(), any(Message.class)))
+        .willReturn(CompletableFuture.failedFuture(new UnroutableMessageException("TEST returned")))
+        .willReturn(CompletableFuture.failedFuture(new AmqpException("TEST nack")));
+
+    // when
+    underTest.relay();
+
+    // then
+    verify(outboxRepository).incrementAttempts(List.of(returned.getId()));
+    verify(outboxRepository, never()).park(anyList());
+  }
+
+  @Test
+  void shouldParkUnroutableMessagesAfterMaxAttempts() {
+    // given
+    OutboxMessage exhausted = outboxMessage();
+    exhausted.setAttempts(2);
+    given(outboxRepository.claimBatch(anyString(), eq(2), eq(30000L))).willReturn(List.of(exhausted));
+    given(publisher.publish(anyString(), anyString(), any(Message.class)))
+        .willReturn(CompletableFuture.failedFuture(new UnroutableMessageException("TEST returned")));
+
+    // when
+    underTest.relay();
+
+    // then
+    verify(outboxRepository).park(List.of(exhausted));
+    verify(outboxRepository).incrementAttempts(Collections.emptyList());
+  }
+
+  @Test
+  void shouldClaimNextBatchWhileBatchesAreFull() {
+    // given
+    given(outboxRepository.claimBatch(anyString(), eq(2), eq(30000L)))
+        .willReturn(List.of(outboxMessage(), outboxMessage()))
+        .willReturn(Collections.emptyList());
+    given(publisher.publish(anyString(), anyString(), any(Message.class)))
+        .willReturn(CompletableFuture.completedFuture(null));
+
+    // when
+    underTest.relay();
+
+    // then
+    verify(outboxRepository, times(2)).claimBatch(anyString(), eq(2), eq(30000L));
+    verify(publisher, times(2)).publish(anyString(), anyString(), any(Message.class));
+  }
+
+  private OutboxMessage outboxMessage() {
+    return new OutboxMessage(
+        ObjectId.get(),
+        "exchange",
+        "routing.key",
+        "[]".getBytes(),
+        "application/json",
+        "UTF-8",
+        Map.of("__TypeId__", "java.util.List"),
+        null,
+        null,
+        0);
+  }
+}
@@ -0,0 +1,90 @@
+package com.drevotiuk.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.ProductPriceChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ProductPriceCacheTest {
+  private MeterRegistry meterRegistry;
+  private ProductPriceCache underTest;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new ProductPriceCache(true, 100, 60_000, meterRegistry);
+  }
+
+  @Test
+  void shouldComputeItemPriceFromCachedUnitPrice() {
+    // given
+    String productId = ObjectId.get().toString();
+    underTest.putItemTotalPrice(new OrderItem(productId, 2), BigDecimal.valueOf(20));
+
+    // when
+    BigDecimal result = underTest.getItemTotalPrice(new OrderItem(productId, 5));
+
+    // then
+    assertThat(result).isEqualByComparingTo(BigDecimal.valueOf(50));
+  }
+
+  @Test
+  void shouldReturnNullWhenPriceIsNotCached() {
+    // when
+    BigDecimal result = underTest.getItemTotalPrice(new OrderItem(ObjectId.get().toString(), 1));
+
+    // then
+    assertThat(result).isNull();
+    assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotCacheInexactUnitPrice() {
+    // given
+    OrderItem item = new OrderItem(ObjectId.get().toString(), 3);
+    underTest.putItemTotalPrice(item, BigDecimal.TEN);
+
+    // when
+    BigDecimal result = underTest.getItemTotalPrice(item);
+
+    // then
+    assertThat(result).isNull();
+  }
+
+  @Test
+  void shouldEvictPriceWhenProductPriceChanges() {
+    // given
+    OrderItem item = new OrderItem(ObjectId.get().toString(), 2);
+    underTest.putItemTotalPrice(item, BigDecimal.TEN);
+
+    // when
+    underTest.onPriceChanged(new ProductPriceChangedEvent(item.getProductId()));
+
+    // then
+    assertThat(underTest.getItemTotalPrice(item)).isNull();
+    assertThat(meterRegistry.get("order.price.cache.invalidations").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotCacheWhenDisabled() {
+    // given
+    underTest = new ProductPriceCache(false, 100, 60_000, meterRegistry);
+    OrderItem item = new OrderItem(ObjectId.get().toString(), 2);
+    underTest.putItemTotalPrice(item, BigDecimal.TEN);
+
+    // when
+    BigDecimal result = underTest.getItemTotalPrice(item);
+
+    // then
+    assertThat(result).isNull();
+  }
+}
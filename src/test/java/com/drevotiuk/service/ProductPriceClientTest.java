@@ -0,0 +1,116 @@
+package com.drevotiuk.service;
+
+import static org.mockito.BDDMockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.exception.PriceQuoteException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductPriceClientTest {
+  @Mock
+  private RabbitTemplate rabbitTemplate;
+  private final ExecutorService callers = Executors.newFixedThreadPool(32);
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final OrderItem item = new OrderItem(ObjectId.get().toString(), 2);
+
+  @AfterEach
+  void tearDown() {
+    callers.shutdownNow();
+  }
+
+  @Test
+  void shouldNotExceedMaxInFlightUnderLoad() throws Exception {
+    // given
+    StubPriceResponder responder = new StubPriceResponder(5).withUnitPrice(item.getProductId(), BigDecimal.TEN);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), any(Object.class))).willAnswer(invocation -> {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        return responder.answer(invocation);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    });
+    ProductPriceClient underTest = priceClient(4, 5_000);
+
+    // when
+    List<Future<Object>> replies = new ArrayList<>();
+    for (int i = 0; i < 200; i++)
+      replies.add(callers.submit(() -> underTest.quoteItem(item)));
+
+    // then
+    for (Future<Object> reply : replies)
+      assertThat(reply.get(10, TimeUnit.SECONDS)).isEqualTo(BigDecimal.valueOf(20));
+    assertThat(responder.getRoundTrips()).isEqualTo(200);
+    assertThat(maxInFlight.get()).isLessThanOrEqualTo(4);
+  }
+
+  @Test
+  void shouldRejectRequestWhenTooManyAreInFlight() throws Exception {
+    // given
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), any(Object.class))).willAnswer(invocation -> {
+      started.countDown();
+      release.await();
+      return BigDecimal.TEN;
+    });
+    ProductPriceClient underTest = priceClient(1, 10);
+    Future<Object> pending = callers.submit(() -> underTest.quoteItem(item));
+    started.await();
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.quoteItem(item))
+        .isInstanceOf(PriceQuoteException.class)
+        .hasMessageContaining("Too many");
+    assertThat(meterRegistry.get("order.quote.rejections").tag("reason", "bulkhead").counter().count()).isEqualTo(1);
+    release.countDown();
+    assertThat(pending.get(1, TimeUnit.SECONDS)).isEqualTo(BigDecimal.TEN);
+  }
+
+  @Test
+  void shouldThrowAndReleasePermitWhenNoReplyArrivesInTime() {
+    // given
+    ProductPriceClient underTest = priceClient(1, 10);
+    given(rabbitTemplate.convertSendAndReceive(any(), any(), any(Object.class))).willReturn(null);
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.quoteItems(List.of(item)))
+        .isInstanceOf(PriceQuoteException.class)
+        .hasMessageContaining("in time");
+    assertThatThrownBy(() -> underTest.quoteItems(List.of(item)))
+        .isInstanceOf(PriceQuoteException.class)
+        .hasMessageContaining("in time");
+  }
+
+  private ProductPriceClient priceClient(int maxInFlight, long acquireTimeout) {
+    return new ProductPriceClient(rabbitTemplate, new QuoteCircuitBreaker(1_000, 10_000, 20_000, meterRegistry),
+        maxInFlight, acquireTimeout, meterRegistry);
+  }
+}
@@ -0,0 +1,77 @@
+package com.drevotiuk.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.drevotiuk.model.exception.PriceQuoteException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class QuoteCircuitBreakerTest {
+  private MeterRegistry meterRegistry;
+  private QuoteCircuitBreaker underTest;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new QuoteCircuitBreaker(2, 10_000, 100, meterRegistry);
+  }
+
+  @Test
+  void shouldPassThroughRepliesWhileClosed() {
+    // when
+    BigDecimal result = underTest.execute(() -> BigDecimal.TEN);
+
+    // then
+    assertThat(result).isEqualTo(BigDecimal.TEN);
+    assertThat(underTest.isOpen()).isFalse();
+  }
+
+  @Test
+  void shouldFailFastOnceFailureThresholdIsReached() {
+    // given
+    AtomicInteger requests = new AtomicInteger();
+    failTwice(requests);
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.execute(requests::incrementAndGet))
+        .isInstanceOf(PriceQuoteException.class)
+        .hasMessageContaining("unavailable");
+    assertThat(requests).hasValue(2);
+    assertThat(underTest.isOpen()).isTrue();
+    assertThat(meterRegistry.get("order.quote.circuit.open").gauge().value()).isEqualTo(1);
+    assertThat(meterRegistry.get("order.quote.rejections").tag("reason", "circuit-open").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void shouldLetRequestThroughAfterResetTimeout() throws InterruptedException {
+    // given
+    AtomicInteger requests = new AtomicInteger();
+    failTwice(requests);
+    assertThatThrownBy(() -> underTest.execute(requests::incrementAndGet)).isInstanceOf(PriceQuoteException.class);
+    Thread.sleep(150);
+
+    // when
+    Integer result = underTest.execute(requests::incrementAndGet);
+
+    // then
+    assertThat(result).isEqualTo(3);
+    assertThat(underTest.isOpen()).isFalse();
+  }
+
+  private void failTwice(AtomicInteger requests) {
+    for (int i = 0; i < 2; i++)
+      assertThatThrownBy(() -> underTest.execute(() -> {
+        requests.incrementAndGet();
+        throw new PriceQuoteException("No price quote received in time");
+      })).hasMessageContaining("in time");
+  }
+}
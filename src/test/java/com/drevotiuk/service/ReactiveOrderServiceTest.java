@@ -0,0 +1,211 @@
+package com.drevotiuk.service;
+
+import static org.mockito.BDDMockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.OrdersChangedEvent;
+import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.InvalidOrderItemException;
+import com.drevotiuk.model.exception.OrderNotFoundException;
+import com.drevotiuk.repository.ReactiveOrderRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveOrderServiceTest {
+  @Mock
+  private ReactiveOrderRepository orderRepository;
+  @Mock
+  private ReactiveOrderServiceUtils orderServiceUtils;
+  @Mock
+  private ReactiveOutboxService outboxService;
+  @Mock
+  private TransactionalOperator transactionalOperator;
+  @Mock
+  private IdempotencyService idempotencyService;
+  @Mock
+  private ReactiveIdempotencyService reactiveIdempotencyService;
+  private final AtomicBoolean inTransaction = new AtomicBoolean();
+  private ReactiveOrderService underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new ReactiveOrderService(orderRepository, orderServiceUtils, outboxService, transactionalOperator,
+        idempotencyService, reactiveIdempotencyService);
+  }
+
+  @Test
+  void shouldFindAllOrdersOfUser() {
+    // given
+    ObjectId userId = ObjectId.get();
+    OrderView view = new OrderView(Collections.emptyList(), BigDecimal.TEN, OrderStatus.ORDERED);
+    given(orderRepository.findViewsByUserId(userId)).willReturn(Flux.just(view));
+
+    // when
+    // then
+    StepVerifier.create(underTest.findAll(userId))
+        .expectNext(view)
+        .verifyComplete();
+  }
+
+  @Test
+  void shouldFindOrderOwnedByUser() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    ObjectId userId = ObjectId.get();
+    OrderView view = new OrderView(Collections.emptyList(), BigDecimal.TEN, OrderStatus.ORDERED);
+    given(orderRepository.findViewByIdAndUserId(orderId, userId)).willReturn(Mono.just(view));
+
+    // when
+    // then
+    StepVerifier.create(underTest.find(orderId, userId))
+        .expectNext(view)
+        .verifyComplete();
+    verify(orderServiceUtils, never()).findOwnerId(any());
+  }
+
+  @Test
+  void shouldFailWhenOrderIsNotOwnedByUser() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    ObjectId userId = ObjectId.get();
+    given(orderRepository.findViewByIdAndUserId(orderId, userId)).willReturn(Mono.empty());
+    given(orderServiceUtils.findOwnerId(orderId)).willReturn(Mono.just(ObjectId.get()));
+
+    // when
+    // then
+    StepVerifier.create(underTest.find(orderId, userId))
+        .expectError(ForbiddenException.class)
+        .verify();
+  }
+
+  @Test
+  void shouldFailWhenOrderDoesNotExist() {
+    // given
+    ObjectId orderId = ObjectId.get();
+    ObjectId userId = ObjectId.get();
+    given(orderRepository.findViewByIdAndUserId(orderId, userId)).willReturn(Mono.empty());
+    given(orderServiceUtils.findOwnerId(orderId))
+        .willReturn(Mono.error(new OrderNotFoundException("TEST not found")));
+
+    // when
+    // then
+    StepVerifier.create(underTest.find(orderId, userId))
+        .expectError(OrderNotFoundException.class)
+        .verify();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldCreateOrderInTransaction() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    given(orderServiceUtils.calculateTotalPrice(orderItems)).willReturn(Mono.just(BigDecimal.TEN));
+    given(orderRepository.save(any(Order.class))).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    given(orderServiceUtils.sendOrderCreatedEmail(any(Order.class), eq(BigDecimal.TEN))).willReturn(Mono.empty());
+    given(outboxService.enqueue(any(), any(), eq(orderItems))).willReturn(Mono.empty());
+    given(outboxService.enqueue(any(), any(), any(OrdersChangedEvent.class))).willReturn(Mono.empty());
+    given(transactionalOperator.transactional(any(Mono.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+    // when
+    // then
+    StepVerifier.create(underTest.create(orderItems, userId, null))
+        .expectNext(new OrderView(orderItems, BigDecimal.TEN, OrderStatus.ORDERED))
+        .verifyComplete();
+
+    ArgumentCaptor<Order> saved = ArgumentCaptor.forClass(Order.class);
+    verify(orderRepository).save(saved.capture());
+    assertThat(saved.getValue().getUserId()).isEqualTo(userId);
+    assertThat(saved.getValue().getTotalPrice()).isEqualTo(BigDecimal.TEN);
+    ArgumentCaptor<OrdersChangedEvent> event = ArgumentCaptor.forClass(OrdersChangedEvent.class);
+    verify(outboxService).enqueue(any(), eq(""), event.capture());
+    assertThat(event.getValue().getOrigin()).isNull();
+    assertThat(event.getValue().getUserIds()).containsExactly(userId.toHexString());
+    verify(transactionalOperator).transactional(any(Mono.class));
+  }
+
+  @Test
+  void shouldNotSaveOrderWhenOrderItemsAreInvalid() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    given(orderServiceUtils.calculateTotalPrice(orderItems))
+        .willReturn(Mono.error(new InvalidOrderItemException("TEST invalid order")));
+
+    // when
+    // then
+    StepVerifier.create(underTest.create(orderItems, ObjectId.get(), null))
+        .expectError(InvalidOrderItemException.class)
+        .verify();
+    verify(orderRepository, never()).save(any());
+    verify(outboxService, never()).enqueue(any(), any(), any());
+  }
+
+  @Test
+  void shouldCompleteIdempotencyKeyInOrderTransaction() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    givenOrderCreation(orderItems, userId);
+    given(reactiveIdempotencyService.complete(eq(userId), eq("key"), any(ObjectId.class), any(OrderView.class)))
+        .willReturn(Mono.fromRunnable(() -> assertThat(inTransaction).isTrue()));
+
+    // when
+    // then
+    StepVerifier.create(underTest.create(orderItems, userId, "key"))
+        .expectNext(new OrderView(orderItems, BigDecimal.TEN, OrderStatus.ORDERED))
+        .verifyComplete();
+    verify(idempotencyService, never()).release(any(), any());
+  }
+
+  @Test
+  void shouldReleaseIdempotencyKeyWhenCompletionFails() {
+    // given
+    List<OrderItem> orderItems = Collections.singletonList(new OrderItem(ObjectId.get().toString(), 2));
+    ObjectId userId = ObjectId.get();
+    givenOrderCreation(orderItems, userId);
+    given(reactiveIdempotencyService.complete(eq(userId), eq("key"), any(ObjectId.class), any(OrderView.class)))
+        .willReturn(Mono.error(new IllegalStateException("TEST completion failed")));
+
+    // when
+    // then
+    StepVerifier.create(underTest.create(orderItems, userId, "key"))
+        .expectError(IllegalStateException.class)
+        .verify();
+    verify(idempotencyService).release(userId, "key");
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenOrderCreation(List<OrderItem> orderItems, ObjectId userId) {
+    given(idempotencyService.reserve(userId, "key", orderItems)).willReturn(Optional.empty());
+    given(orderServiceUtils.calculateTotalPrice(orderItems)).willReturn(Mono.just(BigDecimal.TEN));
+    given(orderRepository.save(any(Order.class))).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+    given(orderServiceUtils.sendOrderCreatedEmail(any(Order.class), eq(BigDecimal.TEN))).willReturn(Mono.empty());
+    given(outboxService.enqueue(any(), any(), eq(orderItems))).willReturn(Mono.empty());
+    given(outboxService.enqueue(any(), any(), any(OrdersChangedEvent.class))).willReturn(Mono.empty());
+    given(transactionalOperator.transactional(any(Mono.class))).willAnswer(invocation -> invocation.<Mono<?>>getArgument(0)
+        .doOnSubscribe(subscription -> inTransaction.set(true))
+        .doFinally(signal -> inTransaction.set(false)));
+  }
+}
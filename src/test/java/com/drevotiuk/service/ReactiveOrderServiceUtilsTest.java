@@ -0,0 +1,128 @@
+package com.drevotiuk.service;
+
+import static org.mockito.BDDMockito.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate;
+import org.springframework.amqp.rabbit.AsyncRabbitTemplate.RabbitConverterFuture;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderPriceQuote;
+import com.drevotiuk.model.exception.InvalidOrderItemException;
+import com.drevotiuk.repository.ReactiveOrderRepository;
+import com.drevotiuk.service.OrderServiceUtils.QuoteMode;
+
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveOrderServiceUtilsTest {
+  @Mock
+  private ReactiveOrderRepository orderRepository;
+  @Mock
+  private AsyncRabbitTemplate asyncRabbitTemplate;
+  @Mock
+  private ProductPriceCache priceCache;
+  @Mock
+  private ReactiveOutboxService outboxService;
+  private ReactiveOrderServiceUtils underTest;
+
+  private final OrderItem first = new OrderItem(ObjectId.get().toString(), 2);
+  private final OrderItem second = new OrderItem(ObjectId.get().toString(), 1);
+
+  @BeforeEach
+  void setUp() {
+    OrderServiceUtils serviceUtils = new OrderServiceUtils(null, null, Runnable::run, priceCache, null, null, null,
+        null);
+    underTest = new ReactiveOrderServiceUtils(orderRepository, asyncRabbitTemplate, serviceUtils, outboxService);
+    ReflectionTestUtils.setField(underTest, "productServiceExchange", "product-service");
+    ReflectionTestUtils.setField(underTest, "totalPriceRoutingKey", "total-price");
+  }
+
+  @Test
+  void shouldQuoteEachItemInSequentialMode() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", QuoteMode.SEQUENTIAL);
+    givenReply(first, BigDecimal.TEN);
+    givenReply(second, BigDecimal.ONE);
+
+    // when
+    // then
+    StepVerifier.create(underTest.calculateTotalPrice(List.of(first, second)))
+        .expectNextMatches(totalPrice -> totalPrice.compareTo(BigDecimal.valueOf(11)) == 0)
+        .verifyComplete();
+    verify(asyncRabbitTemplate, never()).convertSendAndReceive(anyString(), anyString(), any(List.class));
+  }
+
+  @Test
+  void shouldFailOnInvalidItemInParallelMode() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", QuoteMode.PARALLEL);
+    givenReply(first, BigDecimal.TEN);
+    givenReply(second, BigDecimal.ZERO);
+
+    // when
+    // then
+    StepVerifier.create(underTest.calculateTotalPrice(List.of(first, second)))
+        .verifyError(InvalidOrderItemException.class);
+  }
+
+  @Test
+  void shouldQuoteAllItemsInSingleRequestInBatchMode() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", QuoteMode.BATCH);
+    List<OrderItem> orderItems = List.of(first, second);
+    givenReply(orderItems, new OrderPriceQuote(List.of(BigDecimal.TEN, BigDecimal.ONE), BigDecimal.valueOf(11)));
+
+    // when
+    // then
+    StepVerifier.create(underTest.calculateTotalPrice(orderItems))
+        .expectNextMatches(totalPrice -> totalPrice.compareTo(BigDecimal.valueOf(11)) == 0)
+        .verifyComplete();
+    verify(asyncRabbitTemplate, never()).convertSendAndReceive(anyString(), anyString(), any(OrderItem.class));
+  }
+
+  @Test
+  void shouldRejectNonPositiveQuantityWhenPriceIsCached() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", QuoteMode.SEQUENTIAL);
+    lenient().when(priceCache.getItemTotalPrice(any(OrderItem.class))).thenReturn(BigDecimal.TEN);
+
+    // when
+    // then
+    StepVerifier.create(underTest.calculateTotalPrice(List.of(new OrderItem(first.getProductId(), 0))))
+        .verifyError(InvalidOrderItemException.class);
+    StepVerifier.create(underTest.calculateTotalPrice(List.of(new OrderItem(first.getProductId(), -2))))
+        .verifyError(InvalidOrderItemException.class);
+    verifyNoInteractions(asyncRabbitTemplate);
+  }
+
+  @Test
+  void shouldRejectNonPositiveQuantityWhenPriceIsCachedInBatchMode() {
+    // given
+    ReflectionTestUtils.setField(underTest, "quoteMode", QuoteMode.BATCH);
+    lenient().when(priceCache.getItemTotalPrice(any(OrderItem.class))).thenReturn(BigDecimal.TEN);
+
+    // when
+    // then
+    StepVerifier.create(underTest.calculateTotalPrice(List.of(first, new OrderItem(second.getProductId(), -1))))
+        .verifyError(InvalidOrderItemException.class);
+    verifyNoInteractions(asyncRabbitTemplate);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenReply(Object request, Object reply) {
+    RabbitConverterFuture<Object> future = mock(RabbitConverterFuture.class);
+    given(future.completable()).willReturn(CompletableFuture.completedFuture(reply));
+    given(asyncRabbitTemplate.convertSendAndReceive(anyString(), anyString(), eq(request))).willReturn(future);
+  }
+}
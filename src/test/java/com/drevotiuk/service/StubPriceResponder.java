@@ -0,0 +1,71 @@
+package com.drevotiuk.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderPriceQuote;
+
+/**
+ * Local stand-in for the product service price responder.
+ * Answers both the per-item and the batch price quote protocol after a
+ * simulated broker round trip, and counts how many round trips were made.
+ * Intended to be used as a Mockito {@link Answer} for
+ * {@code RabbitTemplate#convertSendAndReceive(String, String, Object)}.
+ */
+public class StubPriceResponder implements Answer<Object> {
+  private final Map<String, BigDecimal> unitPrices = new ConcurrentHashMap<>();
+  private final AtomicInteger roundTrips = new AtomicInteger();
+  private final long roundTripMillis;
+
+  public StubPriceResponder(long roundTripMillis) {
+    this.roundTripMillis = roundTripMillis;
+  }
+
+  public StubPriceResponder withUnitPrice(String productId, BigDecimal unitPrice) {
+    unitPrices.put(productId, unitPrice);
+    return this;
+  }
+
+  public int getRoundTrips() {
+    return roundTrips.get();
+  }
+
+  @Override
+  public Object answer(InvocationOnMock invocation) throws InterruptedException {
+    return reply(invocation.getArgument(2));
+  }
+
+  /**
+   * Replies to a price request the way the product service does.
+   *
+   * @param request a single {@link OrderItem} or a {@link List} of them
+   * @return the item total price or an {@link OrderPriceQuote}
+   * @throws InterruptedException if interrupted during the simulated round trip
+   */
+  public Object reply(Object request) throws InterruptedException {
+    roundTrips.incrementAndGet();
+    Thread.sleep(roundTripMillis);
+
+    if (request instanceof OrderItem)
+      return priceOf((OrderItem) request);
+
+    List<BigDecimal> itemPrices = ((List<?>) request).stream()
+        .map(item -> priceOf((OrderItem) item))
+        .collect(Collectors.toList());
+    BigDecimal totalPrice = itemPrices.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    return new OrderPriceQuote(itemPrices, totalPrice);
+  }
+
+  private BigDecimal priceOf(OrderItem item) {
+    return unitPrices.getOrDefault(item.getProductId(), BigDecimal.ZERO)
+        .multiply(BigDecimal.valueOf(item.getQty()));
+  }
+}
@@ -0,0 +1,129 @@
+package com.drevotiuk.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.drevotiuk.model.Order;
+import com.drevotiuk.model.OrderItem;
+import com.drevotiuk.model.OrderStatus;
+import com.drevotiuk.model.OrderView;
+import com.drevotiuk.model.UserOrders;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class UserOrdersCacheTest {
+  private UserOrdersCache underTest;
+
+  private final ObjectId userId = ObjectId.get();
+  private final Order order = order(OrderStatus.ORDERED);
+
+  @BeforeEach
+  void setUp() {
+    underTest = new UserOrdersCache(true, 100, 60_000, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void shouldLoadOrdersOnlyOnce() {
+    // given
+    AtomicInteger loads = new AtomicInteger();
+
+    // when
+    underTest.get(userId, id -> {
+      loads.incrementAndGet();
+      return List.of(order);
+    });
+    UserOrders result = underTest.get(userId, id -> {
+      loads.incrementAndGet();
+      return List.of(order);
+    });
+
+    // then
+    assertThat(result.getOrders()).containsExactly(new OrderView(order));
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void shouldAppendCreatedOrderAndChangeEtag() {
+    // given
+    String etag = underTest.get(userId, id -> List.of(order)).getEtag();
+    Order created = order(OrderStatus.ORDERED);
+
+    // when
+    underTest.append(created);
+
+    // then
+    UserOrders result = underTest.get(userId, id -> List.of());
+    assertThat(result.getOrders()).containsExactly(new OrderView(order), new OrderView(created));
+    assertThat(result.getEtag()).isNotEqualTo(etag);
+  }
+
+  @Test
+  void shouldReplaceUpdatedOrderAndChangeEtag() {
+    // given
+    String etag = underTest.get(userId, id -> List.of(order)).getEtag();
+    Order updated = new Order(order.getId(), OrderStatus.SHIPPED, userId, order.getOrderItems(),
+        order.getOrderTime(), order.getTotalPrice());
+
+    // when
+    underTest.replace(updated);
+
+    // then
+    UserOrders result = underTest.get(userId, id -> List.of());
+    assertThat(result.getOrders()).extracting(OrderView::getStatus).containsExactly(OrderStatus.SHIPPED);
+    assertThat(result.getEtag()).isNotEqualTo(etag);
+  }
+
+  @Test
+  void shouldRemoveDeletedOrder() {
+    // given
+    underTest.get(userId, id -> List.of(order));
+
+    // when
+    underTest.remove(order);
+
+    // then
+    assertThat(underTest.get(userId, id -> List.of(order)).getOrders()).isEmpty();
+  }
+
+  @Test
+  void shouldNotCacheListOnChangeBeforeLoad() {
+    // given
+    AtomicInteger loads = new AtomicInteger();
+
+    // when
+    underTest.append(order);
+    underTest.get(userId, id -> {
+      loads.incrementAndGet();
+      return List.of(order);
+    });
+
+    // then
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void shouldKeepEtagOfUnchangedList() {
+    // given
+    String etag = underTest.get(userId, id -> List.of(order)).getEtag();
+
+    // when
+    underTest.evict(List.of(userId));
+
+    // then
+    assertThat(underTest.get(userId, id -> List.of(order)).getEtag()).isEqualTo(etag);
+  }
+
+  private Order order(OrderStatus status) {
+    return new Order(ObjectId.get(), status, userId,
+        Collections.singletonList(new OrderItem(ObjectId.get().toString(), 5)), LocalDateTime.now(), BigDecimal.TEN);
+  }
+}